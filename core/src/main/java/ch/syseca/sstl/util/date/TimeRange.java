@@ -1,18 +1,19 @@
 package ch.syseca.sstl.util.date;
 
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.text.MessageFormat;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.Date;
 import java.util.Objects;
-import org.apache.commons.lang3.Range;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 import ch.syseca.sstl.util.text.SimpleTextSupplier;
 import lombok.Builder;
-import lombok.Getter;
 
 
 /**
@@ -24,19 +25,28 @@ import lombok.Getter;
  * </pre>
  *
  * <p>ist.</p>
+ *
+ * <p>Die Zeiten werden als <code>long</code> (Millisekunden seit 1970) gespeichert, alle Abfragen vergleichen nur diese
+ * Werte. {@link #getBeginTime()} und {@link #getEndTime()} erzeugen bei jedem Aufruf ein neues {@link Date} Objekt.</p>
  */
 public final class TimeRange implements Serializable {
 
+    /** Unver&auml;ndert seit der Version mit {@link Date} Feldern. */
+    private static final long serialVersionUID = -6125723732572419271L;
+
+    /** Serialisierte Felder, kompatibel mit der Version mit {@link Date} Feldern. */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("beginTime", Date.class), new ObjectStreamField("endTime", Date.class)
+        };
+
     /** Anfangszeit (inklusive). */
-    @Getter
-    private final Date beginTime;
+    private final long minTime;
 
     /** Endzeit (exklusive). */
-    @Getter
-    private final Date endTime;
+    private final long maxTime;
 
-    /** Long-Bereich, auf den der Zeitbereich abgebildet wird. */
-    private transient Range<Long> longRange;
+    /** Gelesene serialisierte Form, nur zwischen {@link #readObject} und {@link #readResolve()} gesetzt. */
+    private transient SerializedForm serializedForm;
 
 
     /**
@@ -44,8 +54,7 @@ public final class TimeRange implements Serializable {
      */
     @SuppressWarnings("unused")
     private TimeRange() {
-        this.beginTime = null;
-        this.endTime = null;
+        this(0L, 0L);
     }
 
 
@@ -56,20 +65,22 @@ public final class TimeRange implements Serializable {
      * @param  maxTime  Endzeit.
      */
     public TimeRange(long minTime, long maxTime) {
-        this(new Date(minTime), new Date(maxTime));
+        this.minTime = minTime;
+        this.maxTime = maxTime;
     }
 
 
     /**
      * Erzeugt neuen Zeitbereich.
      *
-     * @param  beginTime  Startzeit.
-     * @param  endTime    Endzeit.
+     * @param   beginTime  Startzeit.
+     * @param   endTime    Endzeit.
+     *
+     * @throws  IllegalArgumentException  {@code beginTime} oder {@code endTime} ist <code>null</code>.
      */
     @Builder
-    public TimeRange(Date beginTime, Date endTime) {
-        this.beginTime = beginTime;
-        this.endTime = endTime;
+    public TimeRange(Date beginTime, Date endTime) throws IllegalArgumentException {
+        this(toMillis(beginTime, "beginTime"), toMillis(endTime, "endTime"));
     }
 
 
@@ -80,7 +91,7 @@ public final class TimeRange implements Serializable {
      * @param  endTime    Endzeit.
      */
     public TimeRange(Instant beginTime, Instant endTime) {
-        this(Date.from(beginTime), Date.from(endTime));
+        this(beginTime.toEpochMilli(), endTime.toEpochMilli());
     }
 
 
@@ -95,19 +106,6 @@ public final class TimeRange implements Serializable {
     }
 
 
-    /**
-     * Gibt den LongRange basierend auf <code>minTime</code> und <code>maxTime</code> zur&uuml;ck.
-     *
-     * @return  LongRange.
-     */
-    private Range<Long> getLongRange() {
-        if (longRange == null) {
-            longRange = Range.between(getMinTime(), getMaxTime() - 1);
-        }
-        return longRange;
-    }
-
-
     /**
      * Testet, ob die Zeit <code>time</code> im Zeitbereich liegt.
      *
@@ -116,7 +114,7 @@ public final class TimeRange implements Serializable {
      * @return  <code>true</code>, wenn <code>time</code> im Zeitbereich liegt.
      */
     public boolean containsTime(long time) {
-        return getLongRange().contains(time);
+        return minTime <= time && time < maxTime;
     }
 
 
@@ -134,14 +132,14 @@ public final class TimeRange implements Serializable {
 
     /**
      * Testet, ob der Zeitbereich <code>tr</code> innerhalb dieses Zeitbereichs liegt. Der Zeitbereich liegt innerhalb
-     * dieses Zeitbereiches, wenn <code>minTime &lt;= tr.minTime &lt; maxTime AND minTime &lt;= tr.maxTime &lt; maxTime</code>.
+     * dieses Zeitbereiches, wenn <code>minTime &lt;= tr.minTime AND tr.maxTime &lt;= maxTime</code>.
      *
      * @param   tr  Zeitbereich,
      *
      * @return  <code>true</code>, wenn <code>tr</code> innerhalb dieses Zeitbereiches liegt. Sonst <code>false</code>.
      */
     public boolean containsRange(TimeRange tr) {
-        return getLongRange().containsRange(tr.getLongRange());
+        return minTime <= tr.minTime && tr.maxTime <= maxTime;
     }
 
 
@@ -151,7 +149,7 @@ public final class TimeRange implements Serializable {
      * @return  Anfangszeit (inclusive) des Zeitintervalles.
      */
     public long getMinTime() {
-        return beginTime.getTime();
+        return minTime;
     }
 
 
@@ -161,7 +159,27 @@ public final class TimeRange implements Serializable {
      * @return  Endzeit (exclusive) des Zeitintervalles.
      */
     public long getMaxTime() {
-        return endTime.getTime();
+        return maxTime;
+    }
+
+
+    /**
+     * Gibt die Anfangszeit (inklusive) zur&uuml;ck.
+     *
+     * @return  Anfangszeit als neues Date Objekt.
+     */
+    public Date getBeginTime() {
+        return new Date(minTime);
+    }
+
+
+    /**
+     * Gibt die Endzeit (exklusive) zur&uuml;ck.
+     *
+     * @return  Endzeit als neues Date Objekt.
+     */
+    public Date getEndTime() {
+        return new Date(maxTime);
     }
 
 
@@ -191,7 +209,7 @@ public final class TimeRange implements Serializable {
      * @return  Anfangszeit (inclusive) des Zeitintervalles.
      */
     public Instant getMinInstant() {
-        return getBeginTime().toInstant();
+        return Instant.ofEpochMilli(minTime);
     }
 
 
@@ -201,7 +219,7 @@ public final class TimeRange implements Serializable {
      * @return  Endzeit (exclusive) des Zeitintervalles.
      */
     public Instant getMaxInstant() {
-        return getEndTime().toInstant();
+        return Instant.ofEpochMilli(maxTime);
     }
 
 
@@ -212,7 +230,7 @@ public final class TimeRange implements Serializable {
      */
     @Override
     public String toString() {
-        return MessageFormat.format("{0}/{1}", DateUtil.toInstant(beginTime), DateUtil.toInstant(endTime));
+        return MessageFormat.format("{0}/{1}", getMinInstant(), getMaxInstant());
     }
 
 
@@ -226,13 +244,16 @@ public final class TimeRange implements Serializable {
      * @return  Anzahl Millisekunden, die der Zeitbereich umfasst.
      */
     public long millis() {
-        return getMaxTime() - getMinTime();
+        return maxTime - minTime;
     }
 
 
+    /**
+     * Gibt denselben Hashcode zur&uuml;ck wie <code>new HashCodeBuilder(1, 25).append(minTime).append(maxTime)</code>.
+     */
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(1, 25).append(getMinTime()).append(getMaxTime()).toHashCode();
+        return (25 + (int) (minTime ^ (minTime >>> 32))) * 25 + (int) (maxTime ^ (maxTime >>> 32));
     }
 
 
@@ -246,8 +267,7 @@ public final class TimeRange implements Serializable {
             result = false;
         } else {
             final TimeRange o = (TimeRange) obj;
-            result = new EqualsBuilder().append(getMinTime(), o.getMinTime()).append(getMaxTime(), o.getMaxTime())
-                    .isEquals();
+            result = minTime == o.minTime && maxTime == o.maxTime;
         }
 
         return result;
@@ -260,10 +280,10 @@ public final class TimeRange implements Serializable {
      * @return <code>true</code>, wenn sich die beiden Zeitbereiche ueberschneiden, sonst <code>false</code>.
      */
     public boolean isOverlappedBy(TimeRange other) {
-        Objects.requireNonNull(other.getLongRange(), SimpleTextSupplier.argMustNotBeNull("other"));
+        Objects.requireNonNull(other, SimpleTextSupplier.argMustNotBeNull("other"));
         return this == other
                 ? true
-                : getLongRange().isOverlappedBy(other.getLongRange());
+                : other.minTime < maxTime && minTime < other.maxTime;
     }
 
 
@@ -276,21 +296,68 @@ public final class TimeRange implements Serializable {
      * @see #isOverlappedBy(TimeRange)
      */
     public TimeRange intersect(TimeRange other) throws IllegalArgumentException {
+        final TimeRange result = intersectOrNull(other);
+
+        if (result == null) {
+            throw new IllegalArgumentException("Cannot calculate intersection with non-overlapping range " + other);
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Ermittelt den Zeitbereich, in dem sich die beiden Zeitbereich ueberschneiden. Im Gegensatz zu
+     * {@link #intersect(TimeRange)} wird keine Exception erzeugt, wenn sich die Zeitbereiche nicht ueberschneiden.
+     * @param other Der andere Zeitbereich.
+     * @return Zeitbereich der Ueberschneidung oder <code>null</code>, wenn sich die beiden Zeitbereiche nicht
+     *         ueberschneiden.
+     *
+     * @see #isOverlappedBy(TimeRange)
+     */
+    public TimeRange intersectOrNull(TimeRange other) {
         TimeRange result;
 
-        Objects.requireNonNull(other.getLongRange(), SimpleTextSupplier.argMustNotBeNull("other"));
+        Objects.requireNonNull(other, SimpleTextSupplier.argMustNotBeNull("other"));
         if (this == other) {
             result = this;
+        } else if (isOverlappedBy(other)) {
+            result = new TimeRange(Math.max(minTime, other.minTime), Math.min(maxTime, other.maxTime));
         } else {
-            Range<Long> intersection = getLongRange().intersectionWith(other.getLongRange());
-
-            result = new TimeRange(intersection.getMinimum(), intersection.getMaximum() + 1);
+            result = null;
         }
 
         return result;
     }
 
 
+    /**
+     * Ermittelt die Grenzen des Zeitbereichs, in dem sich die beiden Zeitbereich ueberschneiden, ohne Objekte zu
+     * erzeugen. Ist die Ueberschneidung leer, wird <code>out</code> nicht veraendert.
+     * @param other Der andere Zeitbereich.
+     * @param out Erhaelt die Anfangszeit in <code>out[0]</code> und die Endzeit in <code>out[1]</code>.
+     * @return <code>true</code>, wenn sich die beiden Zeitbereiche ueberschneiden, sonst <code>false</code>.
+     * @throws IllegalArgumentException <code>out</code> hat weniger als zwei Elemente.
+     *
+     * @see #isOverlappedBy(TimeRange)
+     */
+    public boolean tryIntersect(TimeRange other, long[] out) throws IllegalArgumentException {
+        Objects.requireNonNull(other, SimpleTextSupplier.argMustNotBeNull("other"));
+        if (out == null || out.length < 2) {
+            throw new IllegalArgumentException("out must have at least 2 elements");
+        }
+
+        if (!isOverlappedBy(other)) {
+            return false;
+        }
+
+        out[0] = Math.max(minTime, other.minTime);
+        out[1] = Math.min(maxTime, other.maxTime);
+
+        return true;
+    }
+
+
     /**
      * Ermittelt den Zeitbereich, in dem sich die beiden Zeitbereich ueberschneiden.
      * @param other Der andere Zeitbereich.
@@ -299,12 +366,86 @@ public final class TimeRange implements Serializable {
      * 
      * @see #isOverlappedBy(TimeRange)
      */
-    public TimeRange intersect(TimeRange other, TimeRange defaultValue) throws IllegalArgumentException {
-        try {
-            return intersect(other);
-        } catch (IllegalArgumentException e) {
-            return defaultValue;
+    public TimeRange intersect(TimeRange other, TimeRange defaultValue) {
+        final TimeRange result = intersectOrNull(other);
+
+        return result != null ? result : defaultValue;
+    }
+
+
+    private static long toMillis(Date time, String name) {
+        if (time == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull(name).get());
         }
+
+        return time.getTime();
+    }
+
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        new SerializedForm(minTime, maxTime).write(out);
+    }
+
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        serializedForm = SerializedForm.read(in);
+    }
+
+
+    /**
+     * Ersetzt die deserialisierte Instanz, deren finale Felder nicht gesetzt werden k&ouml;nnen, durch einen neuen
+     * Zeitbereich.
+     *
+     * @return  Zeitbereich mit den gelesenen Zeiten.
+     */
+    private Object readResolve() {
+        return serializedForm.toTimeRange();
+    }
+
+
+    /**
+     * Serialisierte Form gem&auml;ss {@link TimeRange#serialPersistentFields}. Sie wird weiterhin unter dem Namen
+     * {@link TimeRange} geschrieben, damit Versionen mit {@link Date} Feldern die Daten lesen k&ouml;nnen.
+     */
+    private static final class SerializedForm {
+
+        private final long minTime;
+
+        private final long maxTime;
+
+
+        SerializedForm(long minTime, long maxTime) {
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+        }
+
+
+        static SerializedForm read(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            final ObjectInputStream.GetField fields = in.readFields();
+            final Date beginTime = (Date) fields.get("beginTime", null);
+            final Date endTime = (Date) fields.get("endTime", null);
+
+            if (beginTime == null || endTime == null) {
+                throw new InvalidObjectException("beginTime and endTime must not be null");
+            }
+
+            return new SerializedForm(beginTime.getTime(), endTime.getTime());
+        }
+
+
+        void write(ObjectOutputStream out) throws IOException {
+            final ObjectOutputStream.PutField fields = out.putFields();
+
+            fields.put("beginTime", new Date(minTime));
+            fields.put("endTime", new Date(maxTime));
+            out.writeFields();
+        }
+
+
+        TimeRange toTimeRange() {
+            return new TimeRange(minTime, maxTime);
+        }
+
     }
 
 }
@@ -0,0 +1,649 @@
+package ch.syseca.sstl.util.date;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import ch.syseca.sstl.util.text.SimpleTextSupplier;
+
+
+/**
+ * Spaltenorientierte Liste von Zeitbereichen f&uuml;r Auswertungen &uuml;ber sehr viele Zeitbereiche. Anfangs- und
+ * Endzeiten liegen in zwei <code>long</code> Spalten; pro Zeitbereich gibt es kein Objekt. Die Spalten liegen im Heap
+ * oder, f&uuml;r sehr grosse Listen, ausserhalb des Heaps in direkten {@link LongBuffer}n.
+ *
+ * <p>Die Abfragen ({@link #countContaining(long)}, {@link #countOverlapping(TimeRange)},
+ * {@link #overlapMillis(TimeRange)}) sind einfache Schleifen ohne Verzweigungen &uuml;ber <code>long[]</code>
+ * Abschnitte, die der JIT Compiler vektorisieren kann. Spalten ausserhalb des Heaps werden dazu abschnittweise in
+ * Arrays kopiert. Nach {@link #sort()} werden nur die Zeitbereiche durchsucht, die vor dem Ende der gesuchten Zeit
+ * beginnen.</p>
+ *
+ * <p>Wie bei {@link TimeRange} ist die Anfangszeit inklusive und die Endzeit exklusive. Die Klasse ist nicht thread
+ * safe.</p>
+ */
+public final class TimeRangeColumns {
+
+    /** Anzahl Zeitbereiche, die f&uuml;r Spalten ausserhalb des Heaps auf einmal kopiert werden. */
+    private static final int CHUNK_SIZE = 4096;
+
+    /** Unterhalb dieser Gr&ouml;sse wird beim Sortieren Insertion Sort verwendet. */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final boolean offHeap;
+
+    private LongBuffer begins;
+
+    private LongBuffer ends;
+
+    private int size;
+
+    /** <code>true</code>, wenn die Zeitbereiche nach Anfangs- und Endzeit sortiert sind. */
+    private boolean sorted = true;
+
+
+    /**
+     * Erzeugt eine leere Liste im Heap.
+     */
+    public TimeRangeColumns() {
+        this(16, false);
+    }
+
+
+    /**
+     * Erzeugt eine leere Liste.
+     *
+     * @param   initialCapacity  Erwartete Anzahl Zeitbereiche.
+     * @param   offHeap          <code>true</code>, wenn die Spalten ausserhalb des Heaps liegen sollen.
+     *
+     * @throws  IllegalArgumentException  <code>initialCapacity</code> ist negativ.
+     */
+    public TimeRangeColumns(int initialCapacity, boolean offHeap) throws IllegalArgumentException {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must not be negative: " + initialCapacity);
+        }
+
+        this.offHeap = offHeap;
+        this.begins = allocate(initialCapacity);
+        this.ends = allocate(initialCapacity);
+    }
+
+
+    /**
+     * Erzeugt eine Liste im Heap mit den Zeitbereichen.
+     *
+     * @param   ranges  Zeitbereiche.
+     *
+     * @return  Liste.
+     *
+     * @throws  IllegalArgumentException  <code>ranges</code> ist <code>null</code>.
+     */
+    public static TimeRangeColumns of(Collection<TimeRange> ranges) throws IllegalArgumentException {
+        final TimeRangeColumns result;
+
+        if (ranges == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("ranges").get());
+        }
+
+        result = new TimeRangeColumns(ranges.size(), false);
+        for (TimeRange range : ranges) {
+            result.add(range);
+        }
+
+        return result;
+    }
+
+
+    /**
+     * F&uuml;gt einen Zeitbereich hinzu.
+     *
+     * @param   range  Zeitbereich.
+     *
+     * @throws  IllegalArgumentException  <code>range</code> ist <code>null</code>.
+     */
+    public void add(TimeRange range) throws IllegalArgumentException {
+        if (range == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("range").get());
+        }
+
+        add(range.getMinTime(), range.getMaxTime());
+    }
+
+
+    /**
+     * F&uuml;gt einen Zeitbereich hinzu.
+     *
+     * @param  minTime  Anfangszeit (inklusive).
+     * @param  maxTime  Endzeit (exklusive).
+     */
+    public void add(long minTime, long maxTime) {
+        if (size == begins.capacity()) {
+            final int capacity = Math.max(16, size + (size >> 1));
+
+            begins = copy(begins, capacity);
+            ends = copy(ends, capacity);
+        }
+
+        if (sorted && size > 0) {
+            final long b = begins.get(size - 1);
+
+            sorted = b < minTime || (b == minTime && ends.get(size - 1) <= maxTime);
+        }
+        begins.put(size, minTime);
+        ends.put(size, maxTime);
+        size++;
+    }
+
+
+    /**
+     * Gibt die Anzahl der Zeitbereiche zur&uuml;ck.
+     *
+     * @return  Anzahl der Zeitbereiche.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Testet, ob die Spalten ausserhalb des Heaps liegen.
+     *
+     * @return  <code>true</code>, wenn die Spalten direkte {@link LongBuffer} sind.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+
+    /**
+     * Testet, ob die Zeitbereiche nach Anfangs- und Endzeit sortiert sind, entweder weil sie sortiert hinzugef&uuml;gt
+     * wurden oder nach {@link #sort()}. Abfragen durchsuchen dann nur die Zeitbereiche, die fr&uuml;h genug beginnen.
+     *
+     * @return  <code>true</code>, wenn die Zeitbereiche sortiert sind.
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+
+    /**
+     * Gibt die Anfangszeit des Zeitbereiches <code>index</code> zur&uuml;ck.
+     *
+     * @param   index  Index, 0 bis {@link #size()} - 1.
+     *
+     * @return  Anfangszeit (inklusive).
+     *
+     * @throws  IndexOutOfBoundsException  <code>index</code> ist ausserhalb der Liste.
+     */
+    public long getMinTime(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        return begins.get(index);
+    }
+
+
+    /**
+     * Gibt die Endzeit des Zeitbereiches <code>index</code> zur&uuml;ck.
+     *
+     * @param   index  Index, 0 bis {@link #size()} - 1.
+     *
+     * @return  Endzeit (exklusive).
+     *
+     * @throws  IndexOutOfBoundsException  <code>index</code> ist ausserhalb der Liste.
+     */
+    public long getMaxTime(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        return ends.get(index);
+    }
+
+
+    /**
+     * Gibt den Zeitbereich <code>index</code> zur&uuml;ck.
+     *
+     * @param   index  Index, 0 bis {@link #size()} - 1.
+     *
+     * @return  Neuer Zeitbereich.
+     *
+     * @throws  IndexOutOfBoundsException  <code>index</code> ist ausserhalb der Liste.
+     */
+    public TimeRange get(int index) throws IndexOutOfBoundsException {
+        return new TimeRange(getMinTime(index), getMaxTime(index));
+    }
+
+
+    /**
+     * Gibt die Spalte der Anfangszeiten zur&uuml;ck.
+     *
+     * @return  Nur lesbare Sicht auf die Anfangszeiten, <code>limit()</code> ist {@link #size()}.
+     */
+    public LongBuffer getMinTimes() {
+        return column(begins);
+    }
+
+
+    /**
+     * Gibt die Spalte der Endzeiten zur&uuml;ck.
+     *
+     * @return  Nur lesbare Sicht auf die Endzeiten, <code>limit()</code> ist {@link #size()}.
+     */
+    public LongBuffer getMaxTimes() {
+        return column(ends);
+    }
+
+
+    /**
+     * Sortiert die Zeitbereiche nach Anfangszeit und bei gleicher Anfangszeit nach Endzeit.
+     */
+    public void sort() {
+        final long[] b;
+        final long[] e;
+
+        if (sorted) {
+            return;
+        }
+
+        if (offHeap) {
+            b = new long[size];
+            e = new long[size];
+            begins.duplicate().get(b);
+            ends.duplicate().get(e);
+        } else {
+            b = begins.array();
+            e = ends.array();
+        }
+
+        sort(b, e, 0, size);
+
+        if (offHeap) {
+            begins.duplicate().put(b);
+            ends.duplicate().put(e);
+        }
+        sorted = true;
+    }
+
+
+    /**
+     * Z&auml;hlt die Zeitbereiche, die die Zeit <code>time</code> enthalten (siehe
+     * {@link TimeRange#containsTime(long)}).
+     *
+     * @param   time  Zeit in Millisekunden.
+     *
+     * @return  Anzahl der Zeitbereiche.
+     */
+    public int countContaining(long time) {
+        final int to = scanLimit(time);
+        final long[] b;
+        final long[] e;
+        int count = 0;
+
+        if (!offHeap) {
+            return countContaining(begins.array(), ends.array(), 0, to, time);
+        }
+
+        b = new long[Math.min(CHUNK_SIZE, to)];
+        e = new long[b.length];
+        for (int from = 0; from < to; from += CHUNK_SIZE) {
+            final int n = load(from, Math.min(to - from, CHUNK_SIZE), b, e);
+
+            count += countContaining(b, e, 0, n, time);
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Z&auml;hlt die Zeitbereiche, die sich mit <code>window</code> &uuml;berschneiden (siehe
+     * {@link TimeRange#isOverlappedBy(TimeRange)}).
+     *
+     * @param   window  Zeitbereich.
+     *
+     * @return  Anzahl der Zeitbereiche.
+     *
+     * @throws  IllegalArgumentException  <code>window</code> ist <code>null</code>.
+     */
+    public int countOverlapping(TimeRange window) throws IllegalArgumentException {
+        final long minTime;
+        final long maxTime;
+        final int to;
+        final long[] b;
+        final long[] e;
+        int count = 0;
+
+        if (window == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("window").get());
+        }
+
+        minTime = window.getMinTime();
+        maxTime = window.getMaxTime();
+        to = maxTime == Long.MIN_VALUE ? 0 : scanLimit(maxTime - 1);
+        if (!offHeap) {
+            return countOverlapping(begins.array(), ends.array(), 0, to, minTime, maxTime);
+        }
+
+        b = new long[Math.min(CHUNK_SIZE, to)];
+        e = new long[b.length];
+        for (int from = 0; from < to; from += CHUNK_SIZE) {
+            final int n = load(from, Math.min(to - from, CHUNK_SIZE), b, e);
+
+            count += countOverlapping(b, e, 0, n, minTime, maxTime);
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Summiert die L&auml;ngen der &Uuml;berschneidungen aller Zeitbereiche mit <code>window</code>. Zeiten, die in
+     * mehreren Zeitbereichen liegen, werden mehrfach gez&auml;hlt (siehe {@link #coveredMillis(TimeRange)}).
+     *
+     * @param   window  Zeitbereich.
+     *
+     * @return  Millisekunden.
+     *
+     * @throws  IllegalArgumentException  <code>window</code> ist <code>null</code>.
+     */
+    public long overlapMillis(TimeRange window) throws IllegalArgumentException {
+        final long minTime;
+        final long maxTime;
+        final int to;
+        final long[] b;
+        final long[] e;
+        long millis = 0;
+
+        if (window == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("window").get());
+        }
+
+        minTime = window.getMinTime();
+        maxTime = window.getMaxTime();
+        to = maxTime == Long.MIN_VALUE ? 0 : scanLimit(maxTime - 1);
+        if (!offHeap) {
+            return overlapMillis(begins.array(), ends.array(), 0, to, minTime, maxTime);
+        }
+
+        b = new long[Math.min(CHUNK_SIZE, to)];
+        e = new long[b.length];
+        for (int from = 0; from < to; from += CHUNK_SIZE) {
+            final int n = load(from, Math.min(to - from, CHUNK_SIZE), b, e);
+
+            millis += overlapMillis(b, e, 0, n, minTime, maxTime);
+        }
+
+        return millis;
+    }
+
+
+    /**
+     * Berechnet, wie viele Millisekunden von <code>window</code> durch mindestens einen Zeitbereich abgedeckt sind.
+     * Die Zeitbereiche werden dazu falls n&ouml;tig sortiert ({@link #sort()}).
+     *
+     * @param   window  Zeitbereich.
+     *
+     * @return  Millisekunden.
+     *
+     * @throws  IllegalArgumentException  <code>window</code> ist <code>null</code>.
+     */
+    public long coveredMillis(TimeRange window) throws IllegalArgumentException {
+        final long minTime;
+        final long maxTime;
+        long covered = 0;
+        long runBegin;
+        long runEnd;
+
+        if (window == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("window").get());
+        }
+
+        minTime = window.getMinTime();
+        maxTime = window.getMaxTime();
+        runBegin = minTime;
+        runEnd = minTime;
+        sort();
+
+        // zusammenhaengende Abschnitte in der Reihenfolge der Anfangszeiten bilden
+        for (int i = 0; i < size; i++) {
+            final long b = Math.max(begins.get(i), minTime);
+            final long e = Math.min(ends.get(i), maxTime);
+
+            if (b >= maxTime) {
+                break;
+            } else if (b >= e) {
+                continue;
+            } else if (b > runEnd) {
+                covered += runEnd - runBegin;
+                runBegin = b;
+                runEnd = e;
+            } else if (e > runEnd) {
+                runEnd = e;
+            }
+        }
+
+        return covered + runEnd - runBegin;
+    }
+
+
+    /**
+     * Ermittelt die maximale Anzahl Zeitbereiche, die gleichzeitig eine Zeit enthalten.
+     *
+     * @return  Maximale Anzahl gleichzeitiger Zeitbereiche, 0 f&uuml;r eine leere Liste.
+     */
+    public int maxConcurrency() {
+        final long[] b = new long[size];
+        final long[] e = new long[size];
+        int n = 0;
+        int current = 0;
+        int max = 0;
+
+        for (int i = 0; i < size; i++) {
+            final long begin = begins.get(i);
+            final long end = ends.get(i);
+
+            // leere Zeitbereiche enthalten keine Zeit
+            if (begin < end) {
+                b[n] = begin;
+                e[n] = end;
+                n++;
+            }
+        }
+        Arrays.sort(b, 0, n);
+        Arrays.sort(e, 0, n);
+
+        // Endzeiten sind exklusive: bei gleicher Zeit endet ein Zeitbereich, bevor der naechste beginnt
+        for (int i = 0, j = 0; i < n;) {
+            if (b[i] < e[j]) {
+                current++;
+                i++;
+                max = Math.max(max, current);
+            } else {
+                current--;
+                j++;
+            }
+        }
+
+        return max;
+    }
+
+
+    private static int countContaining(long[] b, long[] e, int from, int to, long time) {
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            count += (b[i] <= time & time < e[i]) ? 1 : 0;
+        }
+
+        return count;
+    }
+
+
+    private static int countOverlapping(long[] b, long[] e, int from, int to, long minTime, long maxTime) {
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            count += (b[i] < maxTime & minTime < e[i]) ? 1 : 0;
+        }
+
+        return count;
+    }
+
+
+    private static long overlapMillis(long[] b, long[] e, int from, int to, long minTime, long maxTime) {
+        long millis = 0;
+
+        for (int i = from; i < to; i++) {
+            millis += Math.max(0, Math.min(e[i], maxTime) - Math.max(b[i], minTime));
+        }
+
+        return millis;
+    }
+
+
+    /**
+     * Gibt zur&uuml;ck, bis zu welchem Index Zeitbereiche durchsucht werden m&uuml;ssen, die bei oder vor
+     * <code>time</code> beginnen.
+     *
+     * @param   time  Zeit.
+     *
+     * @return  Exklusiver Index: {@link #size()}, wenn die Liste nicht sortiert ist.
+     */
+    private int scanLimit(long time) {
+        int low = 0;
+        int high = size;
+
+        if (!sorted) {
+            return size;
+        }
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (begins.get(mid) <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+
+    /**
+     * Kopiert einen Abschnitt der Spalten in die Arrays.
+     *
+     * @return  Anzahl kopierter Zeitbereiche.
+     */
+    private int load(int from, int length, long[] b, long[] e) {
+        ((LongBuffer) begins.duplicate().position(from)).get(b, 0, length);
+        ((LongBuffer) ends.duplicate().position(from)).get(e, 0, length);
+
+        return length;
+    }
+
+
+    private LongBuffer column(LongBuffer source) {
+        final LongBuffer result = source.asReadOnlyBuffer();
+
+        result.limit(size);
+
+        return result;
+    }
+
+
+    private LongBuffer allocate(int capacity) {
+        return offHeap
+                ? ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer()
+                : LongBuffer.wrap(new long[capacity]);
+    }
+
+
+    private LongBuffer copy(LongBuffer source, int capacity) {
+        final LongBuffer result = allocate(capacity);
+        final LongBuffer content = source.duplicate();
+
+        content.clear().limit(size);
+        result.put(content).clear();
+
+        return result;
+    }
+
+
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+
+    /**
+     * Sortiert die parallelen Arrays nach <code>(b, e)</code> (Quicksort, Insertion Sort f&uuml;r kleine Abschnitte).
+     */
+    private static void sort(long[] b, long[] e, int from, int to) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            final int mid = (from + to) >>> 1;
+            final long pivotB;
+            final long pivotE;
+            int i = from;
+            int j = to - 1;
+
+            // Median von drei als Pivot
+            if (less(b, e, mid, from)) {
+                swap(b, e, mid, from);
+            }
+            if (less(b, e, to - 1, from)) {
+                swap(b, e, to - 1, from);
+            }
+            if (less(b, e, to - 1, mid)) {
+                swap(b, e, to - 1, mid);
+            }
+            pivotB = b[mid];
+            pivotE = e[mid];
+
+            while (i <= j) {
+                while (b[i] < pivotB || (b[i] == pivotB && e[i] < pivotE)) {
+                    i++;
+                }
+                while (b[j] > pivotB || (b[j] == pivotB && e[j] > pivotE)) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(b, e, i++, j--);
+                }
+            }
+
+            // kleineren Teil rekursiv, groesseren Teil in der Schleife sortieren
+            if (j + 1 - from < to - i) {
+                sort(b, e, from, j + 1);
+                from = i;
+            } else {
+                sort(b, e, i, to);
+                to = j + 1;
+            }
+        }
+
+        for (int i = from + 1; i < to; i++) {
+            for (int k = i; k > from && less(b, e, k, k - 1); k--) {
+                swap(b, e, k, k - 1);
+            }
+        }
+    }
+
+
+    private static boolean less(long[] b, long[] e, int x, int y) {
+        return b[x] < b[y] || (b[x] == b[y] && e[x] < e[y]);
+    }
+
+
+    private static void swap(long[] b, long[] e, int x, int y) {
+        final long tb = b[x];
+        final long te = e[x];
+
+        b[x] = b[y];
+        e[x] = e[y];
+        b[y] = tb;
+        e[y] = te;
+    }
+
+}
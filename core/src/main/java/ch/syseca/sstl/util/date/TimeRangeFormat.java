@@ -14,7 +14,6 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
-import java.util.Date;
 
 
 public class TimeRangeFormat extends Format {
@@ -122,9 +121,9 @@ public class TimeRangeFormat extends Format {
     public StringBuffer format(Object obj, StringBuffer toAppendTo, FieldPosition pos) {
         TimeRange tr = (TimeRange) obj;
 
-        toAppendTo.append(formatter.format(ZonedDateTime.ofInstant(tr.getMinDate().toInstant(), ZoneOffset.UTC)));
+        toAppendTo.append(formatter.format(ZonedDateTime.ofInstant(tr.getMinInstant(), ZoneOffset.UTC)));
         toAppendTo.append('/');
-        toAppendTo.append(formatter.format(ZonedDateTime.ofInstant(tr.getMaxDate().toInstant(), ZoneOffset.UTC)));
+        toAppendTo.append(formatter.format(ZonedDateTime.ofInstant(tr.getMaxInstant(), ZoneOffset.UTC)));
 
         return toAppendTo;
     }
@@ -151,7 +150,7 @@ public class TimeRangeFormat extends Format {
 
         pos.setIndex(source.length());
 
-        return new TimeRange(Date.from(d1), Date.from(d2));
+        return new TimeRange(d1, d2);
     }
 
 }
@@ -0,0 +1,481 @@
+package ch.syseca.sstl.util.date;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import ch.syseca.sstl.util.text.SimpleTextSupplier;
+
+
+/**
+ * Index &uuml;ber Werte mit einem {@link TimeRange}. Beantwortet die Fragen "welche Zeitbereiche enthalten die Zeit
+ * <code>t</code>" ({@link TimeRange#containsTime(long)}) und "welche Zeitbereiche &uuml;berschneiden sich mit dem
+ * Zeitbereich <code>w</code>" ({@link TimeRange#isOverlappedBy(TimeRange)}) in <code>O(min(n, k log n))</code>,
+ * wobei <code>k</code> die Anzahl der Treffer ist.
+ *
+ * <p>Der Index ist ein AVL-Baum, sortiert nach Anfangszeit, in dem jeder Knoten die gr&ouml;sste Endzeit seines
+ * Teilbaumes speichert (<i>augmented interval tree</i>). Teilb&auml;ume, deren Zeitbereiche alle vor der gesuchten
+ * Zeit enden oder nach ihr beginnen, werden nicht besucht. Derselbe Zeitbereich kann mehrmals (mit verschiedenen oder
+ * gleichen Werten) enthalten sein.</p>
+ *
+ * <p>Die Klasse ist nicht thread safe. Abfragen d&uuml;rfen parallel ausgef&uuml;hrt werden, solange der Index nicht
+ * ver&auml;ndert wird.</p>
+ *
+ * @param  <V>  Typ der Werte.
+ */
+public final class TimeRangeIndex<V> {
+
+    private static final Comparator<Node<?>> NODE_ORDER = (a, b) -> compare(a, b.minTime, b.maxTime, b.seq);
+
+    private Node<V> root;
+
+    private int size;
+
+    /** Einf&uuml;gereihenfolge, unterscheidet gleiche Zeitbereiche. */
+    private long nextSeq;
+
+
+    /**
+     * Erzeugt einen leeren Index.
+     */
+    public TimeRangeIndex() {
+    }
+
+
+    /**
+     * Erzeugt einen Index &uuml;ber <code>values</code>. Der Baum wird in <code>O(n log n)</code> direkt balanciert
+     * aufgebaut, ohne die Werte einzeln einzuf&uuml;gen.
+     *
+     * @param   values         Werte.
+     * @param   rangeFunction  Gibt den Zeitbereich eines Wertes zur&uuml;ck.
+     *
+     * @throws  IllegalArgumentException  <code>values</code> oder <code>rangeFunction</code> ist <code>null</code>.
+     */
+    public TimeRangeIndex(Collection<? extends V> values, Function<? super V, TimeRange> rangeFunction)
+            throws IllegalArgumentException {
+        final Node<V>[] nodes;
+        int i = 0;
+
+        if (values == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("values").get());
+        } else if (rangeFunction == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("rangeFunction").get());
+        }
+
+        nodes = newNodeArray(values.size());
+        for (V value : values) {
+            final TimeRange range = rangeFunction.apply(value);
+
+            nodes[i++] = new Node<>(range.getMinTime(), range.getMaxTime(), nextSeq++, value);
+        }
+        Arrays.sort(nodes, NODE_ORDER);
+
+        root = build(nodes, 0, nodes.length);
+        size = nodes.length;
+    }
+
+
+    /**
+     * F&uuml;gt einen Wert hinzu.
+     *
+     * @param   range  Zeitbereich.
+     * @param   value  Wert, kann <code>null</code> sein.
+     *
+     * @throws  IllegalArgumentException  <code>range</code> ist <code>null</code>.
+     */
+    public void add(TimeRange range, V value) throws IllegalArgumentException {
+        if (range == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("range").get());
+        }
+
+        root = insert(root, new Node<>(range.getMinTime(), range.getMaxTime(), nextSeq++, value));
+        size++;
+    }
+
+
+    /**
+     * Entfernt einen Wert. Ist der Wert mehrmals mit demselben Zeitbereich enthalten, wird nur einer entfernt.
+     *
+     * @param   range  Zeitbereich, mit dem der Wert hinzugef&uuml;gt wurde.
+     * @param   value  Wert (verglichen mit <code>equals</code>).
+     *
+     * @return  <code>true</code>, wenn der Wert entfernt wurde.
+     *
+     * @throws  IllegalArgumentException  <code>range</code> ist <code>null</code>.
+     */
+    public boolean remove(TimeRange range, Object value) throws IllegalArgumentException {
+        final Node<V> node;
+
+        if (range == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("range").get());
+        }
+
+        node = find(root, range.getMinTime(), range.getMaxTime(), value);
+        if (node == null) {
+            return false;
+        }
+
+        root = delete(root, node);
+        size--;
+
+        return true;
+    }
+
+
+    /**
+     * Gibt die Anzahl der Werte zur&uuml;ck.
+     *
+     * @return  Anzahl der Werte.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Testet, ob der Index leer ist.
+     *
+     * @return  <code>true</code>, wenn der Index keine Werte enth&auml;lt.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    /**
+     * Entfernt alle Werte.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+
+    /**
+     * Ruft <code>action</code> f&uuml;r alle Werte auf, deren Zeitbereich die Zeit <code>time</code> enth&auml;lt
+     * (siehe {@link TimeRange#containsTime(long)}). Die Werte werden nach Anfangszeit sortiert geliefert.
+     *
+     * @param   time    Zeit in Millisekunden.
+     * @param   action  Wird f&uuml;r jeden Treffer aufgerufen.
+     *
+     * @throws  IllegalArgumentException  <code>action</code> ist <code>null</code>.
+     */
+    public void forEachContaining(long time, Consumer<? super V> action) throws IllegalArgumentException {
+        if (action == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("action").get());
+        }
+
+        // Ein Zeitbereich [min, max) enthaelt t genau dann, wenn er sich mit [t, t + 1) ueberschneidet
+        if (time != Long.MAX_VALUE) {
+            visitOverlapping(root, time, time + 1, action);
+        }
+    }
+
+
+    /**
+     * Gibt alle Werte zur&uuml;ck, deren Zeitbereich die Zeit <code>time</code> enth&auml;lt.
+     *
+     * @param   time  Zeit in Millisekunden.
+     *
+     * @return  Werte, nach Anfangszeit sortiert.
+     *
+     * @see     #forEachContaining(long, Consumer)
+     */
+    public List<V> findContaining(long time) {
+        final List<V> result = new ArrayList<>();
+
+        forEachContaining(time, result::add);
+
+        return result;
+    }
+
+
+    /**
+     * Ruft <code>action</code> f&uuml;r alle Werte auf, deren Zeitbereich sich mit <code>window</code>
+     * &uuml;berschneidet (siehe {@link TimeRange#isOverlappedBy(TimeRange)}). Die Werte werden nach Anfangszeit sortiert
+     * geliefert.
+     *
+     * @param   window  Zeitbereich.
+     * @param   action  Wird f&uuml;r jeden Treffer aufgerufen.
+     *
+     * @throws  IllegalArgumentException  <code>window</code> oder <code>action</code> ist <code>null</code>.
+     */
+    public void forEachOverlapping(TimeRange window, Consumer<? super V> action) throws IllegalArgumentException {
+        if (window == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("window").get());
+        } else if (action == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("action").get());
+        }
+
+        visitOverlapping(root, window.getMinTime(), window.getMaxTime(), action);
+    }
+
+
+    /**
+     * Gibt alle Werte zur&uuml;ck, deren Zeitbereich sich mit <code>window</code> &uuml;berschneidet.
+     *
+     * @param   window  Zeitbereich.
+     *
+     * @return  Werte, nach Anfangszeit sortiert.
+     *
+     * @see     #forEachOverlapping(TimeRange, Consumer)
+     */
+    public List<V> findOverlapping(TimeRange window) {
+        final List<V> result = new ArrayList<>();
+
+        forEachOverlapping(window, result::add);
+
+        return result;
+    }
+
+
+    /**
+     * Besucht alle Knoten, deren Zeitbereich sich mit <code>[minTime, maxTime)</code> &uuml;berschneidet.
+     */
+    private static <V> void visitOverlapping(Node<V> node, long minTime, long maxTime, Consumer<? super V> action) {
+        while (node != null && node.maxEnd > minTime) {
+            visitOverlapping(node.left, minTime, maxTime, action);
+            if (node.minTime >= maxTime) {
+
+                // alle Zeitbereiche im rechten Teilbaum beginnen noch spaeter
+                return;
+            }
+            if (minTime < node.maxTime) {
+                action.accept(node.value);
+            }
+            node = node.right;
+        }
+    }
+
+
+    /**
+     * Sucht einen Knoten mit dem Zeitbereich <code>[minTime, maxTime)</code> und dem Wert <code>value</code>.
+     */
+    private static <V> Node<V> find(Node<V> node, long minTime, long maxTime, Object value) {
+        while (node != null) {
+            int c = Long.compare(node.minTime, minTime);
+
+            if (c == 0) {
+                c = Long.compare(node.maxTime, maxTime);
+            }
+
+            if (c < 0) {
+                node = node.right;
+            } else if (c > 0) {
+                node = node.left;
+            } else if (Objects.equals(node.value, value)) {
+                return node;
+            } else {
+
+                // gleicher Zeitbereich: der Wert kann in beiden Teilbaeumen liegen
+                final Node<V> left = find(node.left, minTime, maxTime, value);
+
+                if (left != null) {
+                    return left;
+                }
+                node = node.right;
+            }
+        }
+
+        return null;
+    }
+
+
+    private static <V> Node<V> insert(Node<V> node, Node<V> newNode) {
+        if (node == null) {
+            return newNode;
+        } else if (NODE_ORDER.compare(node, newNode) < 0) {
+            node.right = insert(node.right, newNode);
+        } else {
+            node.left = insert(node.left, newNode);
+        }
+
+        return balance(node);
+    }
+
+
+    private static <V> Node<V> delete(Node<V> node, Node<V> target) {
+        final int c = NODE_ORDER.compare(node, target);
+
+        if (c < 0) {
+            node.right = delete(node.right, target);
+        } else if (c > 0) {
+            node.left = delete(node.left, target);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else {
+
+            // durch den kleinsten Knoten des rechten Teilbaumes ersetzen
+            Node<V> successor = node.right;
+
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+
+        return balance(node);
+    }
+
+
+    private static <V> Node<V> deleteMin(Node<V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+
+        node.left = deleteMin(node.left);
+
+        return balance(node);
+    }
+
+
+    private static <V> Node<V> build(Node<V>[] nodes, int from, int to) {
+        final int mid;
+        final Node<V> node;
+
+        if (from >= to) {
+            return null;
+        }
+
+        mid = (from + to) >>> 1;
+        node = nodes[mid];
+        node.left = build(nodes, from, mid);
+        node.right = build(nodes, mid + 1, to);
+        node.update();
+
+        return node;
+    }
+
+
+    private static <V> Node<V> balance(Node<V> node) {
+        final int diff = height(node.left) - height(node.right);
+
+        if (diff > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            node = rotateRight(node);
+        } else if (diff < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            node = rotateLeft(node);
+        } else {
+            node.update();
+        }
+
+        return node;
+    }
+
+
+    private static <V> Node<V> rotateLeft(Node<V> node) {
+        final Node<V> r = node.right;
+
+        node.right = r.left;
+        node.update();
+        r.left = node;
+        r.update();
+
+        return r;
+    }
+
+
+    private static <V> Node<V> rotateRight(Node<V> node) {
+        final Node<V> l = node.left;
+
+        node.left = l.right;
+        node.update();
+        l.right = node;
+        l.update();
+
+        return l;
+    }
+
+
+    private static int height(Node<?> node) {
+        return node != null ? node.height : 0;
+    }
+
+
+    /**
+     * Vergleicht den Knoten mit dem Schl&uuml;ssel <code>(minTime, maxTime, seq)</code>.
+     */
+    private static int compare(Node<?> node, long minTime, long maxTime, long seq) {
+        int c = Long.compare(node.minTime, minTime);
+
+        if (c == 0) {
+            c = Long.compare(node.maxTime, maxTime);
+            if (c == 0) {
+                c = Long.compare(node.seq, seq);
+            }
+        }
+
+        return c;
+    }
+
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static <V> Node<V>[] newNodeArray(int length) {
+        return new Node[length];
+    }
+
+
+    /**
+     * Knoten des Baumes.
+     */
+    private static final class Node<V> {
+
+        private final long minTime;
+
+        private final long maxTime;
+
+        private final long seq;
+
+        private final V value;
+
+        private Node<V> left;
+
+        private Node<V> right;
+
+        private int height;
+
+        /** Gr&ouml;sste Endzeit im Teilbaum. */
+        private long maxEnd;
+
+
+        Node(long minTime, long maxTime, long seq, V value) {
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.seq = seq;
+            this.value = value;
+            this.height = 1;
+            this.maxEnd = maxTime;
+        }
+
+
+        /**
+         * Berechnet H&ouml;he und gr&ouml;sste Endzeit aus den Teilb&auml;umen neu.
+         */
+        void update() {
+            height = Math.max(height(left), height(right)) + 1;
+            maxEnd = maxTime;
+            if (left != null && left.maxEnd > maxEnd) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > maxEnd) {
+                maxEnd = right.maxEnd;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,425 @@
+package ch.syseca.sstl.util.date;
+
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import ch.syseca.sstl.util.text.SimpleTextSupplier;
+
+
+/**
+ * Unver&auml;nderliche Menge von Zeitbereichen, z.B. ein Verf&uuml;gbarkeitskalender. Die Zeitbereiche werden
+ * normalisiert gespeichert: sortiert, ohne leere Zeitbereiche und ohne Zeitbereiche, die sich &uuml;berschneiden
+ * oder ber&uuml;hren (sie werden zusammengefasst). Jede Menge hat dadurch genau eine Darstellung.
+ *
+ * <p>Anfangs- und Endzeiten liegen in zwei <code>long</code> Arrays. {@link #union(TimeRangeSet)},
+ * {@link #intersect(TimeRangeSet)}, {@link #subtract(TimeRangeSet)} und {@link #complement(TimeRange)} laufen in
+ * einem Durchgang &uuml;ber beide Mengen (<code>O(n + m)</code>), {@link #contains(long)} sucht bin&auml;r
+ * (<code>O(log n)</code>). Es werden keine {@link TimeRange} Objekte erzeugt und keine Exceptions f&uuml;r leere
+ * Resultate verwendet.</p>
+ *
+ * <p>Wie bei {@link TimeRange} ist die Anfangszeit inklusive und die Endzeit exklusive.</p>
+ */
+public final class TimeRangeSet {
+
+    /** Leere Menge. */
+    public static final TimeRangeSet EMPTY = new TimeRangeSet(new long[0], new long[0]);
+
+    /** Wahrheitstabelle f&uuml;r {@link #combine(TimeRangeSet, TimeRangeSet, int)}: Bit <code>2 * inA + inB</code>. */
+    private static final int UNION = 0b1110;
+
+    private static final int INTERSECTION = 0b1000;
+
+    private static final int DIFFERENCE = 0b0100;
+
+    /** Anfangszeiten (inklusive), aufsteigend. */
+    private final long[] begins;
+
+    /** Endzeiten (exklusive), aufsteigend; <code>begins[i] &lt; ends[i] &lt; begins[i + 1]</code>. */
+    private final long[] ends;
+
+
+    private TimeRangeSet(long[] begins, long[] ends) {
+        this.begins = begins;
+        this.ends = ends;
+    }
+
+
+    /**
+     * Erzeugt eine Menge aus den Zeitbereichen. Die Zeitbereiche d&uuml;rfen sich &uuml;berschneiden und in beliebiger
+     * Reihenfolge sein; leere Zeitbereiche werden ignoriert.
+     *
+     * @param   ranges  Zeitbereiche.
+     *
+     * @return  Normalisierte Menge.
+     *
+     * @throws  IllegalArgumentException  <code>ranges</code> oder ein Zeitbereich ist <code>null</code>.
+     */
+    public static TimeRangeSet of(TimeRange... ranges) throws IllegalArgumentException {
+        if (ranges == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("ranges").get());
+        }
+
+        return of(Arrays.asList(ranges));
+    }
+
+
+    /**
+     * Erzeugt eine Menge aus den Zeitbereichen. Die Zeitbereiche d&uuml;rfen sich &uuml;berschneiden und in beliebiger
+     * Reihenfolge sein; leere Zeitbereiche werden ignoriert.
+     *
+     * @param   ranges  Zeitbereiche.
+     *
+     * @return  Normalisierte Menge.
+     *
+     * @throws  IllegalArgumentException  <code>ranges</code> oder ein Zeitbereich ist <code>null</code>.
+     */
+    public static TimeRangeSet of(Collection<TimeRange> ranges) throws IllegalArgumentException {
+        final TimeRange[] sorted;
+        final long[] begins;
+        final long[] ends;
+        int n = 0;
+
+        if (ranges == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("ranges").get());
+        }
+
+        sorted = ranges.toArray(new TimeRange[ranges.size()]);
+        for (TimeRange range : sorted) {
+            if (range == null) {
+                throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("range").get());
+            }
+        }
+        Arrays.sort(sorted, Comparator.comparingLong(TimeRange::getMinTime));
+
+        begins = new long[sorted.length];
+        ends = new long[sorted.length];
+        for (TimeRange range : sorted) {
+            if (range.getMinTime() >= range.getMaxTime()) {
+
+                // leerer Zeitbereich
+                continue;
+            } else if (n > 0 && range.getMinTime() <= ends[n - 1]) {
+
+                // ueberschneidet oder beruehrt den vorherigen Zeitbereich
+                ends[n - 1] = Math.max(ends[n - 1], range.getMaxTime());
+            } else {
+                begins[n] = range.getMinTime();
+                ends[n] = range.getMaxTime();
+                n++;
+            }
+        }
+
+        return n == 0 ? EMPTY : new TimeRangeSet(Arrays.copyOf(begins, n), Arrays.copyOf(ends, n));
+    }
+
+
+    /**
+     * Gibt die Vereinigung der beiden Mengen zur&uuml;ck.
+     *
+     * @param   other  Andere Menge.
+     *
+     * @return  Zeiten, die in dieser oder in der anderen Menge liegen.
+     *
+     * @throws  IllegalArgumentException  <code>other</code> ist <code>null</code>.
+     */
+    public TimeRangeSet union(TimeRangeSet other) throws IllegalArgumentException {
+        return combine(this, other, UNION);
+    }
+
+
+    /**
+     * Gibt den Durchschnitt der beiden Mengen zur&uuml;ck.
+     *
+     * @param   other  Andere Menge.
+     *
+     * @return  Zeiten, die in dieser und in der anderen Menge liegen.
+     *
+     * @throws  IllegalArgumentException  <code>other</code> ist <code>null</code>.
+     */
+    public TimeRangeSet intersect(TimeRangeSet other) throws IllegalArgumentException {
+        return combine(this, other, INTERSECTION);
+    }
+
+
+    /**
+     * Gibt die Differenz der beiden Mengen zur&uuml;ck.
+     *
+     * @param   other  Andere Menge.
+     *
+     * @return  Zeiten, die in dieser, aber nicht in der anderen Menge liegen.
+     *
+     * @throws  IllegalArgumentException  <code>other</code> ist <code>null</code>.
+     */
+    public TimeRangeSet subtract(TimeRangeSet other) throws IllegalArgumentException {
+        return combine(this, other, DIFFERENCE);
+    }
+
+
+    /**
+     * Gibt das Komplement dieser Menge innerhalb von <code>bounds</code> zur&uuml;ck, z.B. die L&uuml;cken eines
+     * Kalenders innerhalb eines Tages.
+     *
+     * @param   bounds  Zeitbereich, in dem das Komplement gebildet wird.
+     *
+     * @return  Zeiten in <code>bounds</code>, die nicht in dieser Menge liegen.
+     *
+     * @throws  IllegalArgumentException  <code>bounds</code> ist <code>null</code>.
+     */
+    public TimeRangeSet complement(TimeRange bounds) throws IllegalArgumentException {
+        if (bounds == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("bounds").get());
+        }
+
+        return combine(of(bounds), this, DIFFERENCE);
+    }
+
+
+    /**
+     * Testet, ob die Zeit <code>time</code> in der Menge liegt.
+     *
+     * @param   time  Zeit in Millisekunden.
+     *
+     * @return  <code>true</code>, wenn ein Zeitbereich der Menge <code>time</code> enth&auml;lt.
+     */
+    public boolean contains(long time) {
+        final int i = lastBeginAtOrBefore(time);
+
+        return i >= 0 && time < ends[i];
+    }
+
+
+    /**
+     * Testet, ob der Zeitbereich <code>tr</code> vollst&auml;ndig in der Menge liegt.
+     *
+     * @param   tr  Zeitbereich.
+     *
+     * @return  <code>true</code>, wenn ein Zeitbereich der Menge <code>tr</code> enth&auml;lt (siehe
+     *          {@link TimeRange#containsRange(TimeRange)}).
+     */
+    public boolean containsRange(TimeRange tr) {
+        final int i = lastBeginAtOrBefore(tr.getMinTime());
+
+        return i >= 0 && tr.getMaxTime() <= ends[i];
+    }
+
+
+    /**
+     * Testet, ob sich der Zeitbereich <code>tr</code> mit der Menge &uuml;berschneidet.
+     *
+     * @param   tr  Zeitbereich.
+     *
+     * @return  <code>true</code>, wenn sich ein Zeitbereich der Menge mit <code>tr</code> &uuml;berschneidet (siehe
+     *          {@link TimeRange#isOverlappedBy(TimeRange)}).
+     */
+    public boolean isOverlappedBy(TimeRange tr) {
+        if (tr.getMaxTime() == Long.MIN_VALUE) {
+            return false;
+        }
+
+        // Die Endzeiten sind aufsteigend: der letzte Zeitbereich, der vor tr.maxTime beginnt, endet am spaetesten
+        final int i = lastBeginAtOrBefore(tr.getMaxTime() - 1);
+
+        return i >= 0 && tr.getMinTime() < ends[i];
+    }
+
+
+    /**
+     * Gibt die Anzahl der (zusammengefassten) Zeitbereiche zur&uuml;ck.
+     *
+     * @return  Anzahl Zeitbereiche.
+     */
+    public int size() {
+        return begins.length;
+    }
+
+
+    /**
+     * Testet, ob die Menge leer ist.
+     *
+     * @return  <code>true</code>, wenn die Menge keine Zeitbereiche enth&auml;lt.
+     */
+    public boolean isEmpty() {
+        return begins.length == 0;
+    }
+
+
+    /**
+     * Gibt die Anfangszeit des Zeitbereiches <code>index</code> zur&uuml;ck.
+     *
+     * @param   index  Index, 0 bis {@link #size()} - 1.
+     *
+     * @return  Anfangszeit (inklusive).
+     */
+    public long getMinTime(int index) {
+        return begins[index];
+    }
+
+
+    /**
+     * Gibt die Endzeit des Zeitbereiches <code>index</code> zur&uuml;ck.
+     *
+     * @param   index  Index, 0 bis {@link #size()} - 1.
+     *
+     * @return  Endzeit (exklusive).
+     */
+    public long getMaxTime(int index) {
+        return ends[index];
+    }
+
+
+    /**
+     * Gibt die Zeitbereiche als Liste zur&uuml;ck. Die {@link TimeRange} Objekte werden beim Zugriff erzeugt.
+     *
+     * @return  Unver&auml;nderliche Liste der Zeitbereiche, sortiert.
+     */
+    public List<TimeRange> getRanges() {
+        return new AbstractList<TimeRange>() {
+            @Override
+            public TimeRange get(int index) {
+                return new TimeRange(begins[index], ends[index]);
+            }
+
+
+            @Override
+            public int size() {
+                return begins.length;
+            }
+        };
+    }
+
+
+    /**
+     * Gibt die Summe der L&auml;ngen aller Zeitbereiche zur&uuml;ck.
+     *
+     * @return  Anzahl Millisekunden, die die Menge umfasst.
+     */
+    public long millis() {
+        long result = 0;
+
+        for (int i = 0; i < begins.length; i++) {
+            result += ends[i] - begins[i];
+        }
+
+        return result;
+    }
+
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(begins) * 31 + Arrays.hashCode(ends);
+    }
+
+
+    @Override
+    public boolean equals(Object obj) {
+        final boolean result;
+
+        if (this == obj) {
+            result = true;
+        } else if (obj == null || obj.getClass() != TimeRangeSet.class) {
+            result = false;
+        } else {
+            final TimeRangeSet o = (TimeRangeSet) obj;
+
+            result = Arrays.equals(begins, o.begins) && Arrays.equals(ends, o.ends);
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Gibt die Zeitbereiche im Format von {@link TimeRange#toString()} zur&uuml;ck.
+     *
+     * @return  Z.B. <code>[2015-01-10T08:00:00Z/2015-01-10T12:00:00Z, 2015-01-10T13:00:00Z/2015-01-10T17:00:00Z]</code>.
+     */
+    @Override
+    public String toString() {
+        return getRanges().toString();
+    }
+
+
+    /**
+     * Gibt den Index des letzten Zeitbereiches zur&uuml;ck, der bei oder vor <code>time</code> beginnt.
+     *
+     * @param   time  Zeit.
+     *
+     * @return  Index, -1 wenn alle Zeitbereiche nach <code>time</code> beginnen.
+     */
+    private int lastBeginAtOrBefore(long time) {
+        final int i = Arrays.binarySearch(begins, time);
+
+        return i >= 0 ? i : -i - 2;
+    }
+
+
+    /**
+     * Kombiniert zwei Mengen in einem Durchgang &uuml;ber die sortierten Grenzen beider Mengen. An jeder Grenze wird
+     * mit der Wahrheitstabelle <code>op</code> bestimmt, ob die Zeit ab dort im Resultat liegt.
+     *
+     * @param   a   Erste Menge.
+     * @param   b   Zweite Menge.
+     * @param   op  Wahrheitstabelle, Bit <code>2 * inA + inB</code>.
+     *
+     * @return  Normalisierte Menge.
+     *
+     * @throws  IllegalArgumentException  <code>b</code> ist <code>null</code>.
+     */
+    private static TimeRangeSet combine(TimeRangeSet a, TimeRangeSet b, int op) throws IllegalArgumentException {
+        final int na = a.begins.length * 2;
+        final int nb;
+        final long[] begins;
+        final long[] ends;
+        int ia = 0;
+        int ib = 0;
+        int n = 0;
+        boolean in = false;
+
+        if (b == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("other").get());
+        }
+
+        nb = b.begins.length * 2;
+        begins = new long[(na + nb) / 2];
+        ends = new long[(na + nb) / 2];
+        while (ia < na || ib < nb) {
+            final long t = Math.min(
+                    ia < na ? a.boundary(ia) : Long.MAX_VALUE,
+                    ib < nb ? b.boundary(ib) : Long.MAX_VALUE);
+            final boolean result;
+
+            // Grenzen sind innerhalb einer Menge streng aufsteigend, pro Menge wird hoechstens eine ueberschritten
+            if (ia < na && a.boundary(ia) == t) {
+                ia++;
+            }
+            if (ib < nb && b.boundary(ib) == t) {
+                ib++;
+            }
+
+            // ungerader Index: innerhalb eines Zeitbereiches
+            result = (op >>> (((ia & 1) << 1) | (ib & 1)) & 1) != 0;
+            if (result != in) {
+                if (result) {
+                    begins[n] = t;
+                } else {
+                    ends[n++] = t;
+                }
+                in = result;
+            }
+        }
+
+        return n == 0 ? EMPTY : new TimeRangeSet(Arrays.copyOf(begins, n), Arrays.copyOf(ends, n));
+    }
+
+
+    /**
+     * Gibt die Grenze <code>i</code> zur&uuml;ck: Anfangszeit f&uuml;r gerade, Endzeit f&uuml;r ungerade Indizes.
+     */
+    private long boundary(int i) {
+        return (i & 1) == 0 ? begins[i >> 1] : ends[i >> 1];
+    }
+
+}
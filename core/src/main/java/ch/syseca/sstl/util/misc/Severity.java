@@ -1,6 +1,7 @@
 package ch.syseca.sstl.util.misc;
 
 
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 
 
@@ -18,67 +19,117 @@ import org.slf4j.Logger;
 public enum Severity {
 
     TRACE {
+        @Override
+        public boolean isEnabled(Logger logger) {
+            return logger.isTraceEnabled();
+        }
+
+
         @Override
         public void log(Logger logger, Object msg, Throwable e) {
-            logger.trace(msg.toString(), e);
+            if (logger.isTraceEnabled()) {
+                logger.trace(msg.toString(), e);
+            }
         }
 
 
         @Override
         public void log(Logger logger, Object msg) {
-            logger.trace(msg.toString());
+            if (logger.isTraceEnabled()) {
+                logger.trace(msg.toString());
+            }
         }
     },
 
     INFO {
+        @Override
+        public boolean isEnabled(Logger logger) {
+            return logger.isInfoEnabled();
+        }
+
+
         @Override
         public void log(Logger logger, Object msg, Throwable e) {
-            logger.info(msg.toString(), e);
+            if (logger.isInfoEnabled()) {
+                logger.info(msg.toString(), e);
+            }
         }
 
 
         @Override
         public void log(Logger logger, Object msg) {
-            logger.info(msg.toString());
+            if (logger.isInfoEnabled()) {
+                logger.info(msg.toString());
+            }
         }
     },
 
     WARN {
+        @Override
+        public boolean isEnabled(Logger logger) {
+            return logger.isWarnEnabled();
+        }
+
+
         @Override
         public void log(Logger logger, Object msg, Throwable e) {
-            logger.warn(msg.toString(), e);
+            if (logger.isWarnEnabled()) {
+                logger.warn(msg.toString(), e);
+            }
         }
 
 
         @Override
         public void log(Logger logger, Object msg) {
-            logger.warn(msg.toString());
+            if (logger.isWarnEnabled()) {
+                logger.warn(msg.toString());
+            }
         }
     },
 
     ERROR {
+        @Override
+        public boolean isEnabled(Logger logger) {
+            return logger.isErrorEnabled();
+        }
+
+
         @Override
         public void log(Logger logger, Object msg, Throwable e) {
-            logger.error(msg.toString(), e);
+            if (logger.isErrorEnabled()) {
+                logger.error(msg.toString(), e);
+            }
         }
 
 
         @Override
         public void log(Logger logger, Object msg) {
-            logger.error(msg.toString());
+            if (logger.isErrorEnabled()) {
+                logger.error(msg.toString());
+            }
         }
     },
 
     FATAL {
+        @Override
+        public boolean isEnabled(Logger logger) {
+            return logger.isErrorEnabled();
+        }
+
+
         @Override
         public void log(Logger logger, Object msg, Throwable e) {
-            logger.error(msg.toString(), e);
+            if (logger.isErrorEnabled()) {
+                logger.error(msg.toString(), e);
+            }
         }
 
 
         @Override
         public void log(Logger logger, Object msg) {
-            logger.error(msg.toString());
+            if (logger.isErrorEnabled()) {
+                logger.error(msg.toString());
+            }
         }
     };
 
@@ -120,7 +171,19 @@ public enum Severity {
 
 
     /**
-     * Logged die Meldung auf dem entsprechenden Log-Level.
+     * Gibt <code>true</code> zur&uuml;ck, wenn der Logger Meldungen auf dem entsprechenden Log-Level schreibt.
+     *
+     * @param   logger  Logger.
+     *
+     * @return  <code>true</code>, wenn der Log-Level eingeschaltet ist.
+     */
+    public abstract boolean isEnabled(Logger logger);
+
+
+    /**
+     * Logged die Meldung auf dem entsprechenden Log-Level. {@code msg.toString()} wird nur aufgerufen, wenn der
+     * Log-Level eingeschaltet ist. Als Meldung eignet sich deshalb z.B. ein
+     * {@link ch.syseca.sstl.util.text.MessageTemplate.Binding}, der erst dann formatiert wird.
      *
      * @param  logger  Logger.
      * @param  msg     Siehe {@link Logger#info(String)}
@@ -128,6 +191,35 @@ public enum Severity {
     public abstract void log(Logger logger, Object msg);
 
 
+    /**
+     * Logged die Meldung auf dem entsprechenden Log-Level. Der Supplier wird nur aufgerufen, wenn der Log-Level
+     * eingeschaltet ist.
+     *
+     * @param  logger  Logger.
+     * @param  msg     Liefert die Meldung, siehe {@link Logger#info(String)}
+     */
+    public void log(Logger logger, Supplier<?> msg) {
+        if (isEnabled(logger)) {
+            log(logger, msg.get());
+        }
+    }
+
+
+    /**
+     * Logged die Meldung auf dem entsprechenden Log-Level. Der Supplier wird nur aufgerufen, wenn der Log-Level
+     * eingeschaltet ist.
+     *
+     * @param  logger  Logger.
+     * @param  msg     Liefert die Meldung, siehe {@link Logger#info(String)}
+     * @param  e       Siehe {@link Logger#info(String, Throwable)}
+     */
+    public void log(Logger logger, Supplier<?> msg, Throwable e) {
+        if (isEnabled(logger)) {
+            log(logger, msg.get(), e);
+        }
+    }
+
+
     /**
      * Logged die Meldung auf dem entsprechenden Log-Level.
      *
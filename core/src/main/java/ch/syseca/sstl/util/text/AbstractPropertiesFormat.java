@@ -1,12 +1,12 @@
 package ch.syseca.sstl.util.text;
 
 
+import java.io.IOException;
 import java.text.FieldPosition;
 import java.text.Format;
 import java.text.ParseException;
 import java.text.ParsePosition;
 import java.util.Map;
-import java.util.Map.Entry;
 import org.apache.commons.lang3.StringUtils;
 
 
@@ -31,29 +31,51 @@ import org.apache.commons.lang3.StringUtils;
  */
 abstract class AbstractPropertiesFormat<T extends Map> extends Format {
 
-    private static final char KEY_VALUE_SEPARATOR = '=';
-
-    private static final char PROPERTY_SEPARATOR = ';';
-
-    private static final String SPEZIAL_CHARS = new String(new char[] { KEY_VALUE_SEPARATOR, PROPERTY_SEPARATOR });
+    static final char KEY_VALUE_SEPARATOR = '=';
 
+    static final char PROPERTY_SEPARATOR = ';';
 
     public String formatProperties(T properties) {
         return format(properties);
     }
 
 
+    /**
+     * Schreibt die Properties Liste nach <code>out</code>. Das Resultat ist dasselbe wie bei {@link #format(Object)}, aber
+     * ohne den synchronisierten {@link StringBuffer} und ohne Kopie der Properties: Die Properties werden in der Reihenfolge von
+     * {@link #exportEntries(Map)} geschrieben, Zeichenfolgen ohne Spezialzeichen am St&uuml;ck. Ist <code>out</code> ein
+     * {@link StringBuilder}, wird seine Kapazit&auml;t vorg&auml;ngig auf die L&auml;nge des Resultats vergr&ouml;ssert.
+     * 
+     * @param <A> Typ des Ziels.
+     * @param out Ziel, z.B. {@link StringBuilder} oder {@link java.io.Writer}.
+     * @param properties Properties Liste, eine beliebige Map mit String Namen und Werten (z.B. {@link CompactProperties}).
+     * 
+     * @return <code>out</code>.
+     * 
+     * @throws IOException Fehler beim Schreiben.
+     * @throws IllegalArgumentException <code>out</code> oder <code>properties</code> ist <code>null</code>.
+     */
+    public <A extends Appendable> A formatTo(A out, Map<?, ?> properties) throws IOException, IllegalArgumentException {
+        if (out == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("out").get());
+        } else if (properties == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("properties").get());
+        }
+
+        append(out, properties);
+
+        return out;
+    }
+
+
     @Override
     public StringBuffer format(Object obj, StringBuffer toAppendTo, FieldPosition pos) {
-        final Map<String, String> properties = convertToExportPropertySet((T) obj);
+        try {
+            append(toAppendTo, (Map<?, ?>) obj);
+        } catch (IOException e) {
 
-        for (Entry<String, String> e : properties.entrySet()) {
-            encode(toAppendTo, e.getKey());
-            toAppendTo.append(KEY_VALUE_SEPARATOR);
-            if (e.getValue() != null) {
-                encode(toAppendTo, e.getValue());
-            }
-            toAppendTo.append(PROPERTY_SEPARATOR);
+            // StringBuffer wirft keine IOException
+            throw new IllegalStateException(e);
         }
 
         return toAppendTo;
@@ -83,21 +105,43 @@ abstract class AbstractPropertiesFormat<T extends Map> extends Format {
     }
 
 
+    /**
+     * Liest die Properties Liste aus <code>source</code>, ohne den ganzen Text im Speicher zu halten (siehe
+     * {@link PropertiesFormatReader}). Ist <code>source</code> leer oder enth&auml;lt nur Leerzeichen, wird eine leere
+     * Properties Liste zur&uuml;ckgegeben.
+     * 
+     * @param source Quelle, z.B. ein {@link java.io.Reader}.
+     * 
+     * @return Properties Liste.
+     * 
+     * @throws IOException Fehler beim Lesen der Quelle.
+     * @throws ParseException Formatfehler.
+     */
+    public T readProperties(Readable source) throws IOException, ParseException {
+        final T result = createNewPropertySet();
+        @SuppressWarnings("unchecked")
+        final Map<String, String> properties = result;
+
+        new PropertiesFormatReader(source).readInto(properties);
+
+        return result;
+    }
+
+
     @Override
     public Object parseObject(String source, ParsePosition pos) {
         final int savedIndex = pos.getIndex();
+        final Token key = new Token();
+        final Token value = new Token();
         T result = createNewPropertySet();
 
         while (pos.getIndex() < source.length()) {
-            final String key;
-            String v = "";
-
-            key = decode(source, pos, KEY_VALUE_SEPARATOR);
+            decode(source, pos, KEY_VALUE_SEPARATOR, key);
             if (pos.getErrorIndex() != -1) {
 
                 // Formatfehler
                 break;
-            } else if (StringUtils.isBlank(key)) {
+            } else if (key.isBlank(source)) {
                 if (pos.getIndex() == source.length()) {
 
                     // keine weiteren Daten
@@ -111,13 +155,15 @@ abstract class AbstractPropertiesFormat<T extends Map> extends Format {
             }
 
             if (pos.getIndex() < source.length()) {
-                v = decode(source, pos, PROPERTY_SEPARATOR);
+                decode(source, pos, PROPERTY_SEPARATOR, value);
                 if (pos.getErrorIndex() != -1) {
                     break;
                 }
+            } else {
+                value.set(pos.getIndex(), pos.getIndex(), null);
             }
 
-            result.put(key.trim(), v.trim());
+            result.put(PropertyKeyPool.getShared().intern(key.trim(source)), value.trim(source));
         }
 
         if (pos.getErrorIndex() != -1) {
@@ -136,86 +182,224 @@ abstract class AbstractPropertiesFormat<T extends Map> extends Format {
 
 
     /**
-     * Kodiert den Wert in <code>v</code>, indem alle Spezialzeichen verdoppelt werden (<i>char insertion</i>) und f&uuml;gt den neuen Wert
-     * dem Buffer <code>toAppendTo</code> an.
+     * Gibt die Properties in der Reihenfolge zur&uuml;ck, in der sie geschrieben werden. Die Default-Implementation
+     * verwendet die Properties von {@link #convertToExportPropertySet(Map)}. Ist <code>source</code> nicht vom Typ
+     * <code>T</code>, werden die Properties dazu in eine neue Properties Liste kopiert.
+     * 
+     * @param source Properties Liste.
+     * 
+     * @return Properties (die Eintr&auml;ge der Map, nicht Kopien davon).
+     */
+    protected Map.Entry<?, ?>[] exportEntries(Map<?, ?> source) {
+        return convertToExportPropertySet(toPropertySet(source)).entrySet().toArray(new Map.Entry<?, ?>[0]);
+    }
+
+
+    /**
+     * Gibt <code>source</code> als Properties Liste vom Typ <code>T</code> zur&uuml;ck.
+     * 
+     * @param source Properties Liste.
+     * 
+     * @return <code>source</code> oder eine Kopie davon, wenn <code>source</code> nicht vom Typ <code>T</code> ist.
+     */
+    @SuppressWarnings("unchecked")
+    private T toPropertySet(Map<?, ?> source) {
+        final T result = createNewPropertySet();
+
+        if (result.getClass().isInstance(source)) {
+            return (T) source;
+        }
+
+        result.putAll(source);
+
+        return result;
+    }
+
+
+    /**
+     * Schreibt die Properties in der Reihenfolge von {@link #exportEntries(Map)}.
+     * 
+     * @param out Ziel.
+     * @param properties Properties Liste.
      * 
-     * @param toAppendTo Buffer, dem der kodierte Wert angef&uuml;gt wird.
-     * @param v Wert, der kodiert und dem Buffer <code>toAppenTo</code> angef&uuml;gt wird.
+     * @throws IOException Fehler beim Schreiben.
      */
-    private void encode(StringBuffer toAppendTo, String v) {
-        for (int i = 0; i < v.length(); i++) {
-            final char c = v.charAt(i);
+    private void append(Appendable out, Map<?, ?> properties) throws IOException {
+        final Map.Entry<?, ?>[] entries = exportEntries(properties);
+
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).ensureCapacity(((StringBuilder) out).length() + formattedLength(entries));
+        } else if (out instanceof StringBuffer) {
+            ((StringBuffer) out).ensureCapacity(((StringBuffer) out).length() + formattedLength(entries));
+        }
 
-            toAppendTo.append(c);
-            if (SPEZIAL_CHARS.indexOf(c) != -1) {
-                toAppendTo.append(c);
+        for (Map.Entry<?, ?> e : entries) {
+            PropertiesFormatWriter.encode(out, (String) e.getKey());
+            out.append(KEY_VALUE_SEPARATOR);
+            if (e.getValue() != null) {
+                PropertiesFormatWriter.encode(out, (String) e.getValue());
             }
+            out.append(PROPERTY_SEPARATOR);
         }
     }
 
 
     /**
-     * Extrahiert den n&auml;chsten Wert aus dem String und gibt ihn dekodiert zur&uuml;ck. Es werden alle Zeichen bis zum ersten Vorkommen
-     * von <code>separator</code> gelesen. Verdoppelte Zeichen (<i>char insertion</i>) werden korrekt behandelt. Ist das erste gefundene
-     * Spezialzeichen ungleich <code>separator</code>, wird <code>
-     * pos.errorIndex</code> gesetzt und <code>null</code> zur&uuml;ckgegeben. ausgel&ouml;st.
+     * Berechnet die L&auml;nge der kodierten Properties.
+     * 
+     * @param entries Properties.
+     * 
+     * @return L&auml;nge inklusive Separatoren und verdoppelter Zeichen.
+     */
+    private static int formattedLength(Map.Entry<?, ?>[] entries) {
+        int length = 0;
+
+        for (Map.Entry<?, ?> e : entries) {
+            length += encodedLength((String) e.getKey()) + encodedLength((String) e.getValue()) + 2;
+        }
+
+        return length;
+    }
+
+
+    private static int encodedLength(String v) {
+        int length = 0;
+
+        if (v != null) {
+            length = v.length();
+            for (int i = 0; i < v.length(); i++) {
+                final char c = v.charAt(i);
+
+                if (c == KEY_VALUE_SEPARATOR || c == PROPERTY_SEPARATOR) {
+                    length++;
+                }
+            }
+        }
+
+        return length;
+    }
+
+
+    /**
+     * Extrahiert den n&auml;chsten Wert aus dem String. Es werden alle Zeichen bis zum ersten Vorkommen von
+     * <code>separator</code> gelesen. Verdoppelte Zeichen (<i>char insertion</i>) werden korrekt behandelt. Ist das erste
+     * gefundene Spezialzeichen ungleich <code>separator</code>, wird <code>pos.errorIndex</code> gesetzt.
+     * 
+     * <p>
+     * Enth&auml;lt der Wert keine verdoppelten Zeichen, wird nur seine Position in <code>source</code> gespeichert; der Wert
+     * wird erst durch {@link Token#trim(String)} (ohne die umgebenden Leerzeichen) kopiert.
+     * </p>
      * 
      * @param source Quelle.
      * @param pos Parse Position
      * @param separator Erwartetes Spezialzeichen.
-     * 
-     * @return Dekodierter Text oder <code>null</code>, wenn ein Fehler aufgetreten ist.
+     * @param token Erh&auml;lt den gelesenen Wert.
      */
-    private String decode(String source, ParsePosition pos, char separator) {
-        final StringBuilder b = new StringBuilder();
-        final int savedIndex = pos.getIndex();
+    private void decode(String source, ParsePosition pos, char separator, Token token) {
+        final int start = pos.getIndex();
+        StringBuilder b = null;
+        int runStart = start;
+        int idx = start;
 
-        while (pos.getIndex() < source.length()) {
-            char c = source.charAt(pos.getIndex());
+        while (idx < source.length()) {
+            final char c = source.charAt(idx);
 
-            if (SPEZIAL_CHARS.indexOf(c) == -1) {
+            if (c != KEY_VALUE_SEPARATOR && c != PROPERTY_SEPARATOR) {
 
                 // normales Zeichen
-                b.append(c);
-                pos.setIndex(pos.getIndex() + 1);
-            } else if (isDoubleChar(source, pos)) {
+                idx++;
+            } else if (idx + 1 < source.length() && source.charAt(idx + 1) == c) {
 
                 // char insertion
-                b.append(c);
-                pos.setIndex(pos.getIndex() + 2);
+                if (b == null) {
+                    b = new StringBuilder(source.length() - start);
+                }
+                b.append(source, runStart, idx + 1);
+                idx += 2;
+                runStart = idx;
             } else if (c == separator) {
 
                 // Separator gefunden
-                pos.setIndex(pos.getIndex() + 1);
-                break;
+                pos.setIndex(idx + 1);
+                token.set(start, idx, b != null ? b.append(source, runStart, idx).toString() : null);
+                return;
             } else {
-                pos.setErrorIndex(pos.getIndex());
-                pos.setIndex(savedIndex);
-                break;
+                pos.setErrorIndex(idx);
+                return;
             }
         }
 
-        if (pos.getErrorIndex() == -1) {
-            return b.toString();
-        } else {
-            return null;
-        }
+        pos.setIndex(idx);
+        token.set(start, idx, b != null ? b.append(source, runStart, idx).toString() : null);
     }
 
 
     /**
-     * &Uuml;berpr&uuml;ft, ob die Bedeutung des Spezialzeichens an der aktuellen Position durch <i>char insertion</i> aufgehoben ist.
-     * 
-     * @param source String, dessen Zeichen an Position <code>pos</code> gepr&uuml;ft werden soll.
-     * @param pos Aktuelle Position in <code>source</code>, die gepr&uuml;ft werden soll.
-     * 
-     * @return <code>true</code>, wenn die Bedeutung des Spezialzeichens durch <i>char insertion</i> aufgehoben wurde, <code>false</code>
-     *         wenn nicht.
+     * Gelesener Name oder Wert: Entweder der Bereich in der Quelle (ohne verdoppelte Zeichen) oder der dekodierte Text.
      */
-    private boolean isDoubleChar(String source, ParsePosition pos) {
-        final int idx = pos.getIndex() + 1;
+    private static final class Token {
+
+        private int start;
+
+        private int end;
+
+        /** Dekodierter Text, <code>null</code> wenn der Bereich keine verdoppelten Zeichen enth&auml;lt. */
+        private String decoded;
+
+
+        void set(int start, int end, String decoded) {
+            this.start = start;
+            this.end = end;
+            this.decoded = decoded;
+        }
+
+
+        /**
+         * &Uuml;berpr&uuml;ft wie {@link StringUtils#isBlank(CharSequence)}, ob der Text nur aus Leerzeichen besteht.
+         * 
+         * @param source Quelle.
+         * 
+         * @return <code>true</code>, wenn der Text leer ist oder nur Leerzeichen enth&auml;lt.
+         */
+        boolean isBlank(String source) {
+            if (decoded != null) {
+                return StringUtils.isBlank(decoded);
+            }
+
+            for (int i = start; i < end; i++) {
+                if (!Character.isWhitespace(source.charAt(i))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+
+        /**
+         * Gibt den Text wie {@link String#trim()} ohne f&uuml;hrende und abschliessende Leerzeichen zur&uuml;ck.
+         * 
+         * @param source Quelle.
+         * 
+         * @return Text.
+         */
+        String trim(String source) {
+            int s = start;
+            int e = end;
+
+            if (decoded != null) {
+                return decoded.trim();
+            }
+
+            while (s < e && source.charAt(s) <= ' ') {
+                s++;
+            }
+            while (s < e && source.charAt(e - 1) <= ' ') {
+                e--;
+            }
+
+            return source.substring(s, e);
+        }
 
-        return idx < source.length()
-                && source.charAt(pos.getIndex()) == source.charAt(idx);
     }
 }
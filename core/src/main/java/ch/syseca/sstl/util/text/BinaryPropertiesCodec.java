@@ -0,0 +1,471 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+
+/**
+ * Bin&auml;res, kompaktes Format f&uuml;r Properties Listen, als Alternative zum Textformat von
+ * {@link PropertiesFormat} und {@link LinkedPropertiesFormat}. Die Properties werden unver&auml;ndert (ohne Trimmen)
+ * und in der Reihenfolge der Map geschrieben.
+ *
+ * <p>Aufbau:</p>
+ *
+ * <pre>
+ *     Header     1 Byte: Version (obere 4 Bit) und Flags (Bit 0: komprimiert, Bit 1: Dictionary)
+ *     [Dictionary Checksumme, 4 Byte, falls Bit 1 gesetzt]
+ *     [L&auml;nge der unkomprimierten Daten (varint), L&auml;nge der komprimierten Daten (varint), falls Bit 0 gesetzt]
+ *     Daten      Anzahl Properties (varint), pro Property Name und Wert
+ *                Name: 0 + String oder Index im Dictionary + 1 (varint)
+ *                Wert: 0 f&uuml;r <code>null</code> oder L&auml;nge + 1 (varint) und UTF-8 Bytes
+ *                String: L&auml;nge (varint) und UTF-8 Bytes
+ * </pre>
+ *
+ * <p>Das optionale Dictionary enth&auml;lt h&auml;ufig verwendete Namen, die nur als Index geschrieben werden. Es muss
+ * beim Schreiben und Lesen dasselbe sein, was anhand der Checksumme gepr&uuml;ft wird. Die optionale Kompression
+ * verwendet {@link Deflater} (LZ77 und Huffman) und lohnt sich f&uuml;r grosse Properties Listen.</p>
+ *
+ * <p>Instanzen sind unver&auml;nderlich und thread safe.</p>
+ */
+public final class BinaryPropertiesCodec {
+
+    private static final int VERSION = 1;
+
+    private static final int FLAG_COMPRESSED = 0x01;
+
+    private static final int FLAG_DICTIONARY = 0x02;
+
+    private final String[] dictionary;
+
+    private final Map<String, Integer> dictionaryIndex;
+
+    private final int dictionaryChecksum;
+
+    private final boolean compress;
+
+
+    /**
+     * Erstellt einen Codec ohne Dictionary und ohne Kompression.
+     */
+    public BinaryPropertiesCodec() {
+        this(Collections.<String>emptyList(), false);
+    }
+
+
+    /**
+     * Erstellt einen Codec.
+     *
+     * @param   dictionary  H&auml;ufig verwendete Namen, leer f&uuml;r kein Dictionary.
+     * @param   compress    <code>true</code>, um die Daten beim Schreiben zu komprimieren.
+     *
+     * @throws  IllegalArgumentException  {@code dictionary} ist <code>null</code> oder enth&auml;lt <code>null</code>
+     *                                    oder einen Namen mehrfach.
+     */
+    public BinaryPropertiesCodec(List<String> dictionary, boolean compress) throws IllegalArgumentException {
+        if (dictionary == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("dictionary").get());
+        }
+
+        this.dictionary = dictionary.toArray(new String[dictionary.size()]);
+        this.dictionaryIndex = new HashMap<>();
+        for (int i = 0; i < this.dictionary.length; i++) {
+            if (this.dictionary[i] == null) {
+                throw new IllegalArgumentException("dictionary must not contain null");
+            } else if (dictionaryIndex.put(this.dictionary[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate name in dictionary: " + this.dictionary[i]);
+            }
+        }
+        this.dictionaryChecksum = Arrays.hashCode(this.dictionary);
+        this.compress = compress;
+    }
+
+
+    /**
+     * Kodiert die Properties Liste.
+     *
+     * @param   properties  Properties Liste, Namen und Werte m&uuml;ssen Strings sein.
+     *
+     * @return  Kodierte Properties.
+     *
+     * @throws  IllegalArgumentException  {@code properties} ist <code>null</code> oder enth&auml;lt den Namen
+     *                                    <code>null</code>.
+     */
+    public byte[] encode(Map<?, ?> properties) throws IllegalArgumentException {
+        final ByteArray data = encodeData(properties);
+        final ByteArray body = compress ? deflate(data) : data;
+        final ByteArray result = new ByteArray(body.length + 16);
+
+        writeHeader(result, data.length, body.length);
+        result.put(body.bytes, 0, body.length);
+
+        return result.toByteArray();
+    }
+
+
+    /**
+     * Kodiert die Properties Liste und schreibt sie ab der aktuellen Position in den Buffer.
+     *
+     * @param   properties  Properties Liste, Namen und Werte m&uuml;ssen Strings sein.
+     * @param   out         Ziel.
+     *
+     * @throws  IllegalArgumentException          {@code properties} ist <code>null</code> oder enth&auml;lt den Namen
+     *                                            <code>null</code>.
+     * @throws  java.nio.BufferOverflowException  Der Buffer ist zu klein; seine Position ist dann unver&auml;ndert.
+     */
+    public void encode(Map<?, ?> properties, ByteBuffer out) throws IllegalArgumentException {
+        final ByteArray data = encodeData(properties);
+        final ByteArray body = compress ? deflate(data) : data;
+        final ByteArray header = new ByteArray(16);
+
+        writeHeader(header, data.length, body.length);
+        if (out.remaining() < header.length + body.length) {
+            throw new BufferOverflowException();
+        }
+        out.put(header.bytes, 0, header.length);
+        out.put(body.bytes, 0, body.length);
+    }
+
+
+    /**
+     * Liest eine Properties Liste ab der aktuellen Position des Buffers. Die Position wird ans Ende der Properties
+     * Liste verschoben. Die Properties werden erst nach dem vollst&auml;ndigen Lesen der Map hinzugef&uuml;gt; bei einem
+     * Fehler bleiben die Position und die Map unver&auml;ndert.
+     *
+     * @param   <M>     Typ der Map.
+     * @param   in      Quelle.
+     * @param   target  Map, der die Properties hinzugef&uuml;gt werden.
+     *
+     * @return  {@code target}.
+     *
+     * @throws  IllegalArgumentException  Die Daten sind ung&uuml;ltig oder mit einem anderen Dictionary geschrieben.
+     */
+    public <M extends Map<? super String, ? super String>> M decode(ByteBuffer in, M target)
+            throws IllegalArgumentException {
+        target.putAll(decode(in, new LinkedHashMap<String, String>(), true));
+
+        return target;
+    }
+
+
+    /**
+     * Liest eine {@link LinkedProperties} Liste ab der aktuellen Position des Buffers.
+     *
+     * @param   in  Quelle.
+     *
+     * @return  Properties in der geschriebenen Reihenfolge.
+     *
+     * @throws  IllegalArgumentException  Die Daten sind ung&uuml;ltig.
+     */
+    public LinkedProperties decodeLinkedProperties(ByteBuffer in) throws IllegalArgumentException {
+        return decode(in, new LinkedProperties(), true);
+    }
+
+
+    /**
+     * Liest eine {@link Properties} Liste ab der aktuellen Position des Buffers.
+     *
+     * @param   in  Quelle.
+     *
+     * @return  Properties.
+     *
+     * @throws  IllegalArgumentException  Die Daten sind ung&uuml;ltig oder enthalten einen Wert <code>null</code>, den
+     *                                    {@link Properties} nicht speichern kann.
+     */
+    public Properties decodeProperties(ByteBuffer in) throws IllegalArgumentException {
+        return decode(in, new Properties(), false);
+    }
+
+
+    /**
+     * Liest die Properties aus einer Kopie des Buffers, damit dessen Position nur bei Erfolg verschoben wird.
+     */
+    private <M extends Map<? super String, ? super String>> M decode(ByteBuffer in, M target, boolean nullValues) {
+        final ByteBuffer source = in.duplicate();
+        final M result;
+
+        try {
+            final int header = source.get() & 0xff;
+            final ByteBuffer data;
+
+            if (header >>> 4 != VERSION) {
+                throw new IllegalArgumentException("Unsupported version: " + (header >>> 4));
+            }
+            if ((header & FLAG_DICTIONARY) != 0) {
+                if (source.getInt() != dictionaryChecksum) {
+                    throw new IllegalArgumentException("Data has been written with another dictionary");
+                }
+            } else if (dictionary.length > 0) {
+                throw new IllegalArgumentException("Data has been written without dictionary");
+            }
+
+            if ((header & FLAG_COMPRESSED) != 0) {
+                data = inflate(source);
+            } else {
+                data = source;
+            }
+
+            result = decodeData(data, target, nullValues);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Data is truncated", e);
+        }
+
+        in.position(source.position());
+
+        return result;
+    }
+
+
+    private ByteArray encodeData(Map<?, ?> properties) {
+        final ByteArray data;
+
+        if (properties == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("properties").get());
+        }
+
+        data = new ByteArray(16 + properties.size() * 16);
+        data.putVarInt(properties.size());
+        for (Map.Entry<?, ?> e : properties.entrySet()) {
+            final String key = (String) e.getKey();
+            final String value = (String) e.getValue();
+            final Integer index;
+
+            if (key == null) {
+                throw new IllegalArgumentException("Property name must not be null");
+            }
+
+            index = dictionaryIndex.get(key);
+            if (index != null) {
+                data.putVarInt(index + 1);
+            } else {
+                data.putVarInt(0);
+                data.putString(key, 0);
+            }
+
+            if (value == null) {
+                data.putVarInt(0);
+            } else {
+                data.putString(value, 1);
+            }
+        }
+
+        return data;
+    }
+
+
+    private void writeHeader(ByteArray out, int length, int compressedLength) {
+        out.put((VERSION << 4) | (compress ? FLAG_COMPRESSED : 0) | (dictionary.length > 0 ? FLAG_DICTIONARY : 0));
+        if (dictionary.length > 0) {
+            out.putInt(dictionaryChecksum);
+        }
+        if (compress) {
+            out.putVarInt(length);
+            out.putVarInt(compressedLength);
+        }
+    }
+
+
+    private static ByteArray deflate(ByteArray data) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+        try {
+            final ByteArray compressed = new ByteArray(data.length / 2 + 64);
+
+            deflater.setInput(data.bytes, 0, data.length);
+            deflater.finish();
+            while (!deflater.finished()) {
+                compressed.ensureCapacity(64);
+                compressed.length += deflater.deflate(compressed.bytes, compressed.length,
+                        compressed.bytes.length - compressed.length);
+            }
+
+            return compressed;
+        } finally {
+            deflater.end();
+        }
+    }
+
+
+    private static ByteBuffer inflate(ByteBuffer in) {
+        final int length = getVarInt(in);
+        final int compressedLength = getVarInt(in);
+        final byte[] compressed;
+        final byte[] data;
+        final Inflater inflater;
+
+        // maximales Kompressionsverhaeltnis von Deflate: 1032:1
+        if (compressedLength > in.remaining() || length / 1032 > compressedLength) {
+            throw new IllegalArgumentException("Invalid compressed data");
+        }
+
+        compressed = new byte[compressedLength];
+        data = new byte[length];
+        inflater = new Inflater(true);
+        in.get(compressed);
+        try {
+            inflater.setInput(compressed);
+            if (inflater.inflate(data) != length || !inflater.finished() && inflater.inflate(new byte[1]) > 0) {
+                throw new IllegalArgumentException("Invalid compressed data");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed data", e);
+        } finally {
+            inflater.end();
+        }
+
+        return ByteBuffer.wrap(data);
+    }
+
+
+    private <M extends Map<? super String, ? super String>> M decodeData(ByteBuffer in, M target,
+            boolean nullValues) {
+        final int count = getVarInt(in);
+
+        for (int i = 0; i < count; i++) {
+            final int keyRef = getVarInt(in);
+            final String key;
+            final int valueLength;
+
+            if (keyRef == 0) {
+                key = PropertyKeyPool.getShared().intern(getString(in, getVarInt(in)));
+            } else if (keyRef <= dictionary.length) {
+                key = dictionary[keyRef - 1];
+            } else {
+                throw new IllegalArgumentException("Invalid dictionary index: " + (keyRef - 1));
+            }
+
+            valueLength = getVarInt(in);
+            if (valueLength == 0 && !nullValues) {
+                throw new IllegalArgumentException("Property value must not be null: " + key);
+            }
+            target.put(key, valueLength == 0 ? null : getString(in, valueLength - 1));
+        }
+
+        return target;
+    }
+
+
+    private static int getVarInt(ByteBuffer in) {
+        int result = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = in.get();
+
+            result |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                if (result < 0) {
+                    break;
+                }
+                return result;
+            }
+        }
+
+        throw new IllegalArgumentException("Invalid length");
+    }
+
+
+    private static String getString(ByteBuffer in, int length) {
+        final String result;
+
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        if (in.hasArray()) {
+            result = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            final byte[] bytes = new byte[length];
+
+            in.get(bytes);
+            result = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Wachsender Byte Buffer.
+     */
+    private static final class ByteArray {
+
+        private byte[] bytes;
+
+        private int length;
+
+
+        ByteArray(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+
+        void put(int b) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) b;
+        }
+
+
+        void put(byte[] b, int offset, int count) {
+            ensureCapacity(count);
+            System.arraycopy(b, offset, bytes, length, count);
+            length += count;
+        }
+
+
+        void putInt(int v) {
+            put(v >>> 24);
+            put(v >>> 16);
+            put(v >>> 8);
+            put(v);
+        }
+
+
+        void putVarInt(int v) {
+            int value = v;
+
+            while ((value & ~0x7f) != 0) {
+                put((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            put(value);
+        }
+
+
+        /**
+         * Schreibt die L&auml;nge (plus {@code lengthOffset}) und die UTF-8 Bytes des Strings.
+         */
+        void putString(String s, int lengthOffset) {
+            final byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+
+            putVarInt(utf8.length + lengthOffset);
+            put(utf8, 0, utf8.length);
+        }
+
+
+        void ensureCapacity(int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+        }
+
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+
+    }
+
+}
@@ -0,0 +1,199 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.util.Locale;
+
+
+/**
+ * Strategy to fold the case of characters before they are compared, used by {@link WildcardSearch}. Patterns are
+ * folded once when they are compiled, texts are folded character by character while they are compared. So no folded
+ * copy of the text is created.
+ *
+ * <p>The folded value of a character never changes the number of UTF-16 chars: a character of a surrogate pair is
+ * folded to the corresponding character of the folded surrogate pair.</p>
+ *
+ * <ul>
+ * <li>{@link #NONE}: no folding ('case sensitive' mode).</li>
+ * <li>{@link #SIMPLE}: {@link Character#toLowerCase(char)} for every char. This is the default 'case insensitive'
+ * mode. Surrogate pairs are not folded. ASCII characters are folded by a table lookup.</li>
+ * <li>{@link #UNICODE}: {@code Character.toLowerCase(Character.toUpperCase(codePoint))} for every code point, including
+ * supplementary code points. This treats characters like the long s (U+017F) and {@code s} or the final sigma
+ * (U+03C2) and the sigma (U+03C3) as equal.</li>
+ * <li>{@link #forLocale(Locale)}: lower case mapping of every code point according to the rules of the locale, as far
+ * as they map one code point to one code point (e.g. the dotted and dotless i in Turkish).</li>
+ * </ul>
+ */
+public abstract class CaseFolding {
+
+    /** Lower case values of the ASCII characters. */
+    private static final char[] ASCII_LOWER = new char[128];
+
+    static {
+        for (char c = 0; c < ASCII_LOWER.length; c++) {
+            ASCII_LOWER[c] = (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+    }
+
+    /** No folding, characters are compared case sensitive. */
+    public static final CaseFolding NONE = new CaseFolding() {
+        @Override
+        public char foldAt(CharSequence text, int index) {
+            return text.charAt(index);
+        }
+    };
+
+    /** {@link Character#toLowerCase(char)} for every UTF-16 char. */
+    public static final CaseFolding SIMPLE = new CaseFolding() {
+        @Override
+        public char foldAt(CharSequence text, int index) {
+            final char c = text.charAt(index);
+
+            return c < ASCII_LOWER.length ? ASCII_LOWER[c] : Character.toLowerCase(c);
+        }
+    };
+
+    /** Simple case folding of every code point. */
+    public static final CaseFolding UNICODE = new CodePointFolding(true) {
+        @Override
+        int foldCodePoint(int codePoint) {
+            return Character.toLowerCase(Character.toUpperCase(codePoint));
+        }
+    };
+
+    /** Lower case mapping of every code point, for all locales without special rules. */
+    private static final CaseFolding LOWER_CASE = new CodePointFolding(true) {
+        @Override
+        int foldCodePoint(int codePoint) {
+            return Character.toLowerCase(codePoint);
+        }
+    };
+
+    /** Lower case mapping of every code point according to the Turkish and Azeri rules. */
+    private static final CaseFolding TURKIC_LOWER_CASE = new CodePointFolding(false) {
+        @Override
+        int foldCodePoint(int codePoint) {
+            switch (codePoint) {
+                case 'I':
+                    return '\u0131';
+
+                case '\u0130':
+                    return 'i';
+
+                default:
+                    return Character.toLowerCase(codePoint);
+            }
+        }
+    };
+
+
+    /**
+     * Only the strategies in this class are supported.
+     */
+    private CaseFolding() {
+        super();
+    }
+
+
+    /**
+     * Returns the strategy that folds the characters to lower case according to the rules of the locale.
+     *
+     * @param   locale  Locale.
+     *
+     * @return  Strategy for the locale.
+     *
+     * @throws  IllegalArgumentException  {@code locale} is <code>null</code>.
+     */
+    public static CaseFolding forLocale(Locale locale) throws IllegalArgumentException {
+        final String language;
+
+        if (locale == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("locale").get());
+        }
+
+        language = locale.getLanguage();
+
+        return "tr".equals(language) || "az".equals(language) ? TURKIC_LOWER_CASE : LOWER_CASE;
+    }
+
+
+    /**
+     * Returns the folded value of the char at the given position of the text.
+     *
+     * @param   text   Text.
+     * @param   index  Position within the text.
+     *
+     * @return  Folded char.
+     */
+    public abstract char foldAt(CharSequence text, int index);
+
+
+    /**
+     * Returns the folded text. The result has the same length as the text.
+     *
+     * @param   text  Text to fold.
+     *
+     * @return  Folded text.
+     */
+    public String fold(CharSequence text) {
+        final char[] result = new char[text.length()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = foldAt(text, i);
+        }
+
+        return new String(result);
+    }
+
+
+    /**
+     * Base class for strategies that fold code points. The surrogate pairs are folded as one code point.
+     */
+    private abstract static class CodePointFolding extends CaseFolding {
+
+        /** <code>true</code> if the ASCII characters are folded to their lower case value. */
+        private final boolean asciiLowerCase;
+
+
+        CodePointFolding(boolean asciiLowerCase) {
+            this.asciiLowerCase = asciiLowerCase;
+        }
+
+
+        @Override
+        public char foldAt(CharSequence text, int index) {
+            final char c = text.charAt(index);
+            final int folded;
+
+            if (asciiLowerCase && c < ASCII_LOWER.length) {
+                return ASCII_LOWER[c];
+            }
+
+            if (Character.isHighSurrogate(c) && index + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(index + 1))) {
+                folded = foldCodePoint(Character.toCodePoint(c, text.charAt(index + 1)));
+                return Character.isSupplementaryCodePoint(folded) ? Character.highSurrogate(folded) : c;
+            }
+
+            if (Character.isLowSurrogate(c) && index > 0 && Character.isHighSurrogate(text.charAt(index - 1))) {
+                folded = foldCodePoint(Character.toCodePoint(text.charAt(index - 1), c));
+                return Character.isSupplementaryCodePoint(folded) ? Character.lowSurrogate(folded) : c;
+            }
+
+            folded = foldCodePoint(c);
+
+            return Character.isBmpCodePoint(folded) ? (char) folded : c;
+        }
+
+
+        /**
+         * Returns the folded value of the code point.
+         *
+         * @param   codePoint  Code point.
+         *
+         * @return  Folded code point.
+         */
+        abstract int foldCodePoint(int codePoint);
+
+    }
+
+}
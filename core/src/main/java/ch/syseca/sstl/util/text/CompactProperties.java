@@ -0,0 +1,395 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+
+/**
+ * Kompakte Properties Liste mit derselben Schnittstelle wie {@link LinkedProperties}. Die Properties bleiben in der
+ * Reihenfolge, in der sie hinzugef&uuml;gt wurden.
+ *
+ * <p>Namen und Werte werden in zwei Arrays gespeichert, es gibt keine Objekte pro Property. Bis zu
+ * {@value #INDEX_THRESHOLD} Properties werden die Namen linear gesucht, bei mehr Properties &uuml;ber einen
+ * Hash-Index (ein <code>int</code> Array). Entfernen ist aufwendiger als bei {@link LinkedProperties}, weil die
+ * nachfolgenden Properties verschoben werden.</p>
+ *
+ * <p>Die Klasse ist nicht thread safe.</p>
+ *
+ * @see  CompactPropertiesFormat
+ */
+public class CompactProperties extends AbstractMap<String, String> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Maximale Anzahl Properties, die ohne Hash-Index gesucht werden. */
+    static final int INDEX_THRESHOLD = 8;
+
+    private static final String[] EMPTY = new String[0];
+
+    private String[] keys;
+
+    private String[] values;
+
+    private int size;
+
+    /** Position + 1 der Properties nach Hash des Namens (0 = leer), <code>null</code> bis zu INDEX_THRESHOLD. */
+    private transient int[] index;
+
+    private transient int modCount;
+
+    private transient Set<Map.Entry<String, String>> entrySet;
+
+
+    public CompactProperties() {
+        this(0);
+    }
+
+
+    /**
+     * Erstellt eine leere Properties Liste.
+     *
+     * @param   initialCapacity  Erwartete Anzahl Properties.
+     *
+     * @throws  IllegalArgumentException  {@code initialCapacity} ist negativ.
+     */
+    public CompactProperties(int initialCapacity) throws IllegalArgumentException {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must not be negative: " + initialCapacity);
+        }
+
+        keys = initialCapacity > 0 ? new String[initialCapacity] : EMPTY;
+        values = initialCapacity > 0 ? new String[initialCapacity] : EMPTY;
+    }
+
+
+    /**
+     * Erstellt eine Properties Liste mit den Properties der Map, in der Reihenfolge ihrer Iteration.
+     *
+     * @param  m  Properties.
+     */
+    public CompactProperties(Map<? extends String, ? extends String> m) {
+        this(m.size());
+        putAll(m);
+    }
+
+
+    public void setProperty(String key, String value) {
+        put(PropertyKeyPool.getShared().intern(key), value);
+    }
+
+
+    public String getProperty(String key) {
+        return get(key);
+    }
+
+
+    public String getProperty(String key, String defaultValue) {
+        final int i = indexOf(key);
+
+        return i >= 0 ? values[i] : defaultValue;
+    }
+
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+
+    @Override
+    public String get(Object key) {
+        final int i = indexOf(key);
+
+        return i >= 0 ? values[i] : null;
+    }
+
+
+    @Override
+    public String put(String key, String value) {
+        final int i = indexOf(key);
+        final String result;
+
+        if (i >= 0) {
+            result = values[i];
+            values[i] = value;
+            return result;
+        }
+
+        if (size == keys.length) {
+            final int capacity = Math.max(4, size + (size >> 1));
+
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        modCount++;
+
+        if (index != null && size * 2 <= index.length) {
+            addToIndex(size - 1);
+        } else if (size > INDEX_THRESHOLD) {
+            rebuildIndex();
+        }
+
+        return null;
+    }
+
+
+    @Override
+    public String remove(Object key) {
+        final int i = indexOf(key);
+
+        return i >= 0 ? removeAt(i) : null;
+    }
+
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        index = null;
+        modCount++;
+    }
+
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+
+        return entrySet;
+    }
+
+
+    /**
+     * Gibt die Position des Properties zur&uuml;ck.
+     *
+     * @param   key  Name.
+     *
+     * @return  Position, -1 wenn der Name nicht vorhanden ist.
+     */
+    private int indexOf(Object key) {
+        if (index == null) {
+            for (int i = 0; i < size; i++) {
+                if (Objects.equals(key, keys[i])) {
+                    return i;
+                }
+            }
+        } else {
+            final int mask = index.length - 1;
+
+            for (int slot = hash(key) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+                if (Objects.equals(key, keys[index[slot] - 1])) {
+                    return index[slot] - 1;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+
+    private String removeAt(int i) {
+        final String result = values[i];
+
+        if (size - 1 <= INDEX_THRESHOLD) {
+            index = null;
+        } else if (index != null) {
+            removeFromIndex(i);
+        }
+
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(values, i + 1, values, i, size - i - 1);
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        modCount++;
+
+        return result;
+    }
+
+
+    /**
+     * Entfernt die Position <code>i</code> aus dem Hash-Index (<i>backward shift deletion</i>, ohne Hashes neu zu
+     * berechnen) und passt die Positionen der nachfolgenden Properties an. Muss vor dem Verschieben der Arrays
+     * aufgerufen werden.
+     *
+     * @param  i  Position des Properties.
+     */
+    private void removeFromIndex(int i) {
+        final int mask = index.length - 1;
+        int slot = hash(keys[i]) & mask;
+
+        while (index[slot] != i + 1) {
+            slot = (slot + 1) & mask;
+        }
+
+        // nachfolgende Eintraege derselben Kette in die Luecke verschieben
+        for (int next = (slot + 1) & mask; index[next] != 0; next = (next + 1) & mask) {
+            final int home = hash(keys[index[next] - 1]) & mask;
+
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                index[slot] = index[next];
+                slot = next;
+            }
+        }
+        index[slot] = 0;
+
+        if (i < size - 1) {
+            for (int s = 0; s < index.length; s++) {
+                index[s] -= index[s] > i + 1 ? 1 : 0;
+            }
+        }
+    }
+
+
+    private void rebuildIndex() {
+        index = new int[Integer.highestOneBit(size * 4 - 1)];
+        for (int i = 0; i < size; i++) {
+            addToIndex(i);
+        }
+    }
+
+
+    private void addToIndex(int i) {
+        final int mask = index.length - 1;
+        int slot = hash(keys[i]) & mask;
+
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = i + 1;
+    }
+
+
+    private static int hash(Object key) {
+        final int h = key != null ? key.hashCode() : 0;
+
+        return h ^ (h >>> 16);
+    }
+
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (size > INDEX_THRESHOLD) {
+            rebuildIndex();
+        }
+    }
+
+
+    /**
+     * Properties in der Reihenfolge, in der sie hinzugef&uuml;gt wurden.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+
+        @Override
+        public void clear() {
+            CompactProperties.this.clear();
+        }
+
+
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return new Iterator<Map.Entry<String, String>>() {
+                private int next;
+
+                private int last = -1;
+
+                private int expectedModCount = modCount;
+
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+
+                @Override
+                public Map.Entry<String, String> next() {
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    } else if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+
+                    last = next++;
+
+                    return new Entry(last);
+                }
+
+
+                @Override
+                public void remove() {
+                    if (last < 0) {
+                        throw new IllegalStateException();
+                    } else if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+
+                    removeAt(last);
+                    next = last;
+                    last = -1;
+                    expectedModCount = modCount;
+                }
+            };
+        }
+
+    }
+
+
+    /**
+     * Property der Liste; {@link #setValue(String)} schreibt in die Liste, solange das Property enthalten ist.
+     */
+    private final class Entry extends AbstractMap.SimpleEntry<String, String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int position;
+
+
+        Entry(int position) {
+            super(keys[position], values[position]);
+            this.position = position;
+        }
+
+
+        @Override
+        public String setValue(String value) {
+
+            // die Position stimmt nicht mehr, wenn vorher Properties entfernt wurden
+            final int i = position < size && keys[position] == getKey() ? position : indexOf(getKey());
+
+            if (i >= 0) {
+                values[i] = value;
+            }
+
+            return super.setValue(value);
+        }
+
+    }
+
+}
@@ -0,0 +1,37 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.util.Map;
+
+
+/**
+ * Format von {@link LinkedPropertiesFormat} f&uuml;r {@link CompactProperties}.
+ */
+public class CompactPropertiesFormat extends AbstractPropertiesFormat<CompactProperties> {
+
+    @Override
+    protected CompactProperties createNewPropertySet() {
+        return new CompactProperties();
+    }
+
+
+    @Override
+    protected Map<String, String> convertToExportPropertySet(CompactProperties source) {
+        return source;
+    }
+
+
+    /**
+     * Gibt die Properties in der Reihenfolge der Map zur&uuml;ck. Subklassen verwenden
+     * {@link #convertToExportPropertySet(CompactProperties)}, damit sie die Properties z.B. filtern k&ouml;nnen.
+     */
+    @Override
+    protected Map.Entry<?, ?>[] exportEntries(Map<?, ?> source) {
+        if (getClass() != CompactPropertiesFormat.class) {
+            return super.exportEntries(source);
+        }
+
+        return source.entrySet().toArray(new Map.Entry<?, ?>[0]);
+    }
+
+}
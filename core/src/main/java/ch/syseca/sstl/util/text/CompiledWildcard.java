@@ -0,0 +1,485 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.util.function.Predicate;
+
+/**
+ * Wildcard pattern that has been parsed by {@link WildcardSearch#compile(String)}. The pattern is split at the multi
+ * char wildcards into segments. Each segment contains the literal characters (escapes resolved and already converted
+ * to lower case in 'case insensitive' mode) and the positions of the single char wildcards.
+ *
+ * <p>Single char wildcards at the end of the pattern are kept apart from the segments: like in
+ * {@link WildcardSearch#matches(String, String)}, they also match the end of the text. {@code Tes_} matches
+ * {@code Test} and {@code Tes}.</p>
+ *
+ * <p>The pattern is classified by its {@link Shape}. Patterns without single char wildcards and with at most one
+ * segment are tested by a single compare or search of the literal. All other patterns are tested segment by segment.
+ * A text shorter than the number of literal characters and single char wildcards is rejected without looking at its
+ * characters.</p>
+ *
+ * <p>Instances are immutable and may be shared between threads. Matching a text does not allocate any objects. So one
+ * instance can be used as {@link Predicate} by all workers of a parallel stream.</p>
+ *
+ * @see  WildcardSearch#compile(String)
+ */
+public final class CompiledWildcard implements Predicate<CharSequence> {
+
+    /**
+     * Classification of the pattern. All shapes but {@link #GENERIC} consist of a literal without single char
+     * wildcards.
+     */
+    public enum Shape {
+
+        /** Pattern without wildcards, e.g. {@code abc}. */
+        EXACT,
+
+        /** Literal followed by a multi char wildcard, e.g. {@code abc*}. */
+        PREFIX,
+
+        /** Multi char wildcard followed by a literal, e.g. {@code *abc}. */
+        SUFFIX,
+
+        /** Literal between two multi char wildcards, e.g. {@code *abc*} or {@code *}. */
+        CONTAINS,
+
+        /** Any other pattern. */
+        GENERIC
+    }
+
+    private final String pattern;
+
+    private final CaseFolding caseFolding;
+
+    /** <code>true</code> if the pattern contains at least one multi char wildcard. */
+    private final boolean multiCharWildcard;
+
+    /** <code>true</code> if the pattern does not start with a multi char wildcard. */
+    private final boolean anchoredStart;
+
+    /**
+     * <code>true</code> if the pattern does not end with a multi char wildcard (ignoring the trailing single char
+     * wildcards).
+     */
+    private final boolean anchoredEnd;
+
+    /** Literal characters of the segments between the multi char wildcards. */
+    private final char[][] segments;
+
+    /**
+     * Positions of the single char wildcards within the segments. The entry is <code>null</code> if the segment does
+     * not contain any single char wildcard.
+     */
+    private final boolean[][] singleCharWildcards;
+
+    /** Number of single char wildcards at the end of the pattern (not part of the segments). */
+    private final int trailingSingleCharWildcards;
+
+    /** Literal characters at the start of the first segment, up to the first single char wildcard. */
+    private final String firstLiteral;
+
+    /** Literal characters at the start of the pattern, up to the first wildcard. */
+    private final String literalPrefix;
+
+    private final Shape shape;
+
+    /** Literal of the pattern, if the shape is not {@link Shape#GENERIC}. */
+    private final String literal;
+
+    /** Minimal length of a matching text: number of literal characters and single char wildcards in the segments. */
+    private final int minLength;
+
+
+    /**
+     * Creates a new compiled pattern. Called by {@link WildcardSearch#compile(String)} only.
+     *
+     * @param  pattern                      Original pattern.
+     * @param  caseFolding                  Case folding of the texts. The segments are already folded.
+     * @param  multiCharWildcard            <code>true</code> if the pattern contains at least one multi char
+     *                                      wildcard.
+     * @param  anchoredStart                <code>true</code> if the pattern does not start with a multi char
+     *                                      wildcard.
+     * @param  anchoredEnd                  <code>true</code> if the pattern does not end with a multi char wildcard.
+     * @param  segments                     Literal characters of the segments.
+     * @param  singleCharWildcards          Positions of the single char wildcards within the segments.
+     * @param  trailingSingleCharWildcards  Number of single char wildcards at the end of the pattern.
+     */
+    CompiledWildcard(String pattern, CaseFolding caseFolding, boolean multiCharWildcard, boolean anchoredStart,
+            boolean anchoredEnd, char[][] segments, boolean[][] singleCharWildcards, int trailingSingleCharWildcards) {
+        this.pattern = pattern;
+        this.caseFolding = caseFolding;
+        this.multiCharWildcard = multiCharWildcard;
+        this.anchoredStart = anchoredStart;
+        this.anchoredEnd = anchoredEnd;
+        this.segments = segments;
+        this.singleCharWildcards = singleCharWildcards;
+        this.trailingSingleCharWildcards = trailingSingleCharWildcards;
+        this.firstLiteral = evaluateFirstLiteral();
+        this.literalPrefix = anchoredStart ? firstLiteral : "";
+        this.shape = evaluateShape();
+        this.literal = shape != Shape.GENERIC && segments.length > 0 ? new String(segments[0]) : "";
+
+        int length = 0;
+
+        for (char[] segment : segments) {
+            length += segment.length;
+        }
+        this.minLength = length;
+    }
+
+
+    /**
+     * Evaluates the literal characters at the start of the first segment, up to the first single char wildcard.
+     *
+     * @return  First literal (maybe empty).
+     */
+    private String evaluateFirstLiteral() {
+        int length = 0;
+
+        if (segments.length > 0) {
+            while (length < segments[0].length
+                    && (singleCharWildcards[0] == null || !singleCharWildcards[0][length])) {
+                length++;
+            }
+        }
+
+        return length == 0 ? "" : new String(segments[0], 0, length);
+    }
+
+
+    /**
+     * Classifies the pattern.
+     *
+     * @return  Shape of the pattern.
+     */
+    private Shape evaluateShape() {
+        for (boolean[] wildcards : singleCharWildcards) {
+            if (wildcards != null) {
+                return Shape.GENERIC;
+            }
+        }
+
+        if (trailingSingleCharWildcards > 0 || segments.length > 1) {
+            return Shape.GENERIC;
+        } else if (!multiCharWildcard) {
+            return Shape.EXACT;
+        } else if (segments.length == 0) {
+            return Shape.CONTAINS;
+        } else if (anchoredStart) {
+            return Shape.PREFIX;
+        } else if (anchoredEnd) {
+            return Shape.SUFFIX;
+        } else {
+            return Shape.CONTAINS;
+        }
+    }
+
+
+    /**
+     * Returns the pattern this instance has been compiled from.
+     *
+     * @return  Wildcard pattern.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+
+    /**
+     * Returns the literal characters at the start of the pattern, up to the first wildcard. In 'case insensitive' mode,
+     * the characters are converted to lower case.
+     *
+     * @return  Literal prefix or an empty string, if the pattern starts with a wildcard.
+     */
+    String getLiteralPrefix() {
+        return literalPrefix;
+    }
+
+
+    /**
+     * Returns the literal characters at the start of the first segment, up to the first single char wildcard. For a
+     * pattern starting with a multi char wildcard, this is the first literal a matching text must contain. In 'case
+     * insensitive' mode, the characters are converted to lower case.
+     *
+     * @return  First literal or an empty string, if the first segment starts with a single char wildcard.
+     */
+    String getFirstLiteral() {
+        return firstLiteral;
+    }
+
+
+    /**
+     * Returns the classification of the pattern.
+     *
+     * @return  Shape of the pattern.
+     */
+    public Shape getShape() {
+        return shape;
+    }
+
+
+    /**
+     * Returns <code>true</code> if the text matches the pattern. The value must not be <code>null</code>, otherwise an
+     * {@link IllegalArgumentException} is thrown.
+     *
+     * @param   text  Text to test.
+     *
+     * @return  <code>true</code> if the {@code text} matches the pattern.
+     *
+     * @throws  IllegalArgumentException  {@code text} is <code>null</code>.
+     */
+    public boolean matches(CharSequence text) throws IllegalArgumentException {
+        if (text == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("text").get());
+        }
+
+        return matches(text, 0);
+    }
+
+
+    /**
+     * Tests a text, that is known to start with the {@linkplain #getLiteralPrefix() literal prefix}. The characters of
+     * the prefix are not compared again. Used by {@link WildcardPatternSet}.
+     *
+     * @param   text  Text to test, not <code>null</code>.
+     *
+     * @return  <code>true</code> if the {@code text} matches the pattern.
+     */
+    boolean matchesAfterPrefix(CharSequence text) {
+        return matches(text, literalPrefix.length());
+    }
+
+
+    /**
+     * Tests a text against a pattern starting with a multi char wildcard, if the position of the leftmost occurrence
+     * of the {@linkplain #getFirstLiteral() first literal} is known. The first segment is searched from this position
+     * on. Used by {@link WildcardPatternSet}.
+     *
+     * @param   text          Text to test, not <code>null</code>.
+     * @param   firstLiteral  Position of the leftmost occurrence of the first literal within the text.
+     *
+     * @return  <code>true</code> if the {@code text} matches the pattern.
+     */
+    boolean matchesFrom(CharSequence text, int firstLiteral) {
+        return matches(text, firstLiteral);
+    }
+
+
+    /**
+     * Tests the text against the pattern. The meaning of {@code start} depends on the pattern: if it doesn't start with
+     * a multi char wildcard, the first {@code start} characters of the first segment are known to match the text.
+     * Otherwise the first segment doesn't occur before the text position {@code start}.
+     *
+     * @param   text   Text to test.
+     * @param   start  Number of already matched characters or first text position to search the first segment.
+     *
+     * @return  <code>true</code> if the {@code text} matches the pattern.
+     */
+    private boolean matches(CharSequence text, int start) {
+        final int textLength;
+        final int maxTrailing;
+        final int first;
+        final int last;
+        final int textEnd;
+        int textPos;
+
+        textLength = text.length();
+        if (textLength < minLength) {
+            return false;
+        }
+
+        if (shape != Shape.GENERIC) {
+            return matchesLiteral(text, textLength, start);
+        }
+
+        maxTrailing = Math.min(trailingSingleCharWildcards, textLength);
+
+        if (!multiCharWildcard) {
+
+            // no multi char wildcard: the pattern consists of at most one segment that must cover the whole text,
+            // except the last chars matched by the trailing single char wildcards
+            final int segmentLength = segments.length == 0 ? 0 : segments[0].length;
+
+            return (textLength >= segmentLength)
+                    && (textLength - segmentLength <= maxTrailing)
+                    && (segments.length == 0 || regionMatches(text, 0, 0, start));
+        }
+
+        textPos = anchoredStart ? 0 : start;
+        first = anchoredStart ? 1 : 0;
+        last = anchoredEnd ? segments.length - 1 : segments.length;
+        textEnd = anchoredEnd ? textLength - segments[last].length : textLength;
+
+        if (anchoredStart) {
+            if (textLength < segments[0].length || !regionMatches(text, 0, 0, start)) {
+                return false;
+            }
+            textPos = segments[0].length;
+        }
+
+        // the segments between the first and the last multi char wildcard are searched from left to right. It is
+        // always safe to take the leftmost occurrence, as the following multi char wildcard absorbs any gap. Each
+        // text position is therefore tested at most once per segment: O(text length * pattern length).
+        for (int i = first; i < last; i++) {
+            final int idx = indexOf(text, i, textPos, textEnd);
+
+            if (idx < 0) {
+                return false;
+            }
+            textPos = idx + segments[i].length;
+        }
+
+        if (!anchoredEnd) {
+
+            // the last multi char wildcard absorbs the rest of the text (and the trailing single char wildcards)
+            return true;
+        }
+
+        // the last segment is anchored at the end of the text. The trailing single char wildcards match the last
+        // 0..n chars of the text.
+        for (int i = 0; i <= maxTrailing; i++) {
+            final int lastPos = textEnd - i;
+
+            if (lastPos < textPos) {
+                break;
+            }
+            if (regionMatches(text, lastPos, last)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Tests the text against a pattern, that consists of a literal and multi char wildcards only. The text is at least
+     * as long as the literal.
+     *
+     * @param   text        Text to test.
+     * @param   textLength  Length of the text.
+     * @param   start       Number of already matched characters or first text position to search the literal, see
+     *                      {@link #matches(CharSequence, int)}.
+     *
+     * @return  <code>true</code> if the text matches the pattern.
+     */
+    private boolean matchesLiteral(CharSequence text, int textLength, int start) {
+        if (start == 0 && caseFolding == CaseFolding.NONE && text instanceof String) {
+            final String s = (String) text;
+
+            switch (shape) {
+                case EXACT:
+                    return s.equals(literal);
+
+                case PREFIX:
+                    return s.startsWith(literal);
+
+                case SUFFIX:
+                    return s.endsWith(literal);
+
+                default:
+                    return s.contains(literal);
+            }
+        }
+
+        switch (shape) {
+            case EXACT:
+                return textLength == minLength && (minLength == 0 || regionMatches(text, 0, 0, start));
+
+            case PREFIX:
+                return regionMatches(text, 0, 0, start);
+
+            case SUFFIX:
+                return regionMatches(text, textLength - minLength, 0);
+
+            default:
+                return minLength == 0 || indexOf(text, 0, start, textLength) >= 0;
+        }
+    }
+
+
+    /**
+     * Searches the leftmost occurrence of a segment within the text range {@code [fromPos, toPos)}.
+     *
+     * @param   text     Text to search.
+     * @param   segment  Index of the segment.
+     * @param   fromPos  First position within the text (inclusive).
+     * @param   toPos    Last position within the text (exclusive).
+     *
+     * @return  Position of the segment within the text or {@code -1}, if the segment was not found.
+     */
+    private int indexOf(CharSequence text, int segment, int fromPos, int toPos) {
+        final int lastStart = toPos - segments[segment].length;
+
+        for (int i = fromPos; i <= lastStart; i++) {
+            if (regionMatches(text, i, segment)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Tests, if the segment matches the text at the given position. The caller must ensure, that the text is long
+     * enough.
+     *
+     * @param   text     Text to test.
+     * @param   textPos  Position within the text.
+     * @param   segment  Index of the segment.
+     *
+     * @return  <code>true</code> if the segment matches.
+     */
+    private boolean regionMatches(CharSequence text, int textPos, int segment) {
+        return regionMatches(text, textPos, segment, 0);
+    }
+
+
+    /**
+     * Tests, if the segment matches the text at the given position, skipping the first characters of the segment. The
+     * caller must ensure, that the text is long enough.
+     *
+     * @param   text     Text to test.
+     * @param   textPos  Position of the segment within the text.
+     * @param   segment  Index of the segment.
+     * @param   from     Number of characters at the start of the segment that are known to match.
+     *
+     * @return  <code>true</code> if the segment matches.
+     */
+    private boolean regionMatches(CharSequence text, int textPos, int segment, int from) {
+        final char[] chars = segments[segment];
+        final boolean[] wildcards = singleCharWildcards[segment];
+
+        for (int i = from; i < chars.length; i++) {
+            if (wildcards == null || !wildcards[i]) {
+                if (caseFolding.foldAt(text, textPos + i) != chars[i]) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Same as {@link #matches(CharSequence)}.
+     *
+     * @param   text  Text to test.
+     *
+     * @return  <code>true</code> if the {@code text} matches the pattern.
+     *
+     * @throws  IllegalArgumentException  {@code text} is <code>null</code>.
+     */
+    @Override
+    public boolean test(CharSequence text) throws IllegalArgumentException {
+        return matches(text);
+    }
+
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+}
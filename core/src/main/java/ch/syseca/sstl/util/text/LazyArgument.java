@@ -0,0 +1,68 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+
+/**
+ * Argument of a {@link MessageFormat} placeholder without sub-format (e.g. {@code {name}}), whose value is evaluated
+ * when the placeholder is rendered. {@link MessageFormat} formats such arguments by {@link #toString()}, which renders
+ * the value the same way as {@link MessageFormat} would render it directly. So suppliers of arguments that aren't
+ * rendered (e.g. because they are used in a branch of a choice format that isn't selected) are not called at all.
+ *
+ * <p>The value is evaluated once per call, even if the argument is used by several placeholders. Instances are reused
+ * for subsequent calls by {@link #reset(Supplier, Locale)}.</p>
+ */
+final class LazyArgument {
+
+    private Supplier<?> supplier;
+
+    private Locale locale;
+
+    private boolean evaluated;
+
+    private Object value;
+
+
+    /**
+     * Prepares the argument for a new call.
+     *
+     * @param  supplier  Supplier of the value, <code>null</code> if the value is <code>null</code>.
+     * @param  locale    Locale of the message format.
+     */
+    void reset(Supplier<?> supplier, Locale locale) {
+        this.supplier = supplier;
+        this.locale = locale;
+        this.evaluated = false;
+        this.value = null;
+    }
+
+
+    /**
+     * Returns the value. The supplier is called on the first call only.
+     *
+     * @return  Value.
+     */
+    Object get() {
+        if (!evaluated) {
+            value = supplier != null ? supplier.get() : null;
+            evaluated = true;
+        }
+
+        return value;
+    }
+
+
+    /**
+     * Renders the value like {@link MessageFormat} renders arguments of placeholders without sub-format.
+     *
+     * @return  Rendered value.
+     */
+    @Override
+    public String toString() {
+        return MessageSegments.render(get(), locale);
+    }
+
+}
@@ -32,8 +32,14 @@ public class LinkedProperties extends LinkedHashMap<String, String> {
     }
 
 
+    /**
+     * Setzt den Wert des Properties. Der Name wird im gemeinsamen {@link PropertyKeyPool} abgelegt.
+     * 
+     * @param key Name.
+     * @param value Wert.
+     */
     public void setProperty(String key, String value) {
-        put(key, value);
+        put(PropertyKeyPool.getShared().intern(key), value);
     }
 
 
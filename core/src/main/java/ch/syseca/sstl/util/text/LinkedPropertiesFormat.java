@@ -17,4 +17,19 @@ public class LinkedPropertiesFormat extends AbstractPropertiesFormat<LinkedPrope
         return source;
     }
 
+
+    /**
+     * Gibt die Properties in der Reihenfolge der Map zur&uuml;ck. Es wird jede Map mit String Namen und Werten
+     * unterst&uuml;tzt, z.B. auch {@link CompactProperties}. Subklassen verwenden
+     * {@link #convertToExportPropertySet(LinkedProperties)}, damit sie die Properties z.B. filtern k&ouml;nnen.
+     */
+    @Override
+    protected Map.Entry<?, ?>[] exportEntries(Map<?, ?> source) {
+        if (getClass() != LinkedPropertiesFormat.class) {
+            return super.exportEntries(source);
+        }
+
+        return source.entrySet().toArray(new Map.Entry<?, ?>[0]);
+    }
+
 }
@@ -1,12 +1,10 @@
 package ch.syseca.sstl.util.text;
 
 
-import java.text.DateFormat;
+import java.io.IOException;
 import java.text.FieldPosition;
+import java.text.Format;
 import java.text.MessageFormat;
-import java.text.NumberFormat;
-import java.text.ParsePosition;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -15,8 +13,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.function.Supplier;
-import org.apache.commons.lang3.CharUtils;
-import org.apache.commons.lang3.mutable.MutableInt;
 import ch.syseca.sstl.util.list.ListUtil;
 import lombok.Getter;
 
@@ -42,15 +38,15 @@ import lombok.Getter;
  *  </pre>
  * returns <p>{@code Hej Joe, you are 99 years old}</p> as well.
  *
+ * <p>An instance holds the arguments of one call and is not thread safe. To format the same pattern many times, compile
+ * it once to a {@link MessageTemplate}.</p>
  */
 public class MessageFormatNA extends MessageFormat {
 
-    @FunctionalInterface
-    interface ArgumentNameConverter {
+    /** Maximal number of templates in the cache used by {@link #cached(String, Locale, TimeZone)}. */
+    private static final int TEMPLATE_CACHE_SIZE = 1000;
 
-        String readAndConvert(String pattern, ParsePosition p);
-
-    }
+    private static final MessageTemplateCache TEMPLATE_CACHE = new MessageTemplateCache(TEMPLATE_CACHE_SIZE);
 
     @Getter
     private String pattern;
@@ -62,6 +58,16 @@ public class MessageFormatNA extends MessageFormat {
     private final List<Object> indexedArguments = new ArrayList<>();
 
     private Map<String, Integer> nameToIndexMap; // initialised via applyPattern() in constructor of super class!
+    private String[] slotNames; // name of the named argument by index, initialised via applyPattern()
+    private boolean[] argumentsWithSubFormat; // evaluated lazily, reset if the pattern or the formats change
+
+    // reused by every call of format(), so formatting doesn't create garbage beyond the text
+    private Object[] arguments;
+    private StringBuffer buffer;
+    private FieldPosition fieldPosition;
+    private LazyArgument[] lazyArguments;
+    private MessageSegments segments; // evaluated with argumentsWithSubFormat, null if the pattern has sub-formats
+    private String[] renderedArguments;
 
 
     public MessageFormatNA(String pattern) {
@@ -74,6 +80,36 @@ public class MessageFormatNA extends MessageFormat {
     }
 
 
+    /**
+     * Returns the compiled template for the pattern. The templates are kept in a bounded cache shared by the whole
+     * application, so each pattern is parsed only once as long as it is used frequently.
+     *
+     * @param   pattern   Pattern with named and/or indexed arguments.
+     * @param   locale    Locale used to format the arguments.
+     * @param   timeZone  Time zone of the date sub-formats, <code>null</code> for the default time zone.
+     *
+     * @return  Compiled template.
+     *
+     * @throws  IllegalArgumentException  {@code pattern} is <code>null</code> or invalid.
+     *
+     * @see     #getTemplateCache()
+     */
+    public static MessageTemplate cached(String pattern, Locale locale, TimeZone timeZone)
+            throws IllegalArgumentException {
+        return TEMPLATE_CACHE.get(pattern, locale, timeZone);
+    }
+
+
+    /**
+     * Returns the cache used by {@link #cached(String, Locale, TimeZone)}, e.g. to monitor the hit rate.
+     *
+     * @return  Template cache.
+     */
+    public static MessageTemplateCache getTemplateCache() {
+        return TEMPLATE_CACHE;
+    }
+
+
     public MessageFormatNA addNamedArgument(String name, Object value) {
         return addNamedArgumentSuplier(name, () -> value);
     }
@@ -107,170 +143,216 @@ public class MessageFormatNA extends MessageFormat {
     @Override
     public void applyPattern(String pattern) {
         super.applyPattern(namesToIndex(pattern));
+        updateSlotNames();
         updateDateFormatTimeZone();
+        argumentsWithSubFormat = null;
     }
 
 
-    String namesToIndex(String pattern) {
-        final MutableInt namedArgIdx = new MutableInt(evaluateMaxArgIndex(pattern));
-        String indexOnlyPattern;
-
-        getNameToIndexMap().clear();
-        indexOnlyPattern = rebuildPattern(pattern, (t, p) -> {
-            if (CharUtils.isAsciiAlpha(t.charAt(p.getIndex()))) {
-                int argIdx;
-                String argName = parseName(t, p);
-
-                argIdx = getNameToIndexMap().computeIfAbsent(argName, n -> {
-                    namedArgIdx.increment();
-                    return namedArgIdx.getValue();
-                });
-                return Integer.toString(argIdx);
-            } else {
-                return null;
-            }
-        });
+    @Override
+    public void setFormat(int formatElementIndex, Format newFormat) {
+        super.setFormat(formatElementIndex, newFormat);
+        argumentsWithSubFormat = null;
+    }
+
+
+    @Override
+    public void setFormats(Format[] newFormats) {
+        super.setFormats(newFormats);
+        argumentsWithSubFormat = null;
+    }
+
 
-        return indexOnlyPattern;
+    @Override
+    public void setFormatByArgumentIndex(int argumentIndex, Format newFormat) {
+        super.setFormatByArgumentIndex(argumentIndex, newFormat);
+        argumentsWithSubFormat = null;
+    }
+
+
+    @Override
+    public void setFormatsByArgumentIndex(Format[] newFormats) {
+        super.setFormatsByArgumentIndex(newFormats);
+        argumentsWithSubFormat = null;
+    }
+
+
+    private void updateSlotNames() {
+        int size = 0;
+
+        for (int idx : nameToIndexMap.values()) {
+            size = Math.max(size, idx + 1);
+        }
+        slotNames = new String[size];
+        nameToIndexMap.forEach((name, idx) -> slotNames[idx] = name);
+    }
+
+
+    String namesToIndex(String pattern) {
+        return NamedArgumentParser.namesToIndex(pattern, getLocale(), getNameToIndexMap());
     }
 
 
     int evaluateMaxArgIndex(String pattern) {
-        MutableInt result = new MutableInt(-1);
+        return NamedArgumentParser.evaluateMaxArgIndex(pattern, getLocale());
+    }
 
-        rebuildPattern(pattern, (t, p) -> {
-            if (CharUtils.isAsciiNumeric((t.charAt(p.getIndex())))) {
-                int v = parseInt(t, p);
-                result.setValue(Math.max(result.getValue(), v));
-                return Integer.toString(v);
-            } else {
-                return null;
+
+    public String format() {
+        prepareFormats();
+        if (segments != null) {
+            prepareArguments();
+            try {
+                return segments.format(arguments, getLocale(), renderedArguments);
+            } finally {
+                releaseArguments();
             }
-        });
+        }
 
-        return result.intValue();
+        return formatToBuffer().toString();
     }
 
 
-    private String rebuildPattern(String pattern, ArgumentNameConverter argNameConverter) {
-        final StringBuilder indexedPattern = new StringBuilder();
-        int idx = 0;
-        int braceCount = 0;
-        boolean inQuote = false;
-        boolean checkForArgName = false;
-
-        while (idx < pattern.length()) {
-            char c = pattern.charAt(idx);
-
-            switch (c) {
-                case '{':
-                    if (inQuote) {
-                        inQuote = false;
-                    } else {
-                        braceCount++;
-                        if (braceCount == 1) {
-                            checkForArgName = true;
-                        }
-                    }
-                    indexedPattern.append(c);
-                    idx++;
-                    break;
-
-                case '}':
-                    if (!inQuote) {
-                        braceCount--;
-                    }
-                    indexedPattern.append(c);
-                    idx++;
-                    break;
-
-                case '\'':
-                    if (braceCount == 0) {
-                        inQuote = !inQuote;
-                    }
-                    indexedPattern.append(c);
-                    idx++;
-                    break;
-
-                default:
-                    if (checkForArgName) {
-                        ParsePosition p = new ParsePosition(idx);
-                        String argName;
-
-                        argName = argNameConverter.readAndConvert(pattern, p);
-                        if (p.getIndex() > idx) {
-                            idx = p.getIndex();
-                            indexedPattern.append(argName);
-                        } else {
-                            indexedPattern.append(c);
-                            idx++;
-                        }
-                        checkForArgName = false;
-                    } else {
-                        indexedPattern.append(c);
-                        idx++;
-                    }
-                    break;
+    /**
+     * Same as {@link #format()}, but appends the text to {@code out}.
+     *
+     * @param   out  Target of the formatted text.
+     *
+     * @return  {@code out}.
+     */
+    public StringBuilder formatTo(StringBuilder out) {
+        prepareFormats();
+        if (segments != null) {
+            prepareArguments();
+            try {
+                return segments.formatTo(out, arguments, getLocale(), renderedArguments);
+            } finally {
+                releaseArguments();
             }
         }
 
-        return indexedPattern.toString();
+        return out.append(formatToBuffer());
     }
 
 
-    private int parseInt(String text, ParsePosition p) {
-        return NumberFormat.getIntegerInstance(getLocale())
-                .parse(text, p)
-                .intValue();
+    /**
+     * Same as {@link #format()}, but appends the text to {@code out}.
+     *
+     * @param   out  Target of the formatted text.
+     *
+     * @return  {@code out}.
+     *
+     * @throws  IOException  Thrown by {@code out}.
+     */
+    public Appendable formatTo(Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            return formatTo((StringBuilder) out);
+        }
+
+        prepareFormats();
+
+        return out.append(segments != null ? format() : formatToBuffer());
     }
 
 
-    private String parseName(String text, ParsePosition p) {
-        final int startPos = p.getIndex();
+    /**
+     * Evaluates the arguments formatted by sub-formats and, if there are no sub-formats, the segments of the pattern
+     * used to render it without {@link MessageFormat}.
+     */
+    private void prepareFormats() {
+        if (argumentsWithSubFormat == null) {
+            argumentsWithSubFormat = NamedArgumentParser.argumentsWithSubFormat(this, slotNames.length);
+            segments = MessageSegments.of(this);
+            renderedArguments = segments != null ? new String[segments.getPlaceholderCount()] : null;
+        }
+    }
 
-        while (p.getIndex() < text.length()) {
-            char c = text.charAt(p.getIndex());
 
-            if (!CharUtils.isAsciiAlpha(c)) {
-                break;
-            }
-            p.setIndex(p.getIndex() + 1);
+    /**
+     * Formats the arguments by {@link MessageFormat} into the reused buffer.
+     *
+     * @return  Buffer containing the formatted text.
+     */
+    private StringBuffer formatToBuffer() {
+        prepareFormats();
+        prepareArguments();
+        if (buffer == null) {
+            buffer = new StringBuffer();
+            fieldPosition = new FieldPosition(0);
         }
 
-        return text.substring(startPos, p.getIndex());
+        buffer.setLength(0);
+        try {
+            return format(arguments, buffer, fieldPosition);
+        } finally {
+            releaseArguments();
+        }
     }
 
 
-    public String format() {
-        StringBuffer result = new StringBuffer();
-        List<Object> args = new ArrayList<>();
+    /**
+     * Fills the argument array. The array is reused, if its size didn't change since the last call.
+     *
+     * <p>The suppliers of named arguments used by placeholders without sub-format are called when the placeholder is
+     * rendered, see {@link LazyArgument}. All other suppliers are called before formatting. Every supplier is called
+     * at most once per call.</p>
+     */
+    private void prepareArguments() {
+        final int indexedCount = indexedArguments.size();
+        final int argumentCount = Math.max(indexedCount, slotNames.length);
+
+        if (arguments == null || arguments.length != argumentCount) {
+            arguments = new Object[argumentCount];
+        }
+        if (lazyArguments == null || lazyArguments.length != slotNames.length) {
+            lazyArguments = new LazyArgument[slotNames.length];
+        }
 
-        args.addAll(indexedArguments);
-        nameToIndexMap.forEach((k, p) -> {
-            Supplier<?> s = namedArgumentSuppliers.get(k);
+        for (int i = 0; i < argumentCount; i++) {
+            final String name = i < slotNames.length ? slotNames[i] : null;
 
-            if (s != null) {
-                addToArgList(args, s.get(), p);
+            if (name != null) {
+                arguments[i] = namedArgument(i, namedArgumentSuppliers.get(name));
             } else {
-                addToArgList(args, null, p);
+                arguments[i] = i < indexedCount ? indexedArguments.get(i) : null;
             }
-        });
+        }
+    }
 
-        result = format(args.toArray(), result, new FieldPosition(0));
-        return result.toString();
+
+    /**
+     * Releases the references to the arguments of the last call.
+     */
+    private void releaseArguments() {
+        Arrays.fill(arguments, null);
+        for (LazyArgument a : lazyArguments) {
+            if (a != null) {
+                a.reset(null, null);
+            }
+        }
     }
 
 
-    private void updateDateFormatTimeZone() {
-        final TimeZone tz = timeZone != null ? timeZone : TimeZone.getDefault();
+    private Object namedArgument(int idx, Supplier<?> supplier) {
+        if (supplier == null) {
+            return null;
+        } else if (segments != null || argumentsWithSubFormat[idx]) {
 
-        Arrays.asList(getFormats()).forEach(f -> {
-            if (f instanceof SimpleDateFormat && ((SimpleDateFormat) f).toPattern().endsWith("'Z'")) {
-                ((DateFormat) f).setTimeZone(TimeZone.getTimeZone("GMT"));
-            } else if (f instanceof DateFormat) {
-                ((DateFormat) f).setTimeZone(tz);
-            }
-        });
+            // all placeholders of simple patterns are rendered anyway
+            return supplier.get();
+        }
+
+        if (lazyArguments[idx] == null) {
+            lazyArguments[idx] = new LazyArgument();
+        }
+        lazyArguments[idx].reset(supplier, getLocale());
+
+        return lazyArguments[idx];
+    }
+
+
+    private void updateDateFormatTimeZone() {
+        NamedArgumentParser.updateDateFormatTimeZone(this, timeZone);
     }
 
 
@@ -288,10 +370,4 @@ public class MessageFormatNA extends MessageFormat {
         return nameToIndexMap;
     }
 
-
-    private void addToArgList(List<Object> argList, Object arg, int pos) {
-        ListUtil.fill(argList, pos + 1);
-        argList.set(pos, arg);
-    }
-
 }
@@ -0,0 +1,203 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.text.DateFormat;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * Pattern of a {@link MessageFormat} without sub-formats, split into literal chunks and argument references. Such
+ * patterns are rendered by concatenating the chunks and the rendered arguments into a buffer of the exact size, without
+ * the {@link MessageFormat} machinery. The result is the same as the result of {@link MessageFormat}.
+ *
+ * <p>Instances are immutable and may be shared between threads.</p>
+ */
+final class MessageSegments {
+
+    /** Literal chunks; {@code literals[i]} precedes the argument {@code arguments[i]}, the last chunk ends the text. */
+    private final String[] literals;
+
+    /** Argument index of each placeholder. */
+    private final int[] arguments;
+
+    /** Total length of the literal chunks. */
+    private final int literalLength;
+
+
+    private MessageSegments(String[] literals, int[] arguments) {
+        int length = 0;
+
+        this.literals = literals;
+        this.arguments = arguments;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+
+    /**
+     * Splits the pattern of the message format into segments.
+     *
+     * @param   format  Message format.
+     *
+     * @return  Segments, <code>null</code> if the format contains sub-formats.
+     */
+    static MessageSegments of(MessageFormat format) {
+        final String pattern;
+        final List<String> literals = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        final int[] arguments;
+        boolean inQuote = false;
+        int placeholder = 0;
+        int idx = 0;
+
+        for (Format f : format.getFormats()) {
+            if (f != null) {
+                return null;
+            }
+        }
+
+        // parse the canonical pattern, it contains placeholders like {0} only
+        pattern = format.toPattern();
+        arguments = new int[format.getFormats().length];
+        while (idx < pattern.length()) {
+            final char c = pattern.charAt(idx++);
+
+            if (c == '\'') {
+                if (idx < pattern.length() && pattern.charAt(idx) == '\'') {
+                    literal.append(c);
+                    idx++;
+                } else {
+                    inQuote = !inQuote;
+                }
+            } else if (c == '{' && !inQuote) {
+                int argumentIndex = 0;
+
+                while (pattern.charAt(idx) != '}') {
+                    argumentIndex = argumentIndex * 10 + Character.digit(pattern.charAt(idx++), 10);
+                }
+                idx++;
+                arguments[placeholder++] = argumentIndex;
+                literals.add(literal.toString());
+                literal.setLength(0);
+            } else {
+                literal.append(c);
+            }
+        }
+        literals.add(literal.toString());
+
+        return new MessageSegments(literals.toArray(new String[literals.size()]), arguments);
+    }
+
+
+    /**
+     * Returns the number of placeholders.
+     *
+     * @return  Number of placeholders.
+     */
+    int getPlaceholderCount() {
+        return arguments.length;
+    }
+
+
+    /**
+     * Renders the pattern.
+     *
+     * @param   args      Arguments by index. Placeholders whose index is not less than {@code args.length} are
+     *                    rendered as placeholder (e.g. {@code {3}}).
+     * @param   locale    Locale of the default number and date formats.
+     * @param   rendered  Buffer for the rendered arguments, at least as long as the number of placeholders.
+     *
+     * @return  Formatted text.
+     */
+    String format(Object[] args, Locale locale, String[] rendered) {
+        return appendTo(new StringBuilder(render(args, locale, rendered)), rendered).toString();
+    }
+
+
+    /**
+     * Renders the pattern and appends it to {@code out}.
+     *
+     * @param   out       Target of the formatted text.
+     * @param   args      Arguments by index. Placeholders whose index is not less than {@code args.length} are
+     *                    rendered as placeholder (e.g. {@code {3}}).
+     * @param   locale    Locale of the default number and date formats.
+     * @param   rendered  Buffer for the rendered arguments, at least as long as the number of placeholders.
+     *
+     * @return  {@code out}.
+     */
+    StringBuilder formatTo(StringBuilder out, Object[] args, Locale locale, String[] rendered) {
+        out.ensureCapacity(out.length() + render(args, locale, rendered));
+
+        return appendTo(out, rendered);
+    }
+
+
+    /**
+     * Renders the arguments of all placeholders.
+     *
+     * @param   args      Arguments by index.
+     * @param   locale    Locale of the default number and date formats.
+     * @param   rendered  Buffer that gets the rendered arguments.
+     *
+     * @return  Length of the formatted text.
+     */
+    private int render(Object[] args, Locale locale, String[] rendered) {
+        int length = literalLength;
+
+        for (int i = 0; i < arguments.length; i++) {
+            final int argumentIndex = arguments[i];
+
+            rendered[i] = argumentIndex < args.length ? render(args[argumentIndex], locale)
+                                                      : "{" + argumentIndex + "}";
+            length += rendered[i].length();
+        }
+
+        return length;
+    }
+
+
+    private StringBuilder appendTo(StringBuilder out, String[] rendered) {
+        for (int i = 0; i < arguments.length; i++) {
+            out.append(literals[i]).append(rendered[i]);
+            rendered[i] = null;
+        }
+
+        return out.append(literals[arguments.length]);
+    }
+
+
+    /**
+     * Renders an argument like {@link MessageFormat} renders arguments of placeholders without sub-format.
+     *
+     * @param   value   Argument.
+     * @param   locale  Locale of the default number and date formats.
+     *
+     * @return  Rendered argument.
+     */
+    static String render(Object value, Locale locale) {
+        final String result;
+
+        if (value == null) {
+            return "null";
+        } else if (value instanceof Number) {
+            return NumberFormat.getInstance(locale).format(value);
+        } else if (value instanceof Date) {
+            return DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale).format(value);
+        } else if (value instanceof String) {
+            return (String) value;
+        }
+
+        result = value.toString();
+
+        return result != null ? result : "null";
+    }
+
+}
@@ -0,0 +1,520 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.io.IOException;
+import java.text.FieldPosition;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.function.Supplier;
+
+
+/**
+ * Compiled pattern with named arguments, see {@link MessageFormatNA}. The pattern is parsed once, when the template is
+ * compiled. Instances are immutable and may be shared between threads; the arguments of a single call are collected
+ * by a {@link Binding}.
+ *
+ * <p>Example:</p>
+ *
+ * <pre>
+ *      MessageTemplate template = MessageTemplate.compile("Hej {name}, you are {year} years old");
+ *
+ *      template.bind()
+ *              .with("name", "Joe")
+ *              .with("year", 99)
+ *              .format()
+ * </pre>
+ *
+ * <p>returns {@code Hej Joe, you are 99 years old}. The arguments are formatted the same way as by
+ * {@link MessageFormatNA#format()}.</p>
+ */
+public final class MessageTemplate {
+
+    private final String pattern;
+
+    private final Locale locale;
+
+    private final TimeZone timeZone;
+
+    /** Parsed pattern, containing numeric indexes only. Never used directly if {@link #cloneFormat} is set. */
+    private final MessageFormat format;
+
+    /** <code>true</code> if the sub-formats have been replaced by thread safe formats. */
+    private final boolean threadSafeFormats;
+
+    /** <code>true</code> if the pattern contains sub-formats, which are not thread safe. */
+    private final boolean cloneFormat;
+
+    private final Map<String, Integer> nameToIndexMap;
+
+    /** Number of arguments: highest index of the pattern (including the named arguments) + 1. */
+    private final int argumentCount;
+
+    /** <code>true</code> for the arguments formatted by a sub-format, which are evaluated before formatting. */
+    private final boolean[] argumentsWithSubFormat;
+
+    /** Segments of patterns without sub-formats, rendered without {@link #format}; otherwise <code>null</code>. */
+    private final MessageSegments segments;
+
+
+    private MessageTemplate(String pattern, Locale locale, TimeZone timeZone, boolean threadSafeFormats) {
+        final Map<String, Integer> nameToIndex = new HashMap<>();
+        boolean subFormats = false;
+
+        this.pattern = pattern;
+        this.locale = locale;
+        this.timeZone = timeZone;
+        this.threadSafeFormats = threadSafeFormats;
+        this.format = new MessageFormat(NamedArgumentParser.namesToIndex(pattern, locale, nameToIndex), locale);
+        NamedArgumentParser.updateDateFormatTimeZone(format, timeZone);
+
+        for (Format f : format.getFormats()) {
+            subFormats |= f != null;
+        }
+        this.cloneFormat = subFormats && !threadSafeFormats;
+        this.nameToIndexMap = Collections.unmodifiableMap(nameToIndex);
+        this.argumentCount = NamedArgumentParser.evaluateMaxArgIndex(pattern, locale) + 1 + nameToIndex.size();
+        this.argumentsWithSubFormat = NamedArgumentParser.argumentsWithSubFormat(format, argumentCount);
+        this.segments = MessageSegments.of(format);
+        if (subFormats && threadSafeFormats) {
+            ThreadSafeFormats.replaceFormats(format);
+        }
+    }
+
+
+    /**
+     * Compiles the pattern using the default locale and the default time zone.
+     *
+     * @param   pattern  Pattern with named and/or indexed arguments.
+     *
+     * @return  Compiled template.
+     *
+     * @throws  IllegalArgumentException  {@code pattern} is <code>null</code> or invalid.
+     */
+    public static MessageTemplate compile(String pattern) throws IllegalArgumentException {
+        return compile(pattern, Locale.getDefault(Locale.Category.FORMAT), null);
+    }
+
+
+    /**
+     * Compiles the pattern using the default time zone.
+     *
+     * @param   pattern  Pattern with named and/or indexed arguments.
+     * @param   locale   Locale used to format the arguments.
+     *
+     * @return  Compiled template.
+     *
+     * @throws  IllegalArgumentException  {@code pattern} is <code>null</code> or invalid.
+     */
+    public static MessageTemplate compile(String pattern, Locale locale) throws IllegalArgumentException {
+        return compile(pattern, locale, null);
+    }
+
+
+    /**
+     * Compiles the pattern.
+     *
+     * @param   pattern   Pattern with named and/or indexed arguments.
+     * @param   locale    Locale used to format the arguments.
+     * @param   timeZone  Time zone of the date sub-formats, <code>null</code> for the default time zone. Date formats
+     *                    ending with {@code 'Z'} always use GMT.
+     *
+     * @return  Compiled template.
+     *
+     * @throws  IllegalArgumentException  {@code pattern} is <code>null</code> or invalid.
+     */
+    public static MessageTemplate compile(String pattern, Locale locale, TimeZone timeZone)
+            throws IllegalArgumentException {
+        return compile(pattern, locale, timeZone, false);
+    }
+
+
+    /**
+     * Compiles the pattern. If {@code threadSafeFormats} is set, the date and number sub-formats (e.g.
+     * {@code {when,date,dd.MM.yyyy}} or {@code {amount,number,#0.00}}) are replaced by thread safe formats: date
+     * patterns consisting of numeric fields are formatted by an immutable {@link java.time.format.DateTimeFormatter},
+     * all other sub-formats are cloned once per thread. So the template is not cloned per call, which pays off for
+     * templates that are formatted often by many threads. The texts are the same as without {@code threadSafeFormats}
+     * for all dates after the introduction of the Gregorian calendar (1582).
+     *
+     * @param   pattern            Pattern with named and/or indexed arguments.
+     * @param   locale             Locale used to format the arguments.
+     * @param   timeZone           Time zone of the date sub-formats, <code>null</code> for the default time zone. Date
+     *                             formats ending with {@code 'Z'} always use GMT.
+     * @param   threadSafeFormats  <code>true</code> to replace the sub-formats by thread safe formats.
+     *
+     * @return  Compiled template.
+     *
+     * @throws  IllegalArgumentException  {@code pattern} is <code>null</code> or invalid.
+     */
+    public static MessageTemplate compile(String pattern, Locale locale, TimeZone timeZone, boolean threadSafeFormats)
+            throws IllegalArgumentException {
+        if (pattern == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("pattern").get());
+        }
+
+        return new MessageTemplate(pattern, locale, timeZone, threadSafeFormats);
+    }
+
+
+    /**
+     * Returns the pattern the template has been compiled from.
+     *
+     * @return  Pattern.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+
+    /**
+     * Returns the locale used to format the arguments.
+     *
+     * @return  Locale.
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+
+    /**
+     * Returns the time zone of the date sub-formats.
+     *
+     * @return  Time zone, <code>null</code> for the default time zone.
+     */
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+
+    /**
+     * Returns whether the sub-formats have been replaced by thread safe formats.
+     *
+     * @return  <code>true</code> if the template has been compiled with thread safe formats.
+     *
+     * @see     #compile(String, Locale, TimeZone, boolean)
+     */
+    public boolean isThreadSafeFormats() {
+        return threadSafeFormats;
+    }
+
+
+    /**
+     * Returns the names of the named arguments and their indexes.
+     *
+     * @return  Unmodifiable map.
+     */
+    public Map<String, Integer> getNameToIndexMap() {
+        return nameToIndexMap;
+    }
+
+
+    /**
+     * Returns a new, empty binding to collect the arguments of one call.
+     *
+     * @return  New binding.
+     */
+    public Binding bind() {
+        return new Binding();
+    }
+
+
+    /**
+     * Formats the template with the given named arguments. Named arguments missing in the map are formatted as
+     * {@code null}.
+     *
+     * @param   namedArguments  Values of the named arguments.
+     *
+     * @return  Formatted text.
+     *
+     * @throws  IllegalArgumentException  {@code namedArguments} is <code>null</code> or a value doesn't fit its
+     *                                    sub-format.
+     */
+    public String format(Map<String, ?> namedArguments) throws IllegalArgumentException {
+        final Binding binding = new Binding();
+
+        if (namedArguments == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("namedArguments").get());
+        }
+
+        namedArguments.forEach(binding::with);
+
+        return binding.format();
+    }
+
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+
+    /**
+     * Formats the arguments. The format itself is not modified, so the template's format is used directly unless it
+     * contains sub-formats that are not thread safe.
+     *
+     * @param   args           Arguments by index.
+     * @param   out            Buffer that gets the formatted text.
+     * @param   fieldPosition  Field position required by {@link MessageFormat}.
+     *
+     * @return  {@code out}.
+     */
+    private StringBuffer format(Object[] args, StringBuffer out, FieldPosition fieldPosition) {
+        final MessageFormat f = cloneFormat ? (MessageFormat) format.clone() : format;
+
+        return f.format(args, out, fieldPosition);
+    }
+
+
+    /**
+     * Arguments of one call. A binding is not thread safe, but it is cheap to create: it holds the arguments only. A
+     * binding may be formatted several times (e.g. after changing some arguments); the buffers used for formatting
+     * are reused then.
+     */
+    public final class Binding {
+
+        private final Object[] values = new Object[argumentCount];
+
+        private final Supplier<?>[] suppliers = new Supplier<?>[argumentCount];
+
+        /** Highest index of the indexed arguments + 1. */
+        private int indexedCount;
+
+        private Object[] arguments;
+
+        private StringBuffer buffer;
+
+        private FieldPosition fieldPosition;
+
+        private LazyArgument[] lazyArguments;
+
+        private String[] renderedArguments;
+
+
+        private Binding() {
+        }
+
+
+        /**
+         * Sets the value of a named argument. Names not used by the pattern are ignored.
+         *
+         * @param   name   Name of the argument.
+         * @param   value  Value.
+         *
+         * @return  This binding.
+         */
+        public Binding with(String name, Object value) {
+            final Integer idx = nameToIndexMap.get(name);
+
+            if (idx != null) {
+                values[idx] = value;
+                suppliers[idx] = null;
+            }
+
+            return this;
+        }
+
+
+        /**
+         * Sets the supplier of a named argument. The supplier is called when the text is formatted, at most once per
+         * call. If the argument is used by placeholders without sub-format only, the supplier is called when such a
+         * placeholder is rendered; so it's not called at all if it's used in a branch of a choice format that isn't
+         * selected. Names not used by the pattern are ignored.
+         *
+         * @param   name      Name of the argument.
+         * @param   supplier  Supplier of the value.
+         *
+         * @return  This binding.
+         */
+        public Binding withSupplier(String name, Supplier<?> supplier) {
+            final Integer idx = nameToIndexMap.get(name);
+
+            if (idx != null) {
+                values[idx] = null;
+                suppliers[idx] = supplier;
+            }
+
+            return this;
+        }
+
+
+        /**
+         * Sets the value of an indexed argument. Indexes not used by the pattern are ignored.
+         *
+         * @param   index  Index of the argument.
+         * @param   value  Value.
+         *
+         * @return  This binding.
+         */
+        public Binding with(int index, Object value) {
+            if (index >= 0 && index < argumentCount - nameToIndexMap.size()) {
+                values[index] = value;
+                indexedCount = Math.max(indexedCount, index + 1);
+            }
+
+            return this;
+        }
+
+
+        /**
+         * Formats the template with the arguments of this binding. The suppliers are called at most once per call.
+         * Missing named arguments are formatted as {@code null}, missing indexed arguments as their placeholder (e.g.
+         * {@code {1}}) if they are not followed by a named or indexed argument.
+         *
+         * @return  Formatted text.
+         *
+         * @throws  IllegalArgumentException  A value doesn't fit its sub-format.
+         */
+        public String format() throws IllegalArgumentException {
+            if (segments != null) {
+                prepareArguments();
+                try {
+                    return segments.format(arguments, locale, renderedArguments);
+                } finally {
+                    releaseArguments();
+                }
+            }
+
+            return formatToBuffer().toString();
+        }
+
+
+        /**
+         * Same as {@link #format()}. So a binding can be passed as lazy message to a logger (e.g. by
+         * {@link ch.syseca.sstl.util.misc.Severity#log(org.slf4j.Logger, Object)}), that formats it only if the
+         * message is written.
+         *
+         * @return  Formatted text.
+         *
+         * @throws  IllegalArgumentException  A value doesn't fit its sub-format.
+         */
+        @Override
+        public String toString() throws IllegalArgumentException {
+            return format();
+        }
+
+
+        /**
+         * Same as {@link #format()}, but appends the text to {@code out}.
+         *
+         * @param   out  Target of the formatted text.
+         *
+         * @return  {@code out}.
+         *
+         * @throws  IllegalArgumentException  A value doesn't fit its sub-format.
+         */
+        public StringBuilder formatTo(StringBuilder out) throws IllegalArgumentException {
+            if (segments != null) {
+                prepareArguments();
+                try {
+                    return segments.formatTo(out, arguments, locale, renderedArguments);
+                } finally {
+                    releaseArguments();
+                }
+            }
+
+            return out.append(formatToBuffer());
+        }
+
+
+        /**
+         * Same as {@link #format()}, but appends the text to {@code out}.
+         *
+         * @param   out  Target of the formatted text.
+         *
+         * @return  {@code out}.
+         *
+         * @throws  IllegalArgumentException  A value doesn't fit its sub-format.
+         * @throws  IOException               Thrown by {@code out}.
+         */
+        public Appendable formatTo(Appendable out) throws IllegalArgumentException, IOException {
+            if (out instanceof StringBuilder) {
+                return formatTo((StringBuilder) out);
+            }
+
+            return out.append(segments != null ? format() : formatToBuffer());
+        }
+
+
+        /**
+         * Formats the arguments by the {@link MessageFormat} into the reused buffer.
+         *
+         * @return  Buffer containing the formatted text.
+         */
+        private StringBuffer formatToBuffer() {
+            prepareArguments();
+            if (buffer == null) {
+                buffer = new StringBuffer();
+                fieldPosition = new FieldPosition(0);
+            }
+
+            buffer.setLength(0);
+            try {
+                return MessageTemplate.this.format(arguments, buffer, fieldPosition);
+            } finally {
+                releaseArguments();
+            }
+        }
+
+
+        /**
+         * Fills the reused argument array. Its length defines, which placeholders of missing arguments are rendered as
+         * placeholder.
+         */
+        private void prepareArguments() {
+            final int count = nameToIndexMap.isEmpty() ? indexedCount : argumentCount;
+
+            if (arguments == null || arguments.length != count) {
+                arguments = new Object[count];
+            }
+            if (segments != null && renderedArguments == null) {
+                renderedArguments = new String[segments.getPlaceholderCount()];
+            }
+
+            for (int i = 0; i < count; i++) {
+                arguments[i] = suppliers[i] != null ? suppliedArgument(i) : values[i];
+            }
+        }
+
+
+        /**
+         * Releases the references to the arguments of the last call.
+         */
+        private void releaseArguments() {
+            Arrays.fill(arguments, null);
+            if (lazyArguments != null) {
+                for (LazyArgument a : lazyArguments) {
+                    if (a != null) {
+                        a.reset(null, null);
+                    }
+                }
+            }
+        }
+
+
+        private Object suppliedArgument(int idx) {
+
+            // all placeholders of simple patterns are rendered anyway
+            if (segments != null || argumentsWithSubFormat[idx]) {
+                return suppliers[idx].get();
+            }
+
+            if (lazyArguments == null) {
+                lazyArguments = new LazyArgument[argumentCount];
+            }
+            if (lazyArguments[idx] == null) {
+                lazyArguments[idx] = new LazyArgument();
+            }
+            lazyArguments[idx].reset(suppliers[idx], locale);
+
+            return lazyArguments[idx];
+        }
+
+    }
+
+}
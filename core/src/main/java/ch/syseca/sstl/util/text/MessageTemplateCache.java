@@ -0,0 +1,278 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Bounded cache of compiled {@link MessageTemplate}s. The cache is thread safe; lookups of cached templates don't
+ * lock. If the cache is full, a template that hasn't been used recently is removed (CLOCK algorithm, an approximation
+ * of least recently used): the keys are kept in a ring in the order they were added, and every template has a
+ * reference bit that is set when it's used. A hand moves around the ring, clears the bits it passes and removes the
+ * first template without the bit. The hand keeps its position between evictions, so every template gets a full turn
+ * of the hand to be used again.
+ *
+ * <p>The patterns are compiled outside of any lock. Only adding a compiled template to the cache is synchronized.</p>
+ *
+ * <p>The numbers of hits, misses and evictions are counted for monitoring.</p>
+ *
+ * @see  MessageFormatNA#cached(String, Locale, TimeZone)
+ */
+public final class MessageTemplateCache {
+
+    private final int maximumSize;
+
+    private final ConcurrentHashMap<Key, Entry> templates = new ConcurrentHashMap<>();
+
+    /** Keys of the cached templates in the order of the CLOCK ring, grows up to the maximum size. */
+    private Key[] ring = new Key[0];
+
+    /** Number of used positions in {@link #ring}. */
+    private int ringSize;
+
+    /** Position of the CLOCK hand in {@link #ring}. */
+    private int hand;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param   maximumSize  Maximal number of templates in the cache.
+     *
+     * @throws  IllegalArgumentException  {@code maximumSize} is less than 1.
+     */
+    public MessageTemplateCache(int maximumSize) throws IllegalArgumentException {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1: " + maximumSize);
+        }
+
+        this.maximumSize = maximumSize;
+    }
+
+
+    /**
+     * Returns the compiled template for the pattern. The pattern is compiled if it's not in the cache. The templates
+     * are identified by the pattern, the locale and the id of the time zone.
+     *
+     * @param   pattern   Pattern with named and/or indexed arguments.
+     * @param   locale    Locale used to format the arguments.
+     * @param   timeZone  Time zone of the date sub-formats, <code>null</code> for the default time zone (evaluated when
+     *                    the pattern is compiled).
+     *
+     * @return  Compiled template.
+     *
+     * @throws  IllegalArgumentException  {@code pattern} is <code>null</code> or invalid.
+     */
+    public MessageTemplate get(String pattern, Locale locale, TimeZone timeZone) throws IllegalArgumentException {
+        final Key key;
+        final Entry cached;
+        final Entry entry;
+        final Entry other;
+
+        if (pattern == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("pattern").get());
+        }
+
+        key = new Key(pattern, locale, timeZone != null ? timeZone.getID() : null);
+        cached = templates.get(key);
+        if (cached != null) {
+            hitCount.increment();
+
+            // write only if necessary, the bit is read by the eviction only
+            if (!cached.referenced) {
+                cached.referenced = true;
+            }
+            return cached.template;
+        }
+        missCount.increment();
+
+        entry = new Entry(MessageTemplate.compile(pattern, locale, timeZone));
+        synchronized (this) {
+            other = templates.get(key);
+            if (other != null) {
+
+                // compiled by another thread in the meantime
+                return other.template;
+            }
+
+            add(key, entry);
+        }
+
+        return entry.template;
+    }
+
+
+    /**
+     * Removes all templates from the cache. The counters are not reset.
+     */
+    public synchronized void clear() {
+        templates.clear();
+        ring = new Key[0];
+        ringSize = 0;
+        hand = 0;
+    }
+
+
+    /**
+     * Returns the number of templates in the cache.
+     *
+     * @return  Number of templates.
+     */
+    public int size() {
+        return templates.size();
+    }
+
+
+    /**
+     * Returns the maximal number of templates in the cache.
+     *
+     * @return  Maximal number of templates.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+
+    /**
+     * Returns the number of calls of {@link #get(String, Locale, TimeZone)} that found the template in the cache.
+     *
+     * @return  Number of hits.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+
+    /**
+     * Returns the number of calls of {@link #get(String, Locale, TimeZone)} that had to compile the pattern.
+     *
+     * @return  Number of misses.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+
+    /**
+     * Returns the number of templates that have been removed because the cache was full.
+     *
+     * @return  Number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+
+    @Override
+    public String toString() {
+        return "MessageTemplateCache[size=" + templates.size() + ", maximumSize=" + maximumSize + ", hits="
+                + hitCount.sum() + ", misses=" + missCount.sum() + ", evictions=" + evictionCount.sum() + "]";
+    }
+
+
+    /**
+     * Adds the template to the ring. If the ring is full, the hand replaces the first template whose reference bit
+     * isn't set and clears the bits of the templates it passes.
+     *
+     * @param  key    Key of the new template.
+     * @param  entry  New template.
+     */
+    private void add(Key key, Entry entry) {
+        if (ringSize < maximumSize) {
+            if (ringSize == ring.length) {
+                ring = Arrays.copyOf(ring, (int) Math.min(maximumSize, Math.max(16, ring.length * 2L)));
+            }
+            ring[ringSize++] = key;
+        } else {
+            Entry e = templates.get(ring[hand]);
+
+            while (e.referenced) {
+                e.referenced = false;
+                hand = (hand + 1) % ringSize;
+                e = templates.get(ring[hand]);
+            }
+
+            templates.remove(ring[hand]);
+            evictionCount.increment();
+            ring[hand] = key;
+            hand = (hand + 1) % ringSize;
+        }
+
+        templates.put(key, entry);
+    }
+
+
+    /**
+     * Cached template with its reference bit.
+     */
+    private static final class Entry {
+
+        private final MessageTemplate template;
+
+        /** Set when the template is used, cleared by the eviction. */
+        private volatile boolean referenced;
+
+
+        Entry(MessageTemplate template) {
+            this.template = template;
+        }
+
+    }
+
+
+    /**
+     * Key of a cached template.
+     */
+    private static final class Key {
+
+        private final String pattern;
+
+        private final Locale locale;
+
+        private final String timeZoneId;
+
+        private final int hashCode;
+
+
+        Key(String pattern, Locale locale, String timeZoneId) {
+            this.pattern = pattern;
+            this.locale = locale;
+            this.timeZoneId = timeZoneId;
+            this.hashCode = Objects.hash(pattern, locale, timeZoneId);
+        }
+
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+
+        @Override
+        public boolean equals(Object obj) {
+            final Key other;
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            other = (Key) obj;
+
+            return hashCode == other.hashCode && pattern.equals(other.pattern) && Objects.equals(locale, other.locale)
+                    && Objects.equals(timeZoneId, other.timeZoneId);
+        }
+
+    }
+
+}
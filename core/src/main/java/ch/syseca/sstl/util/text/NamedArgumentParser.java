@@ -0,0 +1,324 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.text.ChoiceFormat;
+import java.text.DateFormat;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import org.apache.commons.lang3.CharUtils;
+import org.apache.commons.lang3.mutable.MutableInt;
+
+
+/**
+ * Converts patterns with named arguments (e.g. {@code Hej {name}}) to patterns that {@link MessageFormat} understands
+ * (e.g. {@code Hej {0}}). The named arguments get the indexes following the highest numeric index of the pattern.
+ * Names may be used within the branches of choice formats as well (e.g. {@code {n,choice,0#none|1#{name}}}).
+ * Used by {@link MessageFormatNA} and {@link MessageTemplate}.
+ */
+final class NamedArgumentParser {
+
+    @FunctionalInterface
+    interface ArgumentNameConverter {
+
+        String readAndConvert(String pattern, ParsePosition p);
+
+    }
+
+
+    /**
+     * Class is not instantiated.
+     */
+    private NamedArgumentParser() {
+    }
+
+
+    /**
+     * Replaces the named arguments of the pattern by indexes.
+     *
+     * @param   pattern      Pattern with named arguments.
+     * @param   locale       Locale used to parse the numeric indexes.
+     * @param   nameToIndex  Map that gets the index of every named argument. The map is cleared first.
+     *
+     * @return  Pattern containing numeric indexes only.
+     */
+    static String namesToIndex(String pattern, Locale locale, Map<String, Integer> nameToIndex) {
+        final MutableInt namedArgIdx = new MutableInt(evaluateMaxArgIndex(pattern, locale));
+        String indexOnlyPattern;
+
+        nameToIndex.clear();
+        indexOnlyPattern = rebuildPattern(pattern, (t, p) -> {
+            if (CharUtils.isAsciiAlpha(t.charAt(p.getIndex()))) {
+                int argIdx;
+                String argName = parseName(t, p);
+
+                argIdx = nameToIndex.computeIfAbsent(argName, n -> {
+                    namedArgIdx.increment();
+                    return namedArgIdx.getValue();
+                });
+                return Integer.toString(argIdx);
+            } else {
+                return null;
+            }
+        });
+
+        return indexOnlyPattern;
+    }
+
+
+    /**
+     * Returns the highest numeric index of the pattern.
+     *
+     * @param   pattern  Pattern.
+     * @param   locale   Locale used to parse the numeric indexes.
+     *
+     * @return  Highest index, {@code -1} if the pattern contains no numeric indexes.
+     */
+    static int evaluateMaxArgIndex(String pattern, Locale locale) {
+        MutableInt result = new MutableInt(-1);
+
+        rebuildPattern(pattern, (t, p) -> {
+            if (CharUtils.isAsciiNumeric((t.charAt(p.getIndex())))) {
+                int v = parseInt(t, p, locale);
+                result.setValue(Math.max(result.getValue(), v));
+                return Integer.toString(v);
+            } else {
+                return null;
+            }
+        });
+
+        return result.intValue();
+    }
+
+
+    /**
+     * Sets the time zone of the date sub-formats. Date formats ending with {@code 'Z'} always use GMT.
+     *
+     * @param  format    Message format.
+     * @param  timeZone  Time zone, <code>null</code> for the default time zone.
+     */
+    static void updateDateFormatTimeZone(MessageFormat format, TimeZone timeZone) {
+        final TimeZone tz = timeZone != null ? timeZone : TimeZone.getDefault();
+
+        for (Format f : format.getFormats()) {
+            if (f instanceof SimpleDateFormat && ((SimpleDateFormat) f).toPattern().endsWith("'Z'")) {
+                ((DateFormat) f).setTimeZone(TimeZone.getTimeZone("GMT"));
+            } else if (f instanceof DateFormat) {
+                ((DateFormat) f).setTimeZone(tz);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the arguments that are formatted by a sub-format (e.g. {@code {0,number,0000}}), including the arguments
+     * used within the branches of choice formats. All other arguments are rendered by {@link Object#toString()} or
+     * the default number and date formats of {@link MessageFormat}.
+     *
+     * @param   format         Message format.
+     * @param   argumentCount  Number of arguments.
+     *
+     * @return  Flag per argument index, <code>true</code> if the argument is formatted by a sub-format.
+     */
+    static boolean[] argumentsWithSubFormat(MessageFormat format, int argumentCount) {
+        final boolean[] result = new boolean[argumentCount];
+
+        collectArgumentsWithSubFormat(format, result);
+
+        return result;
+    }
+
+
+    private static void collectArgumentsWithSubFormat(MessageFormat format, boolean[] result) {
+        final Format[] formats = format.getFormats();
+        final int[] argumentIndexes = argumentIndexes(format.toPattern(), formats.length);
+
+        for (int i = 0; i < formats.length; i++) {
+            if (formats[i] != null && argumentIndexes[i] < result.length) {
+                result[argumentIndexes[i]] = true;
+            }
+            if (formats[i] instanceof ChoiceFormat) {
+
+                // MessageFormat formats choices containing a '{' as message format with the same arguments
+                for (Object choice : ((ChoiceFormat) formats[i]).getFormats()) {
+                    if (choice.toString().indexOf('{') >= 0) {
+                        try {
+                            collectArgumentsWithSubFormat(new MessageFormat(choice.toString(), format.getLocale()),
+                                    result);
+                        } catch (IllegalArgumentException e) {
+                            // invalid choice, fails when it is formatted
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the argument indexes of the placeholders of a pattern as returned by {@link MessageFormat#toPattern()}.
+     *
+     * @param   pattern  Pattern.
+     * @param   count    Number of placeholders.
+     *
+     * @return  Argument index per placeholder.
+     */
+    private static int[] argumentIndexes(String pattern, int count) {
+        final int[] result = new int[count];
+        boolean inQuote = false;
+        int placeholder = 0;
+        int idx = 0;
+
+        while (placeholder < count && idx < pattern.length()) {
+            final char c = pattern.charAt(idx++);
+
+            if (c == '\'') {
+                inQuote = !inQuote;
+            } else if (c == '{' && !inQuote) {
+                int argumentIndex = 0;
+                int braceCount = 0;
+                boolean inElementQuote = false;
+
+                while (Character.isDigit(pattern.charAt(idx))) {
+                    argumentIndex = argumentIndex * 10 + Character.digit(pattern.charAt(idx++), 10);
+                }
+                result[placeholder++] = argumentIndex;
+
+                // skip the format type and style
+                while (idx < pattern.length()) {
+                    final char e = pattern.charAt(idx++);
+
+                    if (inElementQuote) {
+                        inElementQuote = e != '\'';
+                    } else if (e == '\'') {
+                        inElementQuote = true;
+                    } else if (e == '{') {
+                        braceCount++;
+                    } else if (e == '}') {
+                        if (braceCount == 0) {
+                            break;
+                        }
+                        braceCount--;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Copies the pattern and lets {@code argNameConverter} replace the text at the start of every placeholder. Names
+     * are detected in the placeholders of the pattern and in the placeholders within the branches of choice formats,
+     * but not within the style of other formats (e.g. {@code {0,date,'{'dd'}'}}). Single quotes are tracked within
+     * format elements as well, so quoted braces are never taken as placeholders.
+     *
+     * @param   pattern           Pattern.
+     * @param   argNameConverter  Reads the name or index at the given position.
+     *
+     * @return  Rebuilt pattern.
+     */
+    private static String rebuildPattern(String pattern, ArgumentNameConverter argNameConverter) {
+        final StringBuilder indexedPattern = new StringBuilder(pattern.length());
+        int[] elementStart = new int[4];
+        int idx = 0;
+        int braceCount = 0;
+        boolean inQuote = false;
+        boolean checkForArgName = false;
+
+        while (idx < pattern.length()) {
+            char c = pattern.charAt(idx);
+
+            if (checkForArgName) {
+                ParsePosition p = new ParsePosition(idx);
+                String argName;
+
+                checkForArgName = false;
+                argName = argNameConverter.readAndConvert(pattern, p);
+                if (p.getIndex() > idx) {
+                    idx = p.getIndex();
+                    indexedPattern.append(argName);
+                    continue;
+                }
+            }
+
+            switch (c) {
+                case '{':
+                    if (!inQuote) {
+
+                        // placeholders within the branches of a choice format may use names too
+                        checkForArgName = braceCount == 0 || isChoiceElement(pattern, elementStart[braceCount - 1]);
+                        if (braceCount == elementStart.length) {
+                            elementStart = Arrays.copyOf(elementStart, braceCount * 2);
+                        }
+                        elementStart[braceCount++] = idx + 1;
+                    }
+                    break;
+
+                case '}':
+                    if (!inQuote && braceCount > 0) {
+                        braceCount--;
+                    }
+                    break;
+
+                case '\'':
+                    inQuote = !inQuote;
+                    break;
+
+                default:
+                    break;
+            }
+            indexedPattern.append(c);
+            idx++;
+        }
+
+        return indexedPattern.toString();
+    }
+
+
+    /**
+     * Tests if the format element starting at {@code start} (after the opening brace) is a choice format.
+     *
+     * @param   pattern  Pattern.
+     * @param   start    Start of the format element.
+     *
+     * @return  <code>true</code> if the format type of the element is {@code choice}.
+     */
+    private static boolean isChoiceElement(String pattern, int start) {
+        final int typeStart = pattern.indexOf(',', start) + 1;
+        final int typeEnd = typeStart > 0 ? pattern.indexOf(',', typeStart) : -1;
+
+        return typeEnd > 0 && "choice".equalsIgnoreCase(pattern.substring(typeStart, typeEnd).trim());
+    }
+
+
+    private static int parseInt(String text, ParsePosition p, Locale locale) {
+        return NumberFormat.getIntegerInstance(locale)
+                .parse(text, p)
+                .intValue();
+    }
+
+
+    private static String parseName(String text, ParsePosition p) {
+        final int startPos = p.getIndex();
+
+        while (p.getIndex() < text.length()) {
+            char c = text.charAt(p.getIndex());
+
+            if (!CharUtils.isAsciiAlpha(c)) {
+                break;
+            }
+            p.setIndex(p.getIndex() + 1);
+        }
+
+        return text.substring(startPos, p.getIndex());
+    }
+
+}
@@ -1,6 +1,8 @@
 package ch.syseca.sstl.util.text;
 
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.Properties;
 import java.util.TreeMap;
@@ -8,6 +10,9 @@ import java.util.TreeMap;
 
 public class PropertiesFormat extends AbstractPropertiesFormat<Properties> {
 
+    private static final Comparator<Map.Entry<?, ?>> KEY_ORDER =
+        (e1, e2) -> ((String) e1.getKey()).compareTo((String) e2.getKey());
+
     @Override
     protected Properties createNewPropertySet() {
         return new Properties();
@@ -19,4 +24,24 @@ public class PropertiesFormat extends AbstractPropertiesFormat<Properties> {
         return new TreeMap(source);
     }
 
+
+    /**
+     * Gibt die Properties nach Namen sortiert zur&uuml;ck, ohne sie wie {@link #convertToExportPropertySet(Properties)} in
+     * eine neue Map zu kopieren. Es wird jede Map mit String Namen unterst&uuml;tzt. Subklassen verwenden
+     * {@link #convertToExportPropertySet(Properties)}, damit sie die Properties z.B. filtern k&ouml;nnen.
+     */
+    @Override
+    protected Map.Entry<?, ?>[] exportEntries(Map<?, ?> source) {
+        final Map.Entry<?, ?>[] result;
+
+        if (getClass() != PropertiesFormat.class) {
+            return super.exportEntries(source);
+        }
+
+        result = source.entrySet().toArray(new Map.Entry<?, ?>[0]);
+        Arrays.sort(result, KEY_ORDER);
+
+        return result;
+    }
+
 }
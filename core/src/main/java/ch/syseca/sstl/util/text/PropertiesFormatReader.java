@@ -0,0 +1,290 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.text.ParseException;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import org.apache.commons.lang3.StringUtils;
+
+
+/**
+ * Liest Properties im Format von {@link AbstractPropertiesFormat} ({@code name1=value1;name2=value2...}) aus einem
+ * {@link Readable} (z.B. {@link java.io.Reader} oder {@link CharBuffer}). Die Properties werden einzeln gelesen, es
+ * wird nie der ganze Text im Speicher gehalten: Der Speicherbedarf ist durch die Puffergr&ouml;sse und das l&auml;ngste
+ * Property beschr&auml;nkt.
+ *
+ * <p>Die Properties werden gleich dekodiert wie durch {@link AbstractPropertiesFormat#parseObject(String,
+ * java.text.ParsePosition)}: Verdoppelte Spezialzeichen ('=' und ';') werden als einfaches Zeichen gelesen, Namen und
+ * Werte werden getrimmt. Im Unterschied zu {@link AbstractPropertiesFormat} sind bei einem Formatfehler die
+ * vorangehenden Properties bereits gelesen.</p>
+ *
+ * <p>Beispiel:</p>
+ *
+ * <pre>
+ *     try (PropertiesFormatReader r = new PropertiesFormatReader(reader)) {
+ *         while (r.next()) {
+ *             process(r.getKey(), r.getValue());
+ *         }
+ *     }
+ * </pre>
+ *
+ * <p>Instanzen sind nicht thread safe.</p>
+ *
+ * @see  PropertiesFormatWriter
+ */
+public final class PropertiesFormatReader implements Closeable {
+
+    /** Default Gr&ouml;sse des Puffers. */
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Readable source;
+
+    /** Gelesene, noch nicht verarbeitete Zeichen (zwischen position und limit). */
+    private final CharBuffer buffer;
+
+    private final StringBuilder text = new StringBuilder();
+
+    private boolean endOfSource;
+
+    /** Anzahl der verarbeiteten Zeichen. */
+    private long position;
+
+    private String key;
+
+    private String value;
+
+
+    /**
+     * Erstellt einen neuen Reader.
+     *
+     * @param   source  Quelle der Properties. Ein {@link CharBuffer} wird direkt (ohne Kopie) gelesen,
+     *                  seine Position wird dabei verschoben.
+     *
+     * @throws  IllegalArgumentException  {@code source} ist <code>null</code>.
+     */
+    public PropertiesFormatReader(Readable source) throws IllegalArgumentException {
+        this(source, DEFAULT_BUFFER_SIZE);
+    }
+
+
+    /**
+     * Erstellt einen neuen Reader.
+     *
+     * @param   source      Quelle der Properties. Ein {@link CharBuffer} wird direkt (ohne Kopie) gelesen.
+     * @param   bufferSize  Gr&ouml;sse des Puffers (mindestens 2 Zeichen).
+     *
+     * @throws  IllegalArgumentException  {@code source} ist <code>null</code> oder {@code bufferSize} ist kleiner als 2.
+     */
+    public PropertiesFormatReader(Readable source, int bufferSize) throws IllegalArgumentException {
+        if (source == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("source").get());
+        } else if (bufferSize < 2) {
+            throw new IllegalArgumentException("bufferSize must be at least 2: " + bufferSize);
+        }
+
+        this.source = source;
+        if (source instanceof CharBuffer) {
+            this.buffer = (CharBuffer) source;
+            this.endOfSource = true;
+        } else {
+            this.buffer = CharBuffer.allocate(bufferSize);
+            this.buffer.flip();
+        }
+    }
+
+
+    /**
+     * Liest das n&auml;chste Property. Name und Wert sind danach &uuml;ber {@link #getKey()} und {@link #getValue()}
+     * verf&uuml;gbar.
+     *
+     * @return  <code>true</code>, wenn ein Property gelesen wurde, <code>false</code> wenn keine weiteren Properties
+     *          vorhanden sind.
+     *
+     * @throws  IOException     Fehler beim Lesen der Quelle.
+     * @throws  ParseException  Formatfehler; {@link ParseException#getErrorOffset()} ist die Position des Fehlers
+     *                          innerhalb der Quelle.
+     */
+    public boolean next() throws IOException, ParseException {
+        final String k;
+        String v = "";
+
+        key = null;
+        value = null;
+        if (peek(0) < 0) {
+            return false;
+        }
+
+        k = decode(AbstractPropertiesFormat.KEY_VALUE_SEPARATOR);
+        if (StringUtils.isBlank(k)) {
+            if (peek(0) < 0) {
+
+                // keine weiteren Daten
+                return false;
+            }
+            throw new ParseException("Property name is missing", (int) Math.min(position, Integer.MAX_VALUE));
+        }
+
+        if (peek(0) >= 0) {
+            v = decode(AbstractPropertiesFormat.PROPERTY_SEPARATOR);
+        }
+
+        key = PropertyKeyPool.getShared().intern(k.trim());
+        value = v.trim();
+
+        return true;
+    }
+
+
+    /**
+     * Gibt den Namen des zuletzt mit {@link #next()} gelesenen Properties zur&uuml;ck.
+     *
+     * @return  Name, <code>null</code> wenn kein Property gelesen wurde.
+     */
+    public String getKey() {
+        return key;
+    }
+
+
+    /**
+     * Gibt den Wert des zuletzt mit {@link #next()} gelesenen Properties zur&uuml;ck.
+     *
+     * @return  Wert (nie <code>null</code>, wenn ein Property gelesen wurde).
+     */
+    public String getValue() {
+        return value;
+    }
+
+
+    /**
+     * Gibt die Anzahl der bisher verarbeiteten Zeichen zur&uuml;ck.
+     *
+     * @return  Position innerhalb der Quelle.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+
+    /**
+     * Liest alle weiteren Properties und &uuml;bergibt sie dem Consumer.
+     *
+     * @param   consumer  Empf&auml;nger der Namen und Werte.
+     *
+     * @throws  IOException     Fehler beim Lesen der Quelle.
+     * @throws  ParseException  Formatfehler.
+     */
+    public void readAll(BiConsumer<? super String, ? super String> consumer) throws IOException, ParseException {
+        while (next()) {
+            consumer.accept(key, value);
+        }
+    }
+
+
+    /**
+     * Liest alle weiteren Properties in die Map.
+     *
+     * @param   <M>     Typ der Map.
+     * @param   target  Map, der die Properties hinzugef&uuml;gt werden.
+     *
+     * @return  {@code target}.
+     *
+     * @throws  IOException     Fehler beim Lesen der Quelle.
+     * @throws  ParseException  Formatfehler.
+     */
+    public <M extends Map<? super String, ? super String>> M readInto(M target) throws IOException, ParseException {
+        readAll(target::put);
+
+        return target;
+    }
+
+
+    /**
+     * Schliesst die Quelle, falls sie {@link Closeable} ist.
+     *
+     * @throws  IOException  Fehler beim Schliessen.
+     */
+    @Override
+    public void close() throws IOException {
+        if (source instanceof Closeable) {
+            ((Closeable) source).close();
+        }
+    }
+
+
+    /**
+     * Liest den n&auml;chsten Namen oder Wert bis zum Separator und dekodiert ihn.
+     *
+     * @param   separator  Erwartetes Spezialzeichen.
+     *
+     * @return  Dekodierter Text.
+     *
+     * @throws  IOException     Fehler beim Lesen der Quelle.
+     * @throws  ParseException  Das erste nicht verdoppelte Spezialzeichen ist ungleich {@code separator}.
+     */
+    private String decode(char separator) throws IOException, ParseException {
+        text.setLength(0);
+
+        while (true) {
+            final int c = peek(0);
+
+            if (c < 0) {
+                break;
+            } else if (c != AbstractPropertiesFormat.KEY_VALUE_SEPARATOR
+                    && c != AbstractPropertiesFormat.PROPERTY_SEPARATOR) {
+
+                // normales Zeichen
+                text.append((char) c);
+                skip(1);
+            } else if (peek(1) == c) {
+
+                // char insertion
+                text.append((char) c);
+                skip(2);
+            } else if (c == separator) {
+
+                // Separator gefunden
+                skip(1);
+                break;
+            } else {
+                throw new ParseException("Unexpected '" + (char) c + "'", (int) Math.min(position, Integer.MAX_VALUE));
+            }
+        }
+
+        return text.toString();
+    }
+
+
+    /**
+     * Gibt das Zeichen an der Position {@code offset} relativ zur aktuellen Position zur&uuml;ck, ohne es zu lesen.
+     *
+     * @param   offset  0 oder 1.
+     *
+     * @return  Zeichen, -1 am Ende der Quelle.
+     *
+     * @throws  IOException  Fehler beim Lesen der Quelle.
+     */
+    private int peek(int offset) throws IOException {
+        while (buffer.remaining() <= offset && !endOfSource) {
+            buffer.compact();
+            try {
+                if (source.read(buffer) < 0) {
+                    endOfSource = true;
+                }
+            } finally {
+                buffer.flip();
+            }
+        }
+
+        return buffer.remaining() > offset ? buffer.get(buffer.position() + offset) : -1;
+    }
+
+
+    private void skip(int count) {
+        buffer.position(buffer.position() + count);
+        position += count;
+    }
+
+}
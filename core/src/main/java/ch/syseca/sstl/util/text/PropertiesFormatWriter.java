@@ -0,0 +1,142 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Map;
+
+
+/**
+ * Schreibt Properties im Format von {@link AbstractPropertiesFormat} ({@code name1=value1;name2=value2...}) in ein
+ * {@link Appendable} (z.B. {@link java.io.Writer} oder {@link StringBuilder}). Die Properties werden einzeln
+ * geschrieben, der ganze Text wird nie im Speicher gehalten. Die Spezialzeichen '=' und ';' werden gleich kodiert wie
+ * durch {@link AbstractPropertiesFormat#format(Object)} (<i>char insertion</i>).
+ *
+ * <p>Instanzen sind nicht thread safe.</p>
+ *
+ * @see  PropertiesFormatReader
+ */
+public final class PropertiesFormatWriter implements Closeable, Flushable {
+
+    private final Appendable out;
+
+
+    /**
+     * Erstellt einen neuen Writer.
+     *
+     * @param   out  Ziel der Properties.
+     *
+     * @throws  IllegalArgumentException  {@code out} ist <code>null</code>.
+     */
+    public PropertiesFormatWriter(Appendable out) throws IllegalArgumentException {
+        if (out == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("out").get());
+        }
+
+        this.out = out;
+    }
+
+
+    /**
+     * Schreibt ein Property.
+     *
+     * @param   key    Name des Properties.
+     * @param   value  Wert, <code>null</code> wird als leerer Wert geschrieben.
+     *
+     * @return  {@code this}.
+     *
+     * @throws  IOException               Fehler beim Schreiben.
+     * @throws  IllegalArgumentException  {@code key} ist <code>null</code>.
+     */
+    public PropertiesFormatWriter write(String key, String value) throws IOException, IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("key").get());
+        }
+
+        encode(out, key);
+        out.append(AbstractPropertiesFormat.KEY_VALUE_SEPARATOR);
+        if (value != null) {
+            encode(out, value);
+        }
+        out.append(AbstractPropertiesFormat.PROPERTY_SEPARATOR);
+
+        return this;
+    }
+
+
+    /**
+     * Schreibt alle Properties der Map in der Reihenfolge ihrer Iteration.
+     *
+     * @param   properties  Properties.
+     *
+     * @return  {@code this}.
+     *
+     * @throws  IOException               Fehler beim Schreiben.
+     * @throws  IllegalArgumentException  {@code properties} ist <code>null</code> oder enth&auml;lt den Namen
+     *                                    <code>null</code>.
+     */
+    public PropertiesFormatWriter writeAll(Map<String, String> properties) throws IOException,
+        IllegalArgumentException {
+        if (properties == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("properties").get());
+        }
+
+        for (Map.Entry<String, String> e : properties.entrySet()) {
+            write(e.getKey(), e.getValue());
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Leert das Ziel, falls es {@link Flushable} ist.
+     *
+     * @throws  IOException  Fehler beim Schreiben.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+        }
+    }
+
+
+    /**
+     * Schliesst das Ziel, falls es {@link Closeable} ist.
+     *
+     * @throws  IOException  Fehler beim Schliessen.
+     */
+    @Override
+    public void close() throws IOException {
+        if (out instanceof Closeable) {
+            ((Closeable) out).close();
+        }
+    }
+
+
+    /**
+     * Kodiert den Wert, indem alle Spezialzeichen verdoppelt werden (<i>char insertion</i>). Zeichenfolgen ohne
+     * Spezialzeichen werden am St&uuml;ck geschrieben.
+     *
+     * @param   out  Ziel.
+     * @param   v    Wert.
+     *
+     * @throws  IOException  Fehler beim Schreiben.
+     */
+    static void encode(Appendable out, String v) throws IOException {
+        int start = 0;
+
+        for (int i = 0; i < v.length(); i++) {
+            final char c = v.charAt(i);
+
+            if (c == AbstractPropertiesFormat.KEY_VALUE_SEPARATOR || c == AbstractPropertiesFormat.PROPERTY_SEPARATOR) {
+                out.append(v, start, i + 1).append(c);
+                start = i + 1;
+            }
+        }
+        out.append(v, start, v.length());
+    }
+
+}
@@ -0,0 +1,210 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Pool f&uuml;r die Namen von Properties. Gleiche Namen werden durch {@link #intern(String)} auf dieselbe String
+ * Instanz abgebildet, so dass viele Properties Listen mit denselben Namen nur eine Instanz pro Namen belegen. Die Namen
+ * werden schwach referenziert: Sie werden vom Garbage Collector entfernt, sobald sie nicht mehr verwendet werden.
+ *
+ * <p>Der Pool ist thread safe. Er ist in Segmente aufgeteilt, die einzeln synchronisiert werden, damit parallele
+ * Zugriffe sich selten blockieren. Die Anzahl der Treffer und die dadurch eingesparte Heap-Gr&ouml;sse werden
+ * gez&auml;hlt, siehe {@link #getReport()}.</p>
+ *
+ * <p>Der gemeinsame Pool ({@link #getShared()}) wird von {@link AbstractPropertiesFormat},
+ * {@link PropertiesFormatReader}, {@link BinaryPropertiesCodec} und {@link LinkedProperties#setProperty(String,
+ * String)} verwendet.</p>
+ */
+public final class PropertyKeyPool {
+
+    private static final PropertyKeyPool SHARED = new PropertyKeyPool(16);
+
+    /** Gesch&auml;tzte Gr&ouml;sse eines Strings ohne Zeichen: String Objekt und Header des char Arrays. */
+    private static final int STRING_OVERHEAD = 24 + 16;
+
+    private final Map<String, WeakReference<String>>[] stripes;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder savedBytes = new LongAdder();
+
+
+    /**
+     * Erstellt einen neuen, leeren Pool.
+     *
+     * @param   concurrency  Anzahl der Segmente (wird auf eine Zweierpotenz aufgerundet).
+     *
+     * @throws  IllegalArgumentException  {@code concurrency} ist kleiner als 1.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public PropertyKeyPool(int concurrency) throws IllegalArgumentException {
+        final int count;
+
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1: " + concurrency);
+        }
+
+        count = Integer.highestOneBit(concurrency - 1) << 1;
+        stripes = new Map[Math.max(count, 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new WeakHashMap<>();
+        }
+    }
+
+
+    /**
+     * Gibt den gemeinsamen Pool zur&uuml;ck.
+     *
+     * @return  Gemeinsamer Pool.
+     */
+    public static PropertyKeyPool getShared() {
+        return SHARED;
+    }
+
+
+    /**
+     * Gibt die Instanz im Pool zur&uuml;ck, die gleich {@code key} ist. Ist {@code key} nicht im Pool, wird er
+     * hinzugef&uuml;gt.
+     *
+     * @param   key  Name.
+     *
+     * @return  Instanz im Pool, <code>null</code> wenn {@code key} <code>null</code> ist.
+     */
+    public String intern(String key) {
+        final int hash;
+        final Map<String, WeakReference<String>> stripe;
+
+        if (key == null) {
+            return null;
+        }
+
+        hash = key.hashCode();
+        stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        synchronized (stripe) {
+            final WeakReference<String> ref = stripe.get(key);
+            final String pooled = ref != null ? ref.get() : null;
+
+            if (pooled != null) {
+                if (pooled != key) {
+                    hitCount.increment();
+                    savedBytes.add(estimateSize(key));
+                }
+                return pooled;
+            }
+
+            stripe.put(key, new WeakReference<>(key));
+        }
+        missCount.increment();
+
+        return key;
+    }
+
+
+    /**
+     * Gibt die Anzahl der Namen im Pool zur&uuml;ck. Namen, die nicht mehr verwendet werden, sind eventuell noch
+     * enthalten.
+     *
+     * @return  Anzahl der Namen.
+     */
+    public int size() {
+        int result = 0;
+
+        for (Map<String, WeakReference<String>> stripe : stripes) {
+            synchronized (stripe) {
+                result += stripe.size();
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Gibt die Anzahl der Aufrufe von {@link #intern(String)} zur&uuml;ck, die eine andere, gleiche Instanz im Pool
+     * gefunden haben.
+     *
+     * @return  Anzahl der Treffer.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+
+    /**
+     * Gibt die Anzahl der Namen zur&uuml;ck, die dem Pool hinzugef&uuml;gt wurden.
+     *
+     * @return  Anzahl der neuen Namen.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+
+    /**
+     * Gibt die gesch&auml;tzte Gr&ouml;sse der Strings zur&uuml;ck, die durch Treffer eingespart wurden (falls die
+     * Strings nicht anderweitig referenziert sind).
+     *
+     * @return  Eingesparte Bytes.
+     */
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+
+    /**
+     * Gibt die gesch&auml;tzte Heap-Gr&ouml;sse der Namen im Pool zur&uuml;ck (ohne die Verwaltung des Pools).
+     *
+     * @return  Bytes.
+     */
+    public long getRetainedBytes() {
+        long result = 0;
+
+        for (Map<String, WeakReference<String>> stripe : stripes) {
+            synchronized (stripe) {
+                for (String key : stripe.keySet()) {
+                    result += estimateSize(key);
+                }
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Gibt einen Bericht &uuml;ber die Heap-Nutzung des Pools zur&uuml;ck.
+     *
+     * @return  Bericht, z.B. {@code PropertyKeyPool[keys=42, retainedBytes=2688, hits=100000, misses=42,
+     *          savedBytes=6400000]}.
+     */
+    public String getReport() {
+        return "PropertyKeyPool[keys=" + size() + ", retainedBytes=" + getRetainedBytes() + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount() + ", savedBytes=" + getSavedBytes() + "]";
+    }
+
+
+    @Override
+    public String toString() {
+        return getReport();
+    }
+
+
+    /**
+     * Sch&auml;tzt die Heap-Gr&ouml;sse eines Strings (String Objekt und char Array, auf 8 Bytes gerundet).
+     *
+     * @param   s  String.
+     *
+     * @return  Bytes.
+     */
+    private static long estimateSize(String s) {
+        return (STRING_OVERHEAD + 2L * s.length() + 7) & ~7L;
+    }
+
+}
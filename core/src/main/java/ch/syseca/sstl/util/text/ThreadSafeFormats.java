@@ -0,0 +1,329 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.text.ChoiceFormat;
+import java.text.DecimalFormat;
+import java.text.FieldPosition;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+
+
+/**
+ * Replaces the sub-formats of a {@link MessageFormat} by thread safe formats, so the message format can be used by many
+ * threads without cloning it.
+ *
+ * <ul>
+ * <li>Date formats, whose pattern consists of numeric fields, time zone offsets and literals (e.g.
+ * {@code dd.MM.yyyy HH:mm:ss.SSS}), are replaced by an immutable {@link DateTimeFormatter} using the time zone of the
+ * date format. Dates before the change to the Gregorian calendar (see {@link GregorianCalendar#getGregorianChange()})
+ * are formatted by a clone of the date format, because {@link DateTimeFormatter} doesn't use the Julian calendar.</li>
+ * <li>Choice formats are not modified, they are not changed while formatting.</li>
+ * <li>All other formats (numbers, date formats with texts like month names) are cloned once per thread.</li>
+ * </ul>
+ */
+final class ThreadSafeFormats {
+
+    /**
+     * Class is not instantiated.
+     */
+    private ThreadSafeFormats() {
+    }
+
+
+    /**
+     * Replaces the sub-formats of the message format by thread safe formats. The time zones of the date formats must
+     * be set before.
+     *
+     * @param  format  Message format.
+     */
+    static void replaceFormats(MessageFormat format) {
+        final Format[] formats = format.getFormats();
+
+        for (int i = 0; i < formats.length; i++) {
+            formats[i] = toThreadSafe(formats[i]);
+        }
+        format.setFormats(formats);
+    }
+
+
+    /**
+     * Returns a thread safe format producing the same text as the given format.
+     *
+     * @param   format  Format, may be <code>null</code>.
+     *
+     * @return  Thread safe format, <code>null</code> if {@code format} is <code>null</code>.
+     */
+    static Format toThreadSafe(Format format) {
+        if (format == null || format instanceof ChoiceFormat) {
+            return format;
+        } else if (format instanceof SimpleDateFormat) {
+            final DateTimeFormatter formatter = toFormatter((SimpleDateFormat) format);
+
+            if (formatter != null) {
+                return new DateTimeFormatterFormat(formatter, (SimpleDateFormat) format);
+            }
+        }
+
+        return new ThreadLocalFormat(format);
+    }
+
+
+    /**
+     * Converts the pattern of the date format to a {@link DateTimeFormatter}.
+     *
+     * @param   format  Date format.
+     *
+     * @return  Formatter, <code>null</code> if the pattern contains fields that may be formatted differently.
+     */
+    static DateTimeFormatter toFormatter(SimpleDateFormat format) {
+        final String pattern = format.toPattern();
+        final DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        int idx = 0;
+
+        if (!(format.getCalendar() instanceof GregorianCalendar) || !(format.getNumberFormat() instanceof DecimalFormat)
+                || ((DecimalFormat) format.getNumberFormat()).getDecimalFormatSymbols().getZeroDigit() != '0') {
+            return null;
+        }
+
+        while (idx < pattern.length()) {
+            final char c = pattern.charAt(idx);
+
+            if (c == '\'') {
+                final StringBuilder literal = new StringBuilder();
+
+                if (idx + 1 < pattern.length() && pattern.charAt(idx + 1) == '\'') {
+                    builder.appendLiteral('\'');
+                    idx += 2;
+                    continue;
+                }
+
+                idx++;
+                while (true) {
+                    if (idx >= pattern.length()) {
+                        return null;
+                    } else if (pattern.charAt(idx) != '\'') {
+                        literal.append(pattern.charAt(idx++));
+                    } else if (idx + 1 < pattern.length() && pattern.charAt(idx + 1) == '\'') {
+                        literal.append('\'');
+                        idx += 2;
+                    } else {
+                        idx++;
+                        break;
+                    }
+                }
+                builder.appendLiteral(literal.toString());
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int count = 1;
+
+                while (idx + count < pattern.length() && pattern.charAt(idx + count) == c) {
+                    count++;
+                }
+                if (!appendField(builder, c, count)) {
+                    return null;
+                }
+                idx += count;
+            } else {
+                builder.appendLiteral(c);
+                idx++;
+            }
+        }
+
+        return builder.toFormatter(Locale.ROOT);
+    }
+
+
+    /**
+     * Appends a field of a {@link SimpleDateFormat} pattern to the formatter.
+     *
+     * @param   builder  Formatter builder.
+     * @param   letter   Pattern letter.
+     * @param   count    Number of repetitions.
+     *
+     * @return  <code>false</code> if the field is formatted differently or depends on the locale.
+     */
+    private static boolean appendField(DateTimeFormatterBuilder builder, char letter, int count) {
+        final String field;
+
+        if (letter == 'y' && count != 2) {
+            if (count > 4) {
+                return false;
+            }
+
+            // SimpleDateFormat writes years with more digits than the pattern without a sign
+            builder.appendValue(ChronoField.YEAR_OF_ERA, count, 19, SignStyle.NORMAL);
+            return true;
+        }
+
+        field = toFormatterField(letter, count);
+        if (field == null) {
+            return false;
+        }
+        builder.appendPattern(field);
+
+        return true;
+    }
+
+
+    /**
+     * Returns the {@link DateTimeFormatter} pattern of a field of a {@link SimpleDateFormat} pattern.
+     *
+     * @param   letter  Pattern letter.
+     * @param   count   Number of repetitions.
+     *
+     * @return  Pattern, <code>null</code> if the field is formatted differently or depends on the locale.
+     */
+    private static String toFormatterField(char letter, int count) {
+        final String field = new String(new char[count]).replace('\0', letter);
+
+        switch (letter) {
+            case 'y':
+
+                // two digit year, other lengths are appended by appendField
+                return count == 2 ? field : null;
+
+            case 'M':
+            case 'd':
+            case 'H':
+            case 'k':
+            case 'K':
+            case 'h':
+            case 'm':
+            case 's':
+                return count <= 2 ? field : null;
+
+            case 'S':
+
+                // milliseconds; in a DateTimeFormatter 'S' means fraction of second
+                return count == 3 ? field : null;
+
+            case 'Z':
+                return count <= 3 ? "Z" : null;
+
+            case 'X':
+                return count <= 3 ? field : null;
+
+            default:
+                return null;
+        }
+    }
+
+
+    /**
+     * Date format backed by an immutable {@link DateTimeFormatter}.
+     */
+    private static final class DateTimeFormatterFormat extends Format {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient DateTimeFormatter formatter;
+
+        private final transient ZoneId zone;
+
+        /** Change to the Gregorian calendar, earlier dates are formatted by the original format. */
+        private final transient long gregorianChange;
+
+        /** Original format, used to parse texts and to format dates of the Julian calendar. */
+        private final Format prototype;
+
+
+        DateTimeFormatterFormat(DateTimeFormatter formatter, SimpleDateFormat prototype) {
+            this.formatter = formatter;
+            this.zone = prototype.getTimeZone().toZoneId();
+            this.gregorianChange = ((GregorianCalendar) prototype.getCalendar()).getGregorianChange().getTime();
+            this.prototype = prototype;
+        }
+
+
+        @Override
+        public StringBuffer format(Object obj, StringBuffer toAppendTo, FieldPosition pos) {
+            final Instant instant;
+
+            if (obj instanceof Date) {
+                instant = Instant.ofEpochMilli(((Date) obj).getTime());
+            } else if (obj instanceof Number) {
+                instant = Instant.ofEpochMilli(((Number) obj).longValue());
+            } else {
+                throw new IllegalArgumentException("Cannot format given Object as a Date");
+            }
+
+            if (instant.toEpochMilli() < gregorianChange) {
+                return ((Format) prototype.clone()).format(obj, toAppendTo, pos);
+            }
+
+            formatter.formatTo(instant.atZone(zone), toAppendTo);
+
+            return toAppendTo;
+        }
+
+
+        @Override
+        public Object parseObject(String source, ParsePosition pos) {
+            return ((Format) prototype.clone()).parseObject(source, pos);
+        }
+
+
+        /**
+         * Creates the formatter again after deserialization, the transient fields are not restored.
+         *
+         * @return  Thread safe format for the deserialized original format.
+         */
+        private Object readResolve() {
+            return toThreadSafe(prototype);
+        }
+
+    }
+
+
+    /**
+     * Format that delegates to a clone of the original format per thread.
+     */
+    private static final class ThreadLocalFormat extends Format {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Format prototype;
+
+        private final transient ThreadLocal<Format> formats;
+
+
+        ThreadLocalFormat(Format prototype) {
+            this.prototype = prototype;
+            this.formats = ThreadLocal.withInitial(() -> (Format) prototype.clone());
+        }
+
+
+        @Override
+        public StringBuffer format(Object obj, StringBuffer toAppendTo, FieldPosition pos) {
+            return formats.get().format(obj, toAppendTo, pos);
+        }
+
+
+        @Override
+        public Object parseObject(String source, ParsePosition pos) {
+            return formats.get().parseObject(source, pos);
+        }
+
+
+        /**
+         * Creates the thread local clones again after deserialization, the transient fields are not restored.
+         *
+         * @return  Thread safe format for the deserialized original format.
+         */
+        private Object readResolve() {
+            return toThreadSafe(prototype);
+        }
+
+    }
+
+}
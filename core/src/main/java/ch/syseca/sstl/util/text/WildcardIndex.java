@@ -0,0 +1,236 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+
+/**
+ * Sorted set of keys that is searched by wildcard patterns (see {@link WildcardSearch}).
+ *
+ * <p>The keys are sorted by their case folded value. A query first selects the range of keys that start with the
+ * literal prefix of the pattern (the characters up to the first wildcard). Only the keys in this range are tested
+ * against the complete pattern. So patterns like {@code ABC*} or {@code AB_12*} touch only a small part of the index,
+ * whereas patterns starting with a wildcard must test every key.</p>
+ *
+ * <p>Keys may be added and removed at any time. Queries may run concurrently with modifications; they see the keys
+ * that were present when the query passed their position.</p>
+ *
+ * <p>Example:</p>
+ *
+ * <pre>
+ *      WildcardIndex index = new WildcardIndex(WildcardSearch.getInstance());
+ *
+ *      index.addAll(articleCodes);
+ *      index.find("AB_12*");
+ * </pre>
+ */
+public final class WildcardIndex {
+
+    private static final String[] NO_KEYS = new String[0];
+
+    private final WildcardSearch search;
+
+    /** Case folded key to the original keys. The original keys are sorted. */
+    private final ConcurrentNavigableMap<String, String[]> keys = new ConcurrentSkipListMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+
+    /**
+     * Creates a new, empty index.
+     *
+     * @param  search  Defines the wildcard characters and the case sensitivity of the queries.
+     */
+    public WildcardIndex(WildcardSearch search) {
+        if (search == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("search").get());
+        }
+        this.search = search;
+    }
+
+
+    /**
+     * Returns the number of keys in the index.
+     *
+     * @return  Number of keys.
+     */
+    public int size() {
+        return size.get();
+    }
+
+
+    /**
+     * Adds the key to the index.
+     *
+     * @param   key  Key to add.
+     *
+     * @return  <code>true</code> if the key has been added, <code>false</code> if the index already contains the key.
+     *
+     * @throws  IllegalArgumentException  {@code key} is <code>null</code>.
+     */
+    public boolean add(String key) throws IllegalArgumentException {
+        final boolean[] added = { false };
+
+        checkKey(key);
+        keys.compute(search.foldCase(key), (k, v) -> {
+            final String[] current = v != null ? v : NO_KEYS;
+            final int idx = Arrays.binarySearch(current, key);
+            final String[] result;
+
+            added[0] = idx < 0;
+            if (!added[0]) {
+                return current;
+            }
+
+            result = new String[current.length + 1];
+            System.arraycopy(current, 0, result, 0, -idx - 1);
+            result[-idx - 1] = key;
+            System.arraycopy(current, -idx - 1, result, -idx, current.length + idx + 1);
+
+            return result;
+        });
+
+        if (added[0]) {
+            size.incrementAndGet();
+        }
+
+        return added[0];
+    }
+
+
+    /**
+     * Adds all keys to the index.
+     *
+     * @param  keysToAdd  Keys to add.
+     *
+     * @throws  IllegalArgumentException  {@code keysToAdd} or one of the keys is <code>null</code>.
+     */
+    public void addAll(Collection<String> keysToAdd) throws IllegalArgumentException {
+        if (keysToAdd == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("keysToAdd").get());
+        }
+        for (String key : keysToAdd) {
+            add(key);
+        }
+    }
+
+
+    /**
+     * Removes the key from the index.
+     *
+     * @param   key  Key to remove.
+     *
+     * @return  <code>true</code> if the key has been removed, <code>false</code> if the index didn't contain the key.
+     *
+     * @throws  IllegalArgumentException  {@code key} is <code>null</code>.
+     */
+    public boolean remove(String key) throws IllegalArgumentException {
+        final boolean[] removed = { false };
+
+        checkKey(key);
+        keys.computeIfPresent(search.foldCase(key), (k, v) -> {
+            final int idx = Arrays.binarySearch(v, key);
+            final String[] result;
+
+            removed[0] = idx >= 0;
+            if (!removed[0]) {
+                return v;
+            } else if (v.length == 1) {
+                return null;
+            }
+
+            result = new String[v.length - 1];
+            System.arraycopy(v, 0, result, 0, idx);
+            System.arraycopy(v, idx + 1, result, idx, v.length - idx - 1);
+
+            return result;
+        });
+
+        if (removed[0]) {
+            size.decrementAndGet();
+        }
+
+        return removed[0];
+    }
+
+
+    /**
+     * Returns <code>true</code> if the index contains the key.
+     *
+     * @param   key  Key to test.
+     *
+     * @return  <code>true</code> if the index contains the key.
+     *
+     * @throws  IllegalArgumentException  {@code key} is <code>null</code>.
+     */
+    public boolean contains(String key) throws IllegalArgumentException {
+        final String[] v;
+
+        checkKey(key);
+        v = keys.get(search.foldCase(key));
+
+        return v != null && Arrays.binarySearch(v, key) >= 0;
+    }
+
+
+    /**
+     * Returns all keys that match the pattern.
+     *
+     * @param   pattern  Wildcard pattern.
+     *
+     * @return  Matching keys, sorted by their case folded value.
+     *
+     * @throws  IllegalArgumentException  {@code pattern} is <code>null</code>.
+     */
+    public List<String> find(String pattern) throws IllegalArgumentException {
+        final List<String> result = new ArrayList<>();
+
+        forEachMatch(pattern, result::add);
+
+        return result;
+    }
+
+
+    /**
+     * Calls the consumer for every key that matches the pattern. The keys are reported in the order of their case
+     * folded value.
+     *
+     * @param   pattern   Wildcard pattern.
+     * @param   consumer  Consumer that gets the matching keys.
+     *
+     * @throws  IllegalArgumentException  {@code pattern} is <code>null</code>.
+     */
+    public void forEachMatch(String pattern, Consumer<String> consumer) throws IllegalArgumentException {
+        final CompiledWildcard compiled = search.compile(pattern);
+        final String prefix = compiled.getLiteralPrefix();
+
+        for (Map.Entry<String, String[]> e : keys.tailMap(prefix).entrySet()) {
+            if (!e.getKey().startsWith(prefix)) {
+
+                // end of the range with the literal prefix
+                break;
+            }
+            for (String key : e.getValue()) {
+                if (compiled.matches(key)) {
+                    consumer.accept(key);
+                }
+            }
+        }
+    }
+
+
+    private static void checkKey(String key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("key").get());
+        }
+    }
+
+}
@@ -0,0 +1,447 @@
+package ch.syseca.sstl.util.text;
+
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+
+/**
+ * Set of wildcard patterns that tests a text against all patterns at once. The ids of the patterns are their
+ * positions in the collection given to {@link WildcardSearch#compileAll(Collection)}.
+ *
+ * <p>The patterns are split into three groups:</p>
+ *
+ * <ul>
+ * <li>The literal prefixes of the patterns (the characters up to the first wildcard) are stored in a trie. The text is
+ * walked down the trie, which selects the patterns whose literal prefix matches. Only the rest of the text is tested
+ * against these candidates, the prefix is not compared again.</li>
+ * <li>Patterns starting with a multi char wildcard are selected by their first literal (the characters of the first
+ * segment up to the first single char wildcard, e.g. {@code XYZ} for {@code *XYZ*_}). These literals are searched by
+ * an Aho-Corasick automaton. A pattern is a candidate, if its first literal occurs in the text. It is tested from the
+ * leftmost occurrence on.</li>
+ * <li>The remaining patterns have neither a literal prefix nor a first literal, e.g. {@code *}, {@code _XYZ} or
+ * {@code *_XYZ}. They are candidates for every text and are tested completely.</li>
+ * </ul>
+ *
+ * <p>The trie and the automaton are advanced together, so the text is scanned once to select the candidates. Testing
+ * a candidate reads the text behind its literal again: a set of patterns with long literal prefixes or first literals
+ * is cheap, a set of patterns of the last group costs as much as testing every pattern on its own.</p>
+ *
+ * <p>Instances are immutable and may be shared between threads.</p>
+ *
+ * <p>Example:</p>
+ *
+ * <pre>
+ *      WildcardPatternSet rules = WildcardSearch.getInstance().compileAll(Arrays.asList("ABC*", "*_XYZ", "AB_"));
+ *
+ *      rules.matches("abcXYZ")  // returns [0, 1]
+ * </pre>
+ */
+public final class WildcardPatternSet {
+
+    private static final int[] NO_IDS = new int[0];
+
+    private final CompiledWildcard[] patterns;
+
+    private final CaseFolding caseFolding;
+
+    /** Root of the literal prefix trie. Its ids are the patterns without literal prefix and first literal. */
+    private final Node root;
+
+    /** Root of the automaton that searches the first literals of the patterns starting with a multi char wildcard. */
+    private final ScanNode scanRoot;
+
+    /** Number of automaton nodes with ids, i.e. number of distinct first literals. */
+    private final int literalCount;
+
+
+    /**
+     * Creates a new set. Called by {@link WildcardSearch#compileAll(Collection)} only.
+     *
+     * @param  patterns     Compiled patterns. The position in the array is the id of the pattern.
+     * @param  caseFolding  Case folding the patterns have been compiled with.
+     */
+    WildcardPatternSet(CompiledWildcard[] patterns, CaseFolding caseFolding) {
+        final NodeBuilder rootBuilder = new NodeBuilder();
+        final NodeBuilder scanRootBuilder = new NodeBuilder();
+
+        this.patterns = patterns;
+        this.caseFolding = caseFolding;
+        for (int id = 0; id < patterns.length; id++) {
+            final String prefix = patterns[id].getLiteralPrefix();
+
+            if (prefix.isEmpty() && !patterns[id].getFirstLiteral().isEmpty()) {
+                scanRootBuilder.add(patterns[id].getFirstLiteral(), id);
+            } else {
+                rootBuilder.add(prefix, id);
+            }
+        }
+        this.root = rootBuilder.build();
+        this.scanRoot = scanRootBuilder.buildScanNode(0);
+        this.literalCount = ScanNode.link(scanRoot);
+    }
+
+
+    /**
+     * Returns the number of patterns in the set.
+     *
+     * @return  Number of patterns.
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+
+    /**
+     * Returns the compiled pattern with the given id.
+     *
+     * @param   id  Id of the pattern.
+     *
+     * @return  Compiled pattern.
+     *
+     * @throws  IndexOutOfBoundsException  There is no pattern with this id.
+     */
+    public CompiledWildcard get(int id) throws IndexOutOfBoundsException {
+        return patterns[id];
+    }
+
+
+    /**
+     * Returns the ids of all patterns the text matches.
+     *
+     * @param   text  Text to test.
+     *
+     * @return  Ids of the matching patterns in ascending order. Empty array, if no pattern matches.
+     *
+     * @throws  IllegalArgumentException  {@code text} is <code>null</code>.
+     */
+    public int[] matches(CharSequence text) throws IllegalArgumentException {
+        final IdCollector collector = new IdCollector();
+        final int[] result;
+
+        checkText(text);
+        if (!scan(text, collector)) {
+            return NO_IDS;
+        }
+
+        result = Arrays.copyOf(collector.ids, collector.count);
+        Arrays.sort(result);
+
+        return result;
+    }
+
+
+    /**
+     * Returns <code>true</code> if the text matches at least one pattern.
+     *
+     * @param   text  Text to test.
+     *
+     * @return  <code>true</code> if the text matches at least one pattern.
+     *
+     * @throws  IllegalArgumentException  {@code text} is <code>null</code>.
+     */
+    public boolean matchesAny(CharSequence text) throws IllegalArgumentException {
+        checkText(text);
+
+        return scan(text, null);
+    }
+
+
+    /**
+     * Calls the consumer with the id of every pattern the text matches. The ids are not reported in a specific order.
+     * Apart from the consumer, this method only allocates a small bit set, if the set contains patterns starting with a
+     * multi char wildcard.
+     *
+     * @param   text      Text to test.
+     * @param   consumer  Consumer that gets the ids of the matching patterns.
+     *
+     * @throws  IllegalArgumentException  {@code text} is <code>null</code>.
+     */
+    public void forEachMatch(CharSequence text, IntConsumer consumer) throws IllegalArgumentException {
+        checkText(text);
+        scan(text, consumer);
+    }
+
+
+    /**
+     * Scans the text once and tests the candidates. The prefix trie and the automaton are advanced with the same
+     * character. The scan ends, when the trie has been left and the automaton has nothing to search.
+     *
+     * @param   text      Text to test.
+     * @param   consumer  Consumer that gets the ids of the matching patterns or <code>null</code>, to stop at the first
+     *                    matching pattern.
+     *
+     * @return  <code>true</code> if the text matches at least one pattern.
+     */
+    private boolean scan(CharSequence text, IntConsumer consumer) {
+        final int textLength = text.length();
+        final long[] found = literalCount == 0 ? null : new long[(literalCount + 63) >>> 6];
+        boolean matched = false;
+        Node node = root;
+        ScanNode state = scanRoot;
+
+        for (int id : root.ids) {
+            if (patterns[id].matches(text)) {
+                if (consumer == null) {
+                    return true;
+                }
+                consumer.accept(id);
+                matched = true;
+            }
+        }
+        for (int textPos = 0; textPos < textLength && (node != null || found != null); textPos++) {
+            final char c = caseFolding.foldAt(text, textPos);
+
+            if (node != null) {
+                node = node.child(c);
+                if (node != null) {
+                    for (int id : node.ids) {
+                        if (patterns[id].matchesAfterPrefix(text)) {
+                            if (consumer == null) {
+                                return true;
+                            }
+                            consumer.accept(id);
+                            matched = true;
+                        }
+                    }
+                }
+            }
+            if (found != null) {
+                state = state.next(c);
+                for (ScanNode out = state.ids.length > 0 ? state : state.output; out != null; out = out.output) {
+                    if ((found[out.literal >>> 6] & (1L << out.literal)) == 0) {
+
+                        // first occurrence of this literal: it is the leftmost one
+                        found[out.literal >>> 6] |= 1L << out.literal;
+                        for (int id : out.ids) {
+                            if (patterns[id].matchesFrom(text, textPos + 1 - out.depth)) {
+                                if (consumer == null) {
+                                    return true;
+                                }
+                                consumer.accept(id);
+                                matched = true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return matched;
+    }
+
+
+    private static void checkText(CharSequence text) throws IllegalArgumentException {
+        if (text == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("text").get());
+        }
+    }
+
+
+    /**
+     * Node of the literal prefix trie.
+     */
+    private static final class Node {
+
+        /** Ids of the patterns whose literal prefix ends at this node. */
+        private final int[] ids;
+
+        /** Characters of the child nodes in ascending order. */
+        private final char[] keys;
+
+        private final Node[] children;
+
+
+        Node(int[] ids, char[] keys, Node[] children) {
+            this.ids = ids;
+            this.keys = keys;
+            this.children = children;
+        }
+
+
+        Node child(char c) {
+            final int idx = Arrays.binarySearch(keys, c);
+
+            return idx >= 0 ? children[idx] : null;
+        }
+
+    }
+
+
+    /**
+     * Node of the Aho-Corasick automaton that searches the first literals. The failure and output links are set by
+     * {@link #link(ScanNode)}, before the set is published.
+     */
+    private static final class ScanNode {
+
+        /** Ids of the patterns whose first literal ends at this node. */
+        private final int[] ids;
+
+        /** Characters of the child nodes in ascending order. */
+        private final char[] keys;
+
+        private final ScanNode[] children;
+
+        /** Length of the literal that ends at this node. */
+        private final int depth;
+
+        /** Node of the longest proper suffix of this node's literal, <code>null</code> for the root. */
+        private ScanNode fail;
+
+        /** Next node along the failure links with ids or <code>null</code>, if there is none. */
+        private ScanNode output;
+
+        /** Index of the literal ending at this node within the bit set of found literals, if the node has ids. */
+        private int literal;
+
+
+        ScanNode(int[] ids, char[] keys, ScanNode[] children, int depth) {
+            this.ids = ids;
+            this.keys = keys;
+            this.children = children;
+            this.depth = depth;
+        }
+
+
+        /**
+         * Returns the state after the given character. The failure links are followed, until a node has a child for
+         * the character. If there is none, the root is returned.
+         *
+         * @param   c  Folded character of the text.
+         *
+         * @return  Next state.
+         */
+        ScanNode next(char c) {
+            ScanNode state = this;
+
+            while (true) {
+                final int idx = Arrays.binarySearch(state.keys, c);
+
+                if (idx >= 0) {
+                    return state.children[idx];
+                } else if (state.fail == null) {
+                    return state;
+                }
+                state = state.fail;
+            }
+        }
+
+
+        /**
+         * Sets the failure and output links of all nodes, breadth first, and numbers the nodes with ids.
+         *
+         * @param   root  Root of the automaton.
+         *
+         * @return  Number of nodes with ids.
+         */
+        static int link(ScanNode root) {
+            final Deque<ScanNode> queue = new ArrayDeque<>();
+            int count = 0;
+
+            queue.add(root);
+            while (!queue.isEmpty()) {
+                final ScanNode node = queue.poll();
+
+                if (node.ids.length > 0) {
+                    node.literal = count++;
+                }
+                for (int i = 0; i < node.keys.length; i++) {
+                    final ScanNode child = node.children[i];
+
+                    child.fail = node == root ? root : node.fail.next(node.keys[i]);
+                    child.output = child.fail.ids.length > 0 ? child.fail : child.fail.output;
+                    queue.add(child);
+                }
+            }
+
+            return count;
+        }
+
+    }
+
+
+    /**
+     * Mutable node, used to build the trie and the automaton.
+     */
+    private static final class NodeBuilder {
+
+        private final Map<Character, NodeBuilder> children = new TreeMap<>();
+
+        private int[] ids = NO_IDS;
+
+
+        /**
+         * Adds the pattern id at the end of the path of the literal.
+         *
+         * @param  literal  Literal prefix or first literal of the pattern.
+         * @param  id       Id of the pattern.
+         */
+        void add(String literal, int id) {
+            NodeBuilder node = this;
+
+            for (int i = 0; i < literal.length(); i++) {
+                node = node.children.computeIfAbsent(literal.charAt(i), c -> new NodeBuilder());
+            }
+            node.ids = Arrays.copyOf(node.ids, node.ids.length + 1);
+            node.ids[node.ids.length - 1] = id;
+        }
+
+
+        Node build() {
+            final char[] keys = new char[children.size()];
+            final Node[] nodes = new Node[children.size()];
+            int i = 0;
+
+            for (Map.Entry<Character, NodeBuilder> e : children.entrySet()) {
+                keys[i] = e.getKey();
+                nodes[i] = e.getValue().build();
+                i++;
+            }
+
+            return new Node(ids, keys, nodes);
+        }
+
+
+        ScanNode buildScanNode(int depth) {
+            final char[] keys = new char[children.size()];
+            final ScanNode[] nodes = new ScanNode[children.size()];
+            int i = 0;
+
+            for (Map.Entry<Character, NodeBuilder> e : children.entrySet()) {
+                keys[i] = e.getKey();
+                nodes[i] = e.getValue().buildScanNode(depth + 1);
+                i++;
+            }
+
+            return new ScanNode(ids, keys, nodes, depth);
+        }
+
+    }
+
+
+    /**
+     * Collects the ids of the matching patterns for {@link WildcardPatternSet#matches(CharSequence)}.
+     */
+    private static final class IdCollector implements IntConsumer {
+
+        private int[] ids = NO_IDS;
+
+        private int count;
+
+
+        @Override
+        public void accept(int id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(4, count * 2));
+            }
+            ids[count++] = id;
+        }
+
+    }
+
+}
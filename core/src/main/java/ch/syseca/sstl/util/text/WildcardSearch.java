@@ -1,6 +1,16 @@
 package ch.syseca.sstl.util.text;
 
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Class that implements a wildcard compare. There are two types of wildcards:
  *
@@ -12,12 +22,21 @@ package ch.syseca.sstl.util.text;
  * <p>By default, the characters are compared in 'case insensitive' mode. This means, that {@code A} matches {@code A}
  * and {@code a}.</p>
  *
+ * <p>The 'case insensitive' mode converts every char by {@link Character#toLowerCase(char)}. Other rules (e.g. full
+ * Unicode folding of supplementary characters or the Turkish dotless i) can be selected by a {@link CaseFolding}, see
+ * {@link #getInstance(char, char, CaseFolding)}. The texts are folded character by character while they are compared,
+ * no converted copy of a text is created.</p>
+ *
  * <p>Examples:</p>
  *
  * <ul>
  * <li>{@code t*} matches {@code test} or {@code tube} or {@code t}</li>
  * <li>t_st* matches 'test' or 'taste', but not 'tst'</li>
  * </ul>
+ *
+ * <p>If the same pattern is used to test many texts, it should be compiled once by {@link #compile(String)}. To test
+ * texts against many patterns, the patterns can be combined to a {@link WildcardPatternSet} by
+ * {@link #compileAll(Collection)}.</p>
  */
 
 public final class WildcardSearch {
@@ -26,15 +45,18 @@ public final class WildcardSearch {
 
     private static final char DEFAULT_MULTI_CHAR_WILDCARD = '*';
 
-    private static final boolean DEFAULT_CASE_SENSITIVE = false;
+    private static final CaseFolding DEFAULT_CASE_FOLDING = CaseFolding.SIMPLE;
 
     private static final char ESCAPE_CHAR = '\\';
 
+    /** Minimal number of values, for which {@link #filterParallel(Collection, String)} uses parallel processing. */
+    private static final int PARALLEL_THRESHOLD = 10000;
+
     private char singleCharWildcard;
 
     private char multiCharWildcard;
 
-    private boolean caseSensitive;
+    private CaseFolding caseFolding;
 
 
     /**
@@ -51,7 +73,7 @@ public final class WildcardSearch {
      * @return  Neue Instanz.
      */
     public static WildcardSearch getInstance() {
-        return getInstance(DEFAULT_MULTI_CHAR_WILDCARD, DEFAULT_SINGLE_CHAR_WILDCARD, DEFAULT_CASE_SENSITIVE);
+        return getInstance(DEFAULT_MULTI_CHAR_WILDCARD, DEFAULT_SINGLE_CHAR_WILDCARD, DEFAULT_CASE_FOLDING);
     }
 
 
@@ -79,9 +101,35 @@ public final class WildcardSearch {
      * @return  Neue Instanz.
      */
     public static WildcardSearch getInstance(char multiCharWildcard, char singleCharWildcard, boolean caseSensitive) {
+        return getInstance(multiCharWildcard, singleCharWildcard,
+                caseSensitive ? CaseFolding.NONE : DEFAULT_CASE_FOLDING);
+    }
+
+
+    /**
+     * Returns a new instance using the given values. Use {@link CaseFolding#forLocale(Locale)} to compare the
+     * characters according to the rules of a language.
+     *
+     * @param   multiCharWildcard   Character that matches {@code 0..n} characters. This is normally the {@code *}
+     *                              character.
+     * @param   singleCharWildcard  Character that matches exactly one character. This is normally the {@code _}
+     *                              character.
+     * @param   caseFolding         Defines which characters are treated as equals. {@link CaseFolding#NONE} compares
+     *                              'case sensitive'.
+     *
+     * @return  Neue Instanz.
+     *
+     * @throws  IllegalArgumentException  {@code caseFolding} is <code>null</code>.
+     */
+    public static WildcardSearch getInstance(char multiCharWildcard, char singleCharWildcard, CaseFolding caseFolding)
+            throws IllegalArgumentException {
         final WildcardSearch result = new WildcardSearch();
 
-        result.caseSensitive = caseSensitive;
+        if (caseFolding == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("caseFolding").get());
+        }
+
+        result.caseFolding = caseFolding;
         result.multiCharWildcard = multiCharWildcard;
         result.singleCharWildcard = singleCharWildcard;
 
@@ -93,6 +141,10 @@ public final class WildcardSearch {
      * Returns <code>true</code> if the text matches the pattern. Both values must not be <code>null</code>, otherwise
      * an {@link IllegalArgumentException} is thrown.
      *
+     * <p>The pattern is compiled for every call. The matching itself never backtracks more than once per text
+     * position and segment, so the runtime is bounded by {@code O(text length * pattern length)} even for patterns
+     * like {@code *a*a*a*a*b}.</p>
+     *
      * @param   text     Text to test.
      * @param   pattern  Wildcard pattern.
      *
@@ -109,80 +161,250 @@ public final class WildcardSearch {
             throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("pattern").get());
         }
 
-        return matches(text, pattern, 0, 0);
+        return compile(pattern).matches(text);
     }
 
 
     /**
-     * Returns <code>true</code> if the text matches the pattern.
+     * Parses the pattern and returns a {@link CompiledWildcard} that tests texts against the pattern without
+     * interpreting it again. The compiled pattern uses the wildcard characters and the case sensitivity of this
+     * instance.
      *
-     * @param   text        Text to test.
-     * @param   pattern     Wildcard pattern.
-     * @param   textPos     The actual position within the text.
-     * @param   patternPos  The actual position within the pattern.
+     * @param   pattern  Wildcard pattern.
      *
-     * @return  <code>true</code> if the {@code text} matches the {@code pattern}.
+     * @return  Compiled pattern.
+     *
+     * @throws  IllegalArgumentException  {@code pattern} is <code>null</code>.
      */
-    private boolean matches(String text, String pattern, int textPos, int patternPos) {
-        char patternChar;
-        char textChar;
-
-        if ((textPos >= text.length()) && (patternPos >= pattern.length())) {
+    public CompiledWildcard compile(String pattern) throws IllegalArgumentException {
+        final List<char[]> segments = new ArrayList<>();
+        final List<boolean[]> singleCharWildcards = new ArrayList<>();
+        final StringBuilder chars = new StringBuilder();
+        final StringBuilder wildcards = new StringBuilder();
+        boolean multiCharWildcardFound = false;
+        boolean anchoredStart = true;
+        boolean anchoredEnd = true;
+        int trailingSingleCharWildcards = 0;
+        int patternPos = 0;
 
-            // The String matches the pattern. Stop recursion.
-            return true;
+        if (pattern == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("pattern").get());
         }
 
-        if (patternPos >= pattern.length()) {
-
-            // The string doesn't matche the pattern. Stop recursion.
-            return false;
-        }
+        while (patternPos < pattern.length()) {
+            char patternChar = pattern.charAt(patternPos);
 
-        // test if multi char wildcard
-        if (pattern.charAt(patternPos) == this.multiCharWildcard) {
-            for (int i = textPos; i < text.length() + 1; i++) {
-                if (matches(text, pattern, i, patternPos + 1)) {
-                    return true;
+            if (patternChar == this.multiCharWildcard) {
+                if (patternPos == 0) {
+                    anchoredStart = false;
                 }
+                multiCharWildcardFound = true;
+                anchoredEnd = false;
+                trailingSingleCharWildcards = 0;
+                addSegment(segments, singleCharWildcards, chars, wildcards);
+                patternPos++;
+                continue;
+            }
+
+            if (patternChar == this.singleCharWildcard) {
+                trailingSingleCharWildcards++;
+                chars.append(patternChar);
+                wildcards.append('1');
+                patternPos++;
+                continue;
+            }
+
+            // test if escape char. If no char follows the escape char, the escape char is accepted as normal char
+            if ((patternChar == ESCAPE_CHAR) && (patternPos + 1 < pattern.length())) {
+                patternPos++;
+                patternChar = pattern.charAt(patternPos);
             }
-            return false;
+            anchoredEnd = true;
+            trailingSingleCharWildcards = 0;
+            chars.append(patternChar);
+            wildcards.append('0');
+            patternPos++;
         }
 
-        // test if single char wildcard
-        if (pattern.charAt(patternPos) == this.singleCharWildcard) {
-            return matches(text, pattern, textPos + 1, patternPos + 1);
+        // single char wildcards at the end of the pattern are handled separately
+        chars.setLength(chars.length() - trailingSingleCharWildcards);
+        wildcards.setLength(wildcards.length() - trailingSingleCharWildcards);
+        addSegment(segments, singleCharWildcards, chars, wildcards);
+
+        return new CompiledWildcard(pattern, this.caseFolding, multiCharWildcardFound, anchoredStart, anchoredEnd,
+                segments.toArray(new char[segments.size()][]),
+                singleCharWildcards.toArray(new boolean[singleCharWildcards.size()][]),
+                trailingSingleCharWildcards);
+    }
+
+
+    /**
+     * Compiles the patterns and combines them to a {@link WildcardPatternSet}, that returns the ids of all patterns a
+     * text matches. The id of a pattern is its position in the iteration order of {@code patterns}.
+     *
+     * @param   patterns  Wildcard patterns.
+     *
+     * @return  Set of the compiled patterns.
+     *
+     * @throws  IllegalArgumentException  {@code patterns} or one of the patterns is <code>null</code>.
+     */
+    public WildcardPatternSet compileAll(Collection<String> patterns) throws IllegalArgumentException {
+        final CompiledWildcard[] compiled;
+        int id = 0;
+
+        if (patterns == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("patterns").get());
+        }
+
+        compiled = new CompiledWildcard[patterns.size()];
+        for (String pattern : patterns) {
+            compiled[id++] = compile(pattern);
         }
 
-        // test if escape char
-        if (pattern.charAt(patternPos) == ESCAPE_CHAR) {
-            patternPos++; // compare to next char
-            if (patternPos >= pattern.length()) {
+        return new WildcardPatternSet(compiled, this.caseFolding);
+    }
+
+
+    /**
+     * Returns a predicate that tests texts against the pattern. The pattern is compiled once, the predicate may be
+     * used by many threads.
+     *
+     * @param   pattern  Wildcard pattern.
+     *
+     * @return  Predicate that returns <code>true</code> for texts matching the pattern.
+     *
+     * @throws  IllegalArgumentException  {@code pattern} is <code>null</code>.
+     *
+     * @see     #compile(String)
+     */
+    public Predicate<CharSequence> asPredicate(String pattern) throws IllegalArgumentException {
+        return compile(pattern);
+    }
+
+
+    /**
+     * Returns the values that match the pattern. The order of the values is retained.
+     *
+     * @param   <T>      Type of the values.
+     * @param   values   Values to filter. The values must not be <code>null</code>.
+     * @param   pattern  Wildcard pattern.
+     *
+     * @return  New list with the matching values.
+     *
+     * @throws  IllegalArgumentException  One of the parameters or one of the values is <code>null</code>.
+     */
+    public <T extends CharSequence> List<T> filter(Collection<? extends T> values, String pattern)
+            throws IllegalArgumentException {
+        final CompiledWildcard compiled = compile(pattern);
+        final List<T> result = new ArrayList<>();
 
-                // no char follows the escape char. This is an error. But we are smart and
-                // accept this as normal char
-                patternPos--;
+        if (values == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("values").get());
+        }
+
+        for (T v : values) {
+            if (compiled.matches(v)) {
+                result.add(v);
             }
         }
 
-        if (textPos >= text.length()) {
+        return result;
+    }
+
 
-            // The string doesn't matche the pattern. Stop recursion.
-            return false;
+    /**
+     * Same as {@link #filter(Collection, String)}, but large collections are filtered in parallel by the common
+     * {@link java.util.concurrent.ForkJoinPool}. All workers share the same compiled pattern. The order of the values is
+     * retained.
+     *
+     * @param   <T>      Type of the values.
+     * @param   values   Values to filter. The values must not be <code>null</code>.
+     * @param   pattern  Wildcard pattern.
+     *
+     * @return  New list with the matching values.
+     *
+     * @throws  IllegalArgumentException  One of the parameters or one of the values is <code>null</code>.
+     */
+    public <T extends CharSequence> List<T> filterParallel(Collection<? extends T> values, String pattern)
+            throws IllegalArgumentException {
+        if (values == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("values").get());
         }
 
-        // chars must be equal
-        patternChar = pattern.charAt(patternPos);
-        textChar = text.charAt(textPos);
-        if (!this.caseSensitive) {
-            patternChar = Character.toLowerCase(patternChar);
-            textChar = Character.toLowerCase(textChar);
+        if (values.size() < PARALLEL_THRESHOLD) {
+            return filter(values, pattern);
         }
-        if (patternChar == textChar) {
-            return matches(text, pattern, textPos + 1, patternPos + 1);
+
+        return values.parallelStream().filter(compile(pattern)).collect(Collectors.<T>toList());
+    }
+
+
+    /**
+     * Returns a stream of the values that match the pattern. The values are read from the spliterator, so any source
+     * that can be split (collections, arrays, other streams) can be filtered sequentially or in parallel. All workers
+     * share the same compiled pattern.
+     *
+     * @param   <T>       Type of the values.
+     * @param   values    Spliterator of the values to filter. The values must not be <code>null</code>.
+     * @param   pattern   Wildcard pattern.
+     * @param   parallel  If <code>true</code>, the returned stream is a parallel stream.
+     *
+     * @return  Stream with the matching values.
+     *
+     * @throws  IllegalArgumentException  One of the parameters is <code>null</code>.
+     */
+    public <T extends CharSequence> Stream<T> filter(Spliterator<T> values, String pattern, boolean parallel)
+            throws IllegalArgumentException {
+        final CompiledWildcard compiled = compile(pattern);
+
+        if (values == null) {
+            throw new IllegalArgumentException(SimpleTextSupplier.argMustNotBeNull("values").get());
         }
 
-        return false;
+        return StreamSupport.stream(values, parallel).filter(compiled);
+    }
+
+
+    /**
+     * Converts the text the same way as {@link #compile(String)} converts the literal characters of a pattern. In 'case
+     * sensitive' mode, the text is returned unchanged.
+     *
+     * @param   text  Text to convert.
+     *
+     * @return  Converted text.
+     */
+    String foldCase(String text) {
+        return this.caseFolding == CaseFolding.NONE ? text : this.caseFolding.fold(text);
+    }
+
+
+    /**
+     * Adds the collected characters as new segment and resets the buffers. Empty segments are ignored. The characters
+     * are folded as a whole, so surrogate pairs are folded as one character.
+     *
+     * @param  segments             List of the segments.
+     * @param  singleCharWildcards  List of the single char wildcard positions.
+     * @param  chars                Collected characters.
+     * @param  wildcards            Collected single char wildcard flags ({@code '1'} for a wildcard).
+     */
+    private void addSegment(List<char[]> segments, List<boolean[]> singleCharWildcards, StringBuilder chars,
+            StringBuilder wildcards) {
+        if (chars.length() > 0) {
+            boolean[] flags = null;
+
+            for (int i = 0; i < wildcards.length(); i++) {
+                if (wildcards.charAt(i) == '1') {
+                    if (flags == null) {
+                        flags = new boolean[wildcards.length()];
+                    }
+                    flags[i] = true;
+                }
+            }
+            segments.add(this.caseFolding.fold(chars).toCharArray());
+            singleCharWildcards.add(flags);
+            chars.setLength(0);
+            wildcards.setLength(0);
+        }
     }
 
 }
@@ -2,6 +2,7 @@ package ch.syseca.sstl.util.beanutil;
 
 import static org.junit.Assert.*;
 import org.junit.Test;
+import ch.syseca.sstl.util.text.CompactProperties;
 
 
 /**
@@ -22,6 +23,21 @@ public class BeanUtilTest {
         assertEquals(Foo.FooType.TYPE_1, f.getFooType());
     }
 
+    /**
+     * Test mit {@link CompactProperties}.
+     */
+    @Test
+    public void testCreateBeanCompactProperties() {
+        final CompactProperties p = new CompactProperties();
+        Foo f;
+
+        p.setProperty("value", "12");
+        p.setProperty("fooType", "TYPE_1");
+        f = BeanUtil.createBean(Foo.class, p);
+        assertEquals(12, f.getValue());
+        assertEquals(Foo.FooType.TYPE_1, f.getFooType());
+    }
+
     /**
      * DOCUMENT ME!
      */
@@ -0,0 +1,151 @@
+package ch.syseca.sstl.util.date;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+
+
+/**
+ * JUnit Test f&uuml;r {@link TimeRangeColumns}.
+ */
+public class TimeRangeColumnsTest {
+
+    @Test
+    public void testQueries() {
+        final TimeRangeColumns columns = TimeRangeColumns.of(Arrays.asList(
+                    new TimeRange(100, 200),
+                    new TimeRange(150, 250),
+                    new TimeRange(200, 300),
+                    new TimeRange(400, 400)));
+
+        assertEquals(4, columns.size());
+        assertTrue(columns.isSorted());
+        assertEquals(0, columns.countContaining(99));
+        assertEquals(2, columns.countContaining(150));
+        assertEquals(2, columns.countContaining(200));
+        assertEquals(0, columns.countContaining(400));
+        assertEquals(2, columns.countOverlapping(new TimeRange(0, 151)));
+        assertEquals(150L, columns.overlapMillis(new TimeRange(100, 200)));
+        assertEquals(100L, columns.coveredMillis(new TimeRange(100, 200)));
+        assertEquals(200L, columns.coveredMillis(new TimeRange(0, 1000)));
+        assertEquals(2, columns.maxConcurrency());
+        assertEquals(new TimeRange(150, 250), columns.get(1));
+    }
+
+
+    @Test
+    public void testSort() {
+        final TimeRangeColumns columns = new TimeRangeColumns(0, true);
+        final LongBuffer begins;
+
+        columns.add(300, 400);
+        columns.add(100, 300);
+        columns.add(100, 200);
+        assertFalse(columns.isSorted());
+
+        columns.sort();
+        assertTrue(columns.isSorted());
+        begins = columns.getMinTimes();
+        assertEquals(3, begins.limit());
+        assertEquals(100L, begins.get(0));
+        assertEquals(100L, begins.get(1));
+        assertEquals(300L, begins.get(2));
+        assertEquals(200L, columns.getMaxTime(0));
+        assertEquals(300L, columns.getMaxTime(1));
+        assertEquals(400L, columns.getMaxTimes().get(2));
+    }
+
+
+    @Test
+    public void testOffHeap() {
+        final TimeRangeColumns heap = new TimeRangeColumns(0, false);
+        final TimeRangeColumns direct = new TimeRangeColumns(0, true);
+
+        // absteigend hinzugefuegt, mehr Zeitbereiche als in einen Abschnitt passen
+        for (int i = 9999; i >= 0; i--) {
+            heap.add(i, i + 10);
+            direct.add(i, i + 10);
+        }
+
+        assertFalse(heap.isOffHeap());
+        assertTrue(direct.isOffHeap());
+        assertTrue(direct.getMinTimes().isDirect());
+        assertFalse(direct.isSorted());
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (TimeRangeColumns columns : new TimeRangeColumns[] { heap, direct }) {
+                assertEquals(10, columns.countContaining(4096));
+                assertEquals(1, columns.countContaining(0));
+                assertEquals(0, columns.countContaining(10009));
+                assertEquals(19, columns.countOverlapping(new TimeRange(4090, 4100)));
+                assertEquals(49955L, columns.overlapMillis(new TimeRange(0, 5000)));
+                assertEquals(10009L, columns.coveredMillis(new TimeRange(0, 20000)));
+                assertEquals(10, columns.maxConcurrency());
+                columns.sort();
+            }
+
+            // zweiter Durchgang mit sortierten Spalten
+            assertTrue(heap.isSorted());
+            assertTrue(direct.isSorted());
+        }
+        assertEquals(new TimeRange(0, 10), direct.get(0));
+        assertEquals(new TimeRange(9999, 10009), direct.get(9999));
+    }
+
+
+    @Test
+    public void testEmptyAndTouchingRanges() {
+        final TimeRangeColumns columns = new TimeRangeColumns();
+
+        assertEquals(0, columns.maxConcurrency());
+        assertEquals(0L, columns.coveredMillis(new TimeRange(0, 100)));
+        assertEquals(0, columns.countContaining(0));
+
+        columns.add(0, 10);
+        columns.add(10, 20);
+        columns.add(15, 15);
+        columns.add(30, 20);
+        assertTrue(columns.isSorted());
+
+        // Endzeiten sind exklusive, leere und verkehrte Zeitbereiche enthalten keine Zeit
+        assertEquals(1, columns.maxConcurrency());
+        assertEquals(1, columns.countContaining(10));
+        assertEquals(1, columns.countContaining(15));
+        assertEquals(20L, columns.coveredMillis(new TimeRange(0, 100)));
+        assertEquals(20L, columns.overlapMillis(new TimeRange(0, 100)));
+
+        // wie TimeRange.isOverlappedBy: ein leerer Zeitbereich innerhalb des Fensters ueberschneidet sich
+        assertEquals(2, columns.countOverlapping(new TimeRange(12, 18)));
+        assertEquals(0, columns.countOverlapping(new TimeRange(20, 30)));
+        assertEquals(0, columns.countOverlapping(new TimeRange(Long.MIN_VALUE, Long.MIN_VALUE)));
+    }
+
+
+    @Test
+    public void testException() {
+        try {
+            new TimeRangeColumns(-1, false);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            new TimeRangeColumns().countOverlapping(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() {
+        new TimeRangeColumns(10, false).getMinTime(0);
+    }
+
+}
@@ -0,0 +1,176 @@
+package ch.syseca.sstl.util.date;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+
+/**
+ * JUnit Test f&uuml;r {@link TimeRangeIndex}.
+ */
+public class TimeRangeIndexTest {
+
+    @Test
+    public void testFindContaining() {
+        final TimeRangeIndex<String> index = new TimeRangeIndex<>();
+
+        index.add(new TimeRange(100, 200), "a");
+        index.add(new TimeRange(150, 250), "b");
+        index.add(new TimeRange(200, 300), "c");
+        index.add(new TimeRange(100, 200), "d");
+
+        assertEquals(Collections.emptyList(), index.findContaining(99));
+        assertEquals(Arrays.asList("a", "d"), index.findContaining(100));
+        assertEquals(Arrays.asList("a", "d", "b"), index.findContaining(199));
+        assertEquals(Arrays.asList("b", "c"), index.findContaining(200));
+        assertEquals(Collections.emptyList(), index.findContaining(300));
+        assertEquals(Collections.emptyList(), index.findContaining(Long.MAX_VALUE));
+        assertEquals(4, index.size());
+    }
+
+
+    @Test
+    public void testFindOverlapping() {
+        final TimeRangeIndex<String> index = new TimeRangeIndex<>(
+                Arrays.asList("100-200", "150-250", "200-300", "400-500"),
+                s -> new TimeRange(Long.parseLong(s.substring(0, 3)), Long.parseLong(s.substring(4))));
+
+        assertEquals(Arrays.asList("100-200", "150-250"), index.findOverlapping(new TimeRange(0, 151)));
+        assertEquals(Arrays.asList("150-250", "200-300"), index.findOverlapping(new TimeRange(200, 201)));
+        assertEquals(Collections.emptyList(), index.findOverlapping(new TimeRange(300, 400)));
+        assertEquals(Arrays.asList("400-500"), index.findOverlapping(new TimeRange(300, 401)));
+    }
+
+
+    @Test
+    public void testRemove() {
+        final TimeRangeIndex<String> index = new TimeRangeIndex<>();
+
+        index.add(new TimeRange(100, 200), "a");
+        index.add(new TimeRange(100, 200), "b");
+        index.add(new TimeRange(100, 200), "a");
+
+        assertFalse(index.remove(new TimeRange(100, 201), "a"));
+        assertFalse(index.remove(new TimeRange(100, 200), "c"));
+        assertTrue(index.remove(new TimeRange(100, 200), "a"));
+        assertEquals(Arrays.asList("b", "a"), index.findContaining(150));
+        assertTrue(index.remove(new TimeRange(100, 200), "a"));
+        assertTrue(index.remove(new TimeRange(100, 200), "b"));
+        assertTrue(index.isEmpty());
+        assertEquals(Collections.emptyList(), index.findContaining(150));
+    }
+
+
+    @Test
+    public void testRemoveNodeWithTwoChildren() {
+        final TimeRangeIndex<String> index = new TimeRangeIndex<>();
+
+        // sortiert eingefuegt: "d" wird die Wurzel mit den Kindern "b" und "f"
+        index.add(new TimeRange(0, 10), "a");
+        index.add(new TimeRange(10, 20), "b");
+        index.add(new TimeRange(20, 30), "c");
+        index.add(new TimeRange(30, 40), "d");
+        index.add(new TimeRange(40, 50), "e");
+        index.add(new TimeRange(50, 60), "f");
+        index.add(new TimeRange(60, 1000), "g");
+
+        assertTrue(index.remove(new TimeRange(30, 40), "d"));
+        assertEquals(Collections.emptyList(), index.findContaining(35));
+        assertEquals(Arrays.asList("e"), index.findContaining(45));
+        assertEquals(Arrays.asList("a", "b", "c", "e", "f", "g"), index.findOverlapping(new TimeRange(0, 1000)));
+
+        assertTrue(index.remove(new TimeRange(10, 20), "b"));
+        assertTrue(index.remove(new TimeRange(60, 1000), "g"));
+        assertEquals(Collections.emptyList(), index.findContaining(500));
+        assertEquals(Arrays.asList("a", "c", "e", "f"), index.findOverlapping(new TimeRange(0, 1000)));
+        assertEquals(4, index.size());
+    }
+
+
+    @Test
+    public void testRemoveLongRange() {
+        final TimeRangeIndex<String> index = new TimeRangeIndex<>();
+
+        // der lange Zeitbereich bestimmt die groesste Endzeit des linken Teilbaumes
+        index.add(new TimeRange(0, 1000), "long");
+        for (int i = 1; i < 8; i++) {
+            index.add(new TimeRange(i * 10, i * 10 + 5), "short" + i);
+        }
+
+        assertEquals(Arrays.asList("long"), index.findContaining(999));
+        assertEquals(Arrays.asList("long", "short3"), index.findContaining(30));
+        assertTrue(index.remove(new TimeRange(0, 1000), "long"));
+        assertEquals(Collections.emptyList(), index.findContaining(999));
+        assertEquals(Arrays.asList("short3"), index.findContaining(30));
+        assertEquals(Arrays.asList("short1", "short2"), index.findOverlapping(new TimeRange(0, 21)));
+    }
+
+
+    @Test
+    public void testDuplicates() {
+        final TimeRangeIndex<String> index = new TimeRangeIndex<>(
+                Arrays.asList("a", "b", "c", "d", "e"), s -> new TimeRange(100, 200));
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), index.findContaining(100));
+        assertTrue(index.remove(new TimeRange(100, 200), "c"));
+        assertTrue(index.remove(new TimeRange(100, 200), "a"));
+        assertFalse(index.remove(new TimeRange(100, 200), "a"));
+        assertEquals(Arrays.asList("b", "d", "e"), index.findOverlapping(new TimeRange(199, 300)));
+        assertEquals(Collections.emptyList(), index.findOverlapping(new TimeRange(200, 300)));
+    }
+
+
+    @Test
+    public void testEmptyAndBoundaries() {
+        final TimeRangeIndex<String> index = new TimeRangeIndex<>(Collections.<String>emptyList(), s -> null);
+
+        assertTrue(index.isEmpty());
+        assertEquals(Collections.emptyList(), index.findContaining(0));
+
+        index.add(new TimeRange(Long.MIN_VALUE, Long.MAX_VALUE), "all");
+        index.add(new TimeRange(100, 100), "empty");
+        assertEquals(Arrays.asList("all"), index.findContaining(Long.MIN_VALUE));
+        assertEquals(Arrays.asList("all"), index.findContaining(100));
+        assertEquals(Collections.emptyList(), index.findContaining(Long.MAX_VALUE));
+
+        // wie TimeRange.isOverlappedBy: ein leerer Zeitbereich innerhalb des Fensters ueberschneidet sich
+        assertEquals(Arrays.asList("all", "empty"), index.findOverlapping(new TimeRange(50, 150)));
+        assertEquals(Arrays.asList("all"), index.findOverlapping(new TimeRange(100, 150)));
+
+        index.clear();
+        assertTrue(index.isEmpty());
+        assertEquals(Collections.emptyList(), index.findOverlapping(new TimeRange(50, 150)));
+    }
+
+
+    @Test
+    public void testException() {
+        final TimeRangeIndex<String> index = new TimeRangeIndex<>();
+
+        try {
+            index.add(null, "a");
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            index.findOverlapping(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            new TimeRangeIndex<String>(null, s -> null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+}
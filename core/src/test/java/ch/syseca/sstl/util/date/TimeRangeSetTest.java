@@ -0,0 +1,180 @@
+package ch.syseca.sstl.util.date;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+
+/**
+ * JUnit Test f&uuml;r {@link TimeRangeSet}.
+ */
+public class TimeRangeSetTest {
+
+    @Test
+    public void testOf() {
+        final TimeRangeSet set = TimeRangeSet.of(
+                new TimeRange(300, 400),
+                new TimeRange(100, 200),
+                new TimeRange(150, 250),
+                new TimeRange(250, 260),
+                new TimeRange(500, 500));
+
+        assertEquals(Arrays.asList(new TimeRange(100, 260), new TimeRange(300, 400)), set.getRanges());
+        assertEquals(2, set.size());
+        assertEquals(260L, set.getMaxTime(0));
+        assertEquals(260L, set.millis());
+        assertSame(TimeRangeSet.EMPTY, TimeRangeSet.of());
+        assertSame(TimeRangeSet.EMPTY, TimeRangeSet.of(new TimeRange(10, 10)));
+        assertEquals(set, TimeRangeSet.of(new TimeRange(300, 400), new TimeRange(100, 260)));
+        assertEquals(set.hashCode(), TimeRangeSet.of(new TimeRange(300, 400), new TimeRange(100, 260)).hashCode());
+    }
+
+
+    @Test
+    public void testContains() {
+        final TimeRangeSet set = TimeRangeSet.of(new TimeRange(100, 200), new TimeRange(300, 400));
+
+        assertFalse(set.contains(99));
+        assertTrue(set.contains(100));
+        assertTrue(set.contains(199));
+        assertFalse(set.contains(200));
+        assertTrue(set.contains(300));
+        assertFalse(set.contains(400));
+        assertFalse(TimeRangeSet.EMPTY.contains(0));
+
+        assertTrue(set.containsRange(new TimeRange(100, 200)));
+        assertFalse(set.containsRange(new TimeRange(150, 350)));
+        assertTrue(set.isOverlappedBy(new TimeRange(150, 350)));
+        assertFalse(set.isOverlappedBy(new TimeRange(200, 300)));
+        assertTrue(set.isOverlappedBy(new TimeRange(0, 101)));
+    }
+
+
+    @Test
+    public void testAlgebra() {
+        final TimeRangeSet a = TimeRangeSet.of(new TimeRange(100, 200), new TimeRange(300, 400));
+        final TimeRangeSet b = TimeRangeSet.of(new TimeRange(150, 350));
+
+        assertEquals(TimeRangeSet.of(new TimeRange(100, 400)), a.union(b));
+        assertEquals(TimeRangeSet.of(new TimeRange(150, 200), new TimeRange(300, 350)), a.intersect(b));
+        assertEquals(TimeRangeSet.of(new TimeRange(100, 150), new TimeRange(350, 400)), a.subtract(b));
+        assertEquals(TimeRangeSet.of(new TimeRange(200, 300)), b.subtract(a));
+        assertEquals(
+                TimeRangeSet.of(new TimeRange(0, 100), new TimeRange(200, 300), new TimeRange(400, 500)),
+                a.complement(new TimeRange(0, 500)));
+        assertSame(TimeRangeSet.EMPTY, a.intersect(TimeRangeSet.EMPTY));
+        assertEquals(a, a.union(TimeRangeSet.EMPTY));
+        assertEquals("[1970-01-01T00:00:00.150Z/1970-01-01T00:00:00.350Z]", b.toString());
+    }
+
+
+    @Test
+    public void testOfTouchingAndEmpty() {
+
+        // beruehrende Zeitbereiche werden zusammengefasst, auch ueber einen leeren Zeitbereich hinweg
+        assertEquals(Arrays.asList(new TimeRange(0, 30)), TimeRangeSet.of(
+                    new TimeRange(10, 20),
+                    new TimeRange(0, 10),
+                    new TimeRange(20, 20),
+                    new TimeRange(20, 30)).getRanges());
+
+        // leere Zeitbereiche zaehlen nicht, auch nicht zwischen zwei Zeitbereichen
+        assertEquals(Arrays.asList(new TimeRange(0, 10), new TimeRange(11, 20)), TimeRangeSet.of(
+                    new TimeRange(0, 10),
+                    new TimeRange(10, 10),
+                    new TimeRange(11, 11),
+                    new TimeRange(11, 20)).getRanges());
+
+        // verkehrte Zeitbereiche sind leer
+        assertSame(TimeRangeSet.EMPTY, TimeRangeSet.of(new TimeRange(20, 10), new TimeRange(5, 5)));
+        assertTrue(TimeRangeSet.EMPTY.isEmpty());
+        assertFalse(TimeRangeSet.of(new TimeRange(0, 1)).isEmpty());
+
+        // enthaltene Zeitbereiche aendern die Endzeit nicht
+        assertEquals(Arrays.asList(new TimeRange(0, 100)),
+                TimeRangeSet.of(new TimeRange(0, 100), new TimeRange(10, 20), new TimeRange(0, 50)).getRanges());
+    }
+
+
+    @Test
+    public void testContainsEdges() {
+        final TimeRangeSet set = TimeRangeSet.of(new TimeRange(Long.MIN_VALUE, 0), new TimeRange(10, Long.MAX_VALUE));
+
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertTrue(set.contains(-1));
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(9));
+        assertTrue(set.contains(10));
+        assertFalse(set.contains(Long.MAX_VALUE));
+
+        assertTrue(set.containsRange(new TimeRange(10, Long.MAX_VALUE)));
+        assertFalse(set.containsRange(new TimeRange(-1, 11)));
+        assertFalse(set.isOverlappedBy(new TimeRange(0, 10)));
+        assertFalse(set.isOverlappedBy(new TimeRange(Long.MIN_VALUE, Long.MIN_VALUE)));
+        assertTrue(set.isOverlappedBy(new TimeRange(9, 11)));
+        assertFalse(TimeRangeSet.EMPTY.isOverlappedBy(new TimeRange(0, 10)));
+        assertFalse(TimeRangeSet.EMPTY.containsRange(new TimeRange(0, 10)));
+    }
+
+
+    @Test
+    public void testComplement() {
+        final TimeRangeSet set = TimeRangeSet.of(new TimeRange(100, 200), new TimeRange(300, 400));
+
+        assertEquals(TimeRangeSet.of(new TimeRange(200, 300)), set.complement(new TimeRange(150, 350)));
+        assertSame(TimeRangeSet.EMPTY, set.complement(new TimeRange(100, 200)));
+        assertSame(TimeRangeSet.EMPTY, set.complement(new TimeRange(250, 250)));
+        assertEquals(TimeRangeSet.of(new TimeRange(0, 100)), set.complement(new TimeRange(0, 100)));
+        assertEquals(TimeRangeSet.of(new TimeRange(0, 10)), TimeRangeSet.EMPTY.complement(new TimeRange(0, 10)));
+
+        // Vereinigung und Komplement ergeben zusammen den ganzen Bereich
+        assertEquals(TimeRangeSet.of(new TimeRange(0, 500)), set.union(set.complement(new TimeRange(0, 500))));
+    }
+
+
+    @Test
+    public void testAlgebraTouching() {
+        final TimeRangeSet a = TimeRangeSet.of(new TimeRange(0, 10), new TimeRange(20, 30));
+        final TimeRangeSet b = TimeRangeSet.of(new TimeRange(10, 20));
+
+        assertEquals(TimeRangeSet.of(new TimeRange(0, 30)), a.union(b));
+        assertEquals(1, a.union(b).size());
+        assertSame(TimeRangeSet.EMPTY, a.intersect(b));
+        assertEquals(a, a.subtract(b));
+        assertSame(TimeRangeSet.EMPTY, a.subtract(a));
+        assertSame(TimeRangeSet.EMPTY, b.subtract(TimeRangeSet.of(new TimeRange(0, 30))));
+        assertEquals(TimeRangeSet.of(new TimeRange(0, 5), new TimeRange(25, 30)),
+                a.subtract(TimeRangeSet.of(new TimeRange(5, 25))));
+    }
+
+
+    @Test
+    public void testException() {
+        try {
+            TimeRangeSet.EMPTY.union(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            TimeRangeSet.of(Collections.singletonList((TimeRange) null));
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            TimeRangeSet.EMPTY.complement(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+}
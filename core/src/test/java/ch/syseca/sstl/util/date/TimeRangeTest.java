@@ -3,12 +3,21 @@ package ch.syseca.sstl.util.date;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Date;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -103,7 +112,7 @@ public class TimeRangeTest {
 
         assertTrue(t1.getMinTime() == t2.getMinTime());
         assertTrue(t1.getBeginTime().equals(t2.getBeginTime()));
-        assertFalse(t2.getBeginTime().equals(t1.getBeginTime()));
+        assertTrue(t2.getBeginTime().equals(t1.getBeginTime()));
         assertEquals(t1, t2);
 
     }
@@ -204,4 +213,123 @@ public class TimeRangeTest {
 
         assertEquals("2015-01-10T00:00:00Z/2015-01-11T00:00:00Z", tz.toString());
     }
+
+
+    @Test
+    public void testContainsRange03() {
+        assertTrue(TimeRangeTest.timeRange.containsRange(new TimeRange(100, 200)));
+    }
+
+
+    @Test
+    public void testHashCode() {
+        final long[] times = { 0, 1, -1, 100, 200, Long.MIN_VALUE, Long.MAX_VALUE, System.currentTimeMillis() };
+
+        for (long min : times) {
+            for (long max : times) {
+                assertEquals(
+                        new HashCodeBuilder(1, 25).append(min).append(max).toHashCode(),
+                        new TimeRange(min, max).hashCode());
+            }
+        }
+    }
+
+
+    @Test
+    public void testBeginEndTime() {
+        final Date begin = new Date(100);
+        final TimeRange t1 = new TimeRange(begin, new Date(200));
+        final TimeRange t2 = new TimeRange(100, 200);
+
+        assertEquals(begin, t1.getBeginTime());
+        assertNotSame(begin, t1.getBeginTime());
+        assertEquals(begin, t2.getBeginTime());
+        assertNotSame(t2.getBeginTime(), t2.getBeginTime());
+        assertEquals(new Date(200), t2.getEndTime());
+        assertEquals(t1.getMinInstant(), t2.getMinInstant());
+        assertEquals(t1.getMaxInstant(), t2.getMaxInstant());
+
+        // Aenderungen am Date Objekt aendern den Zeitbereich nicht
+        begin.setTime(0);
+        t1.getEndTime().setTime(0);
+        assertEquals(t2, t1);
+    }
+
+
+    @Test
+    public void testNullDate() {
+        try {
+            new TimeRange(null, new Date(200));
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            TimeRange.builder().beginTime(new Date(100)).build();
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+
+    @Test
+    public void testSerialization() throws Exception {
+        final TimeRange tr = new TimeRange(100, 200);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final TimeRange copy;
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(tr);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (TimeRange) in.readObject();
+        }
+
+        assertEquals(tr, copy);
+        assertEquals(new Date(100), copy.getBeginTime());
+        assertEquals(200L, copy.getMaxTime());
+
+        // Serialisierte Form wie in der Version mit Date Feldern
+        assertEquals(-6125723732572419271L, ObjectStreamClass.lookup(TimeRange.class).getSerialVersionUID());
+        assertEquals(Date.class, ObjectStreamClass.lookup(TimeRange.class).getField("beginTime").getType());
+        assertEquals(Date.class, ObjectStreamClass.lookup(TimeRange.class).getField("endTime").getType());
+    }
+
+
+    @Test
+    public void testIntersectOrNull() {
+        final TimeRange base = new TimeRange(100, 200);
+
+        assertSame(base, base.intersectOrNull(base));
+        assertEquals(new TimeRange(150, 200), base.intersectOrNull(new TimeRange(150, 250)));
+        assertNull(base.intersectOrNull(new TimeRange(200, 300)));
+        assertNull(base.intersectOrNull(new TimeRange(0, 100)));
+
+        assertSame(base, base.intersect(new TimeRange(200, 300), base));
+        assertEquals(new TimeRange(100, 150), base.intersect(new TimeRange(0, 150), base));
+    }
+
+
+    @Test
+    public void testTryIntersect() {
+        final TimeRange base = new TimeRange(100, 200);
+        final long[] out = { -1, -1 };
+
+        assertFalse(base.tryIntersect(new TimeRange(200, 300), out));
+        assertEquals(-1L, out[0]);
+        assertEquals(-1L, out[1]);
+
+        assertTrue(base.tryIntersect(new TimeRange(150, 250), out));
+        assertEquals(150L, out[0]);
+        assertEquals(200L, out[1]);
+
+        try {
+            base.tryIntersect(base, new long[1]);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
 }
@@ -2,8 +2,14 @@ package ch.syseca.sstl.util.misc;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Test;
+import org.slf4j.Logger;
+import ch.syseca.sstl.util.text.MessageTemplate;
 
 
 /**
@@ -27,4 +33,53 @@ public class SeverityTest {
         assertEquals(Severity.ERROR, Severity.worstOf(Severity.INFO, Severity.WARN, Severity.ERROR, Severity.WARN));
         assertEquals(Severity.FATAL, Severity.worstOf(Severity.FATAL, Severity.WARN, Severity.ERROR, Severity.WARN));
     }
+
+
+    @Test
+    public void testLazyLog() {
+        final List<String> written = new ArrayList<>();
+        final Logger logger = warnLogger(written);
+        final MessageTemplate template = MessageTemplate.compile("{count} files in {dir}");
+        final int[] calls = { 0 };
+
+        assertFalse(Severity.INFO.isEnabled(logger));
+        assertTrue(Severity.WARN.isEnabled(logger));
+        assertTrue(Severity.FATAL.isEnabled(logger));
+
+        Severity.INFO.log(logger, template.bind().with("count", 3).withSupplier("dir", () -> {
+            calls[0]++;
+            return "/tmp";
+        }));
+        Severity.TRACE.log(logger, () -> {
+            calls[0]++;
+            return "trace";
+        });
+        assertEquals(0, calls[0]);
+        assertEquals(0, written.size());
+
+        Severity.WARN.log(logger, template.bind().with("count", 3).withSupplier("dir", () -> {
+            calls[0]++;
+            return "/tmp";
+        }));
+        Severity.ERROR.log(logger, () -> "error", new IllegalStateException());
+        assertEquals(1, calls[0]);
+        assertEquals("[warn: 3 files in /tmp, error: error]", written.toString());
+    }
+
+
+    /**
+     * Returns a logger, that writes warnings and errors to the list.
+     */
+    private static Logger warnLogger(List<String> written) {
+        return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[] { Logger.class },
+            (proxy, method, args) -> {
+                final String name = method.getName();
+
+                if (name.endsWith("Enabled")) {
+                    return name.equals("isWarnEnabled") || name.equals("isErrorEnabled");
+                }
+                written.add(name + ": " + args[0]);
+                return null;
+            });
+    }
 }
@@ -0,0 +1,225 @@
+package ch.syseca.sstl.util.text;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.Test;
+
+
+/**
+ * JUnit Test f&uuml;r {@link BinaryPropertiesCodec}
+ */
+public class BinaryPropertiesCodecTest {
+
+    @Test
+    public void testLinkedProperties() {
+        final BinaryPropertiesCodec codec = new BinaryPropertiesCodec();
+        final LinkedProperties p = new LinkedProperties();
+        final LinkedProperties result;
+
+        p.setProperty("b", "1+1=2;");
+        p.setProperty("a", null);
+        p.setProperty(" c ", "\u00e4\u20ac\ud83d\ude00");
+        p.setProperty("", "");
+
+        result = codec.decodeLinkedProperties(ByteBuffer.wrap(codec.encode(p)));
+        assertEquals(p, result);
+        assertEquals("[b, a,  c , ]", result.keySet().toString());
+    }
+
+
+    @Test
+    public void testProperties() {
+        final BinaryPropertiesCodec codec = new BinaryPropertiesCodec(Arrays.asList("name", "value"), true);
+        final Properties p = new Properties();
+        final StringBuilder large = new StringBuilder();
+
+        for (int i = 0; i < 1000; i++) {
+            large.append("repeated text ");
+        }
+        p.setProperty("name", "x");
+        p.setProperty("value", large.toString());
+        p.setProperty("other", "y");
+
+        assertEquals(p, codec.decodeProperties(ByteBuffer.wrap(codec.encode(p))));
+        assertEquals(Boolean.TRUE, Boolean.valueOf(codec.encode(p).length < 200));
+    }
+
+
+    @Test
+    public void testByteBuffer() {
+        final BinaryPropertiesCodec codec = new BinaryPropertiesCodec(Collections.singletonList("a"), false);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        final LinkedProperties p1 = new LinkedProperties();
+        final LinkedProperties p2 = new LinkedProperties();
+
+        p1.setProperty("a", "1");
+        p2.setProperty("b", "2");
+        codec.encode(p1, buffer);
+        codec.encode(p2, buffer);
+        buffer.flip();
+
+        assertEquals(p1, codec.decodeLinkedProperties(buffer));
+        assertEquals(p2, codec.decodeLinkedProperties(buffer));
+        assertEquals(0, buffer.remaining());
+    }
+
+
+    @Test
+    public void testPositionUnchangedOnError() {
+        final BinaryPropertiesCodec codec = new BinaryPropertiesCodec();
+        final LinkedProperties p1 = new LinkedProperties();
+        final LinkedProperties p2 = new LinkedProperties();
+        final ByteBuffer buffer = ByteBuffer.allocate(256);
+        final ByteBuffer truncated;
+        final int position;
+
+        p1.setProperty("a", "1");
+        p2.setProperty("b", null);
+        codec.encode(p1, buffer);
+        codec.encode(p2, buffer);
+        buffer.flip();
+        truncated = ByteBuffer.wrap(codec.encode(p1), 0, 4);
+
+        try {
+            codec.decodeLinkedProperties(truncated);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            assertEquals(0, truncated.position());
+        }
+
+        assertEquals(p1, codec.decodeProperties(buffer));
+        position = buffer.position();
+        try {
+            codec.decodeProperties(buffer);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            assertEquals(position, buffer.position());
+        }
+        assertEquals(p2, codec.decodeLinkedProperties(buffer));
+        assertEquals(0, buffer.remaining());
+    }
+
+
+    /**
+     * Die Properties werden erst nach dem vollst&auml;ndigen Lesen in die Map geschrieben.
+     */
+    @Test
+    public void testMapUnchangedOnError() {
+        final BinaryPropertiesCodec codec = new BinaryPropertiesCodec();
+        final LinkedProperties p = new LinkedProperties();
+        final Map<String, String> target = new HashMap<>();
+        final byte[] data;
+        final ByteBuffer truncated;
+
+        p.setProperty("a", "1");
+        p.setProperty("b", "2");
+        data = codec.encode(p);
+        truncated = ByteBuffer.wrap(data, 0, data.length - 1);
+        target.put("x", "0");
+
+        try {
+            codec.decode(truncated, target);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            assertEquals(Collections.singletonMap("x", "0"), target);
+            assertEquals(0, truncated.position());
+        }
+
+        assertSame(target, codec.decode(ByteBuffer.wrap(data), target));
+        assertEquals(3, target.size());
+        assertEquals("2", target.get("b"));
+    }
+
+
+    @Test
+    public void testBufferOverflow() {
+        for (BinaryPropertiesCodec codec : Arrays.asList(new BinaryPropertiesCodec(),
+                new BinaryPropertiesCodec(Collections.singletonList("a"), true))) {
+            final LinkedProperties p = new LinkedProperties();
+            final byte[] data;
+            final ByteBuffer small;
+            final ByteBuffer exact;
+
+            p.setProperty("a", "1");
+            p.setProperty("b", "22222222222222222222");
+            data = codec.encode(p);
+            small = ByteBuffer.allocate(data.length + 1);
+            small.put((byte) 0);
+            small.put((byte) 0);
+
+            try {
+                codec.encode(p, small);
+                throw new AssertionError("Must throw a BufferOverflowException exception.");
+            } catch (BufferOverflowException e) {
+                assertEquals(2, small.position());
+            }
+
+            exact = ByteBuffer.allocate(data.length);
+            codec.encode(p, exact);
+            assertEquals(0, exact.remaining());
+            assertTrue(Arrays.equals(data, exact.array()));
+            exact.flip();
+            assertEquals(p, codec.decodeLinkedProperties(exact));
+        }
+    }
+
+
+    @Test
+    public void testException() {
+        final BinaryPropertiesCodec codec = new BinaryPropertiesCodec();
+        final LinkedProperties p = new LinkedProperties();
+        final byte[] data;
+
+        p.setProperty("a", "1");
+        data = codec.encode(p);
+
+        try {
+            codec.decodeLinkedProperties(ByteBuffer.wrap(data, 0, data.length - 1));
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            new BinaryPropertiesCodec(Collections.singletonList("a"), false).decodeLinkedProperties(
+                ByteBuffer.wrap(data));
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            final LinkedProperties withNull = new LinkedProperties();
+
+            withNull.setProperty("a", null);
+            codec.decodeProperties(ByteBuffer.wrap(codec.encode(withNull)));
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            new BinaryPropertiesCodec(Arrays.asList("a", "a"), false);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            codec.encode(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+}
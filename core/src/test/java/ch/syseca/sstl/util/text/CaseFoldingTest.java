@@ -0,0 +1,82 @@
+package ch.syseca.sstl.util.text;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Locale;
+import org.junit.Test;
+
+
+/**
+ * JUnit-Test f&uuml;r {@link CaseFolding}.
+ */
+public class CaseFoldingTest {
+
+    /** Deseret capital long i (U+10400) and its lower case letter (U+10428). */
+    private static final String DESERET_UPPER = "\uD801\uDC00";
+
+    private static final String DESERET_LOWER = "\uD801\uDC28";
+
+
+    @Test
+    public void testFold() {
+        assertEquals("Test\u00C4", CaseFolding.NONE.fold("Test\u00C4"));
+        assertEquals("test\u00E4", CaseFolding.SIMPLE.fold("Test\u00C4"));
+        assertEquals(DESERET_UPPER, CaseFolding.SIMPLE.fold(DESERET_UPPER));
+        assertEquals("test\u00E4", CaseFolding.UNICODE.fold("Test\u00C4"));
+        assertEquals(DESERET_LOWER, CaseFolding.UNICODE.fold(DESERET_UPPER));
+        assertEquals("s\u03C3", CaseFolding.UNICODE.fold("\u017F\u03C2"));
+        assertEquals("\u0131i", CaseFolding.forLocale(new Locale("tr")).fold("I\u0130"));
+        assertEquals("ii", CaseFolding.forLocale(Locale.GERMAN).fold("Ii"));
+
+        // unpaired surrogates are returned unchanged
+        assertEquals("\uD801a", CaseFolding.UNICODE.fold("\uD801A"));
+        assertEquals("\uDC00", CaseFolding.UNICODE.fold("\uDC00"));
+    }
+
+
+    @Test
+    public void testWildcardSearch() {
+        final WildcardSearch unicode = WildcardSearch.getInstance('*', '_', CaseFolding.UNICODE);
+        final WildcardSearch turkish = WildcardSearch.getInstance('*', '_', CaseFolding.forLocale(new Locale("tr")));
+        final WildcardIndex index = new WildcardIndex(turkish);
+
+        assertTrue(unicode.matches("Ma\u017Fe", "MASE"));
+        assertFalse(WildcardSearch.getInstance().matches("Ma\u017Fe", "MASE"));
+        assertTrue(unicode.matches("x" + DESERET_UPPER + "y", "*" + DESERET_LOWER + "*"));
+        assertTrue(unicode.matches(DESERET_LOWER + "y", DESERET_UPPER + "_"));
+        assertFalse(WildcardSearch.getInstance().matches("x" + DESERET_UPPER + "y", "*" + DESERET_LOWER + "*"));
+
+        assertTrue(turkish.matches("D\u0130YARBAKIR", "diyarbak\u0131r"));
+        assertFalse(turkish.matches("DIYARBAKIR", "diyarbakir"));
+        assertTrue(WildcardSearch.getInstance().matches("DIYARBAKIR", "diyarbakir"));
+
+        assertEquals(Arrays.asList("\u0131stanbul", "ISTANBUL"),
+            turkish.filter(Arrays.asList("\u0131stanbul", "istanbul", "ISTANBUL"), "\u0131st*"));
+        assertEquals("[0]", Arrays.toString(turkish.compileAll(Arrays.asList("\u0131*", "i*")).matches("Izmir")));
+
+        index.addAll(Arrays.asList("\u0130zmir", "Izmir", "izmir"));
+        assertEquals(Arrays.asList("izmir", "\u0130zmir"), index.find("iz*"));
+    }
+
+
+    @Test
+    public void testException() {
+        try {
+            CaseFolding.forLocale(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            WildcardSearch.getInstance('*', '_', (CaseFolding) null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+}
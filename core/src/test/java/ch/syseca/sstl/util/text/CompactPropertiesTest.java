@@ -0,0 +1,188 @@
+package ch.syseca.sstl.util.text;
+
+
+import static org.junit.Assert.assertEquals;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import org.junit.Test;
+
+
+/**
+ * JUnit Test f&uuml;r {@link CompactProperties}
+ */
+public class CompactPropertiesTest {
+
+    @Test
+    public void testProperties() {
+        final CompactProperties p = new CompactProperties();
+
+        p.setProperty("b", "2");
+        p.setProperty("a", "1");
+        p.setProperty("b", "3");
+        p.setProperty("c", null);
+        assertEquals(3, p.size());
+        assertEquals("3", p.getProperty("b"));
+        assertEquals(null, p.getProperty("c", "x"));
+        assertEquals("x", p.getProperty("d", "x"));
+        assertEquals("{b=3, a=1, c=null}", p.toString());
+    }
+
+
+    @Test
+    public void testRemove() {
+        final CompactProperties p = new CompactProperties();
+
+        p.setProperty("a", "1");
+        p.setProperty("b", "2");
+        p.setProperty("c", "3");
+        assertEquals("2", p.remove("b"));
+        assertEquals(null, p.remove("b"));
+        assertEquals("{a=1, c=3}", p.toString());
+
+        p.setProperty("b", "4");
+        assertEquals("{a=1, c=3, b=4}", p.toString());
+    }
+
+
+    /**
+     * Ab {@link CompactProperties#INDEX_THRESHOLD} Properties werden die Namen &uuml;ber den Hash-Index gesucht, der
+     * beim Entfernen nachgef&uuml;hrt wird.
+     */
+    @Test
+    public void testIndex() {
+        final CompactProperties p = new CompactProperties();
+
+        for (int i = 0; i < 40; i++) {
+            p.setProperty("k" + i, "v" + i);
+        }
+        for (int i = 0; i < 40; i += 3) {
+            assertEquals("v" + i, p.remove("k" + i));
+        }
+
+        assertEquals(26, p.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i % 3 == 0 ? null : "v" + i, p.get("k" + i));
+        }
+
+        // bis unter den Schwellwert leeren, dann wieder fuellen
+        while (p.size() > 2) {
+            p.remove(p.keySet().iterator().next());
+        }
+        assertEquals("{k37=v37, k38=v38}", p.toString());
+        p.setProperty("k0", "x");
+        assertEquals("x", p.get("k0"));
+        assertEquals("v38", p.get("k38"));
+    }
+
+
+    @Test
+    public void testIteratorRemove() {
+        final CompactProperties p = new CompactProperties();
+        final Iterator<Map.Entry<String, String>> it;
+
+        for (int i = 0; i < 20; i++) {
+            p.setProperty("k" + i, "v" + i);
+        }
+
+        it = p.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getKey().endsWith("1")) {
+                it.remove();
+            }
+        }
+
+        assertEquals(18, p.size());
+        assertEquals(null, p.get("k11"));
+        assertEquals("v12", p.get("k12"));
+        assertEquals("k0", p.keySet().iterator().next());
+    }
+
+
+    /**
+     * Ein Entry, das vor dem Entfernen eines anderen Properties gelesen wurde, schreibt in sein eigenes Property.
+     */
+    @Test
+    public void testEntrySetValueAfterRemove() {
+        final CompactProperties p = new CompactProperties();
+        final Iterator<Map.Entry<String, String>> it;
+        final Map.Entry<String, String> a;
+        final Map.Entry<String, String> c;
+
+        p.setProperty("a", "1");
+        p.setProperty("b", "2");
+        p.setProperty("c", "3");
+
+        it = p.entrySet().iterator();
+        a = it.next();
+        it.next();
+        c = it.next();
+        p.remove("a");
+
+        assertEquals("3", c.setValue("4"));
+        assertEquals("{b=2, c=4}", p.toString());
+
+        a.setValue("5");
+        assertEquals("{b=2, c=4}", p.toString());
+    }
+
+
+    @Test
+    public void testSerialization() throws Exception {
+        final CompactProperties p = new CompactProperties();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final CompactProperties result;
+
+        for (int i = 0; i < 20; i++) {
+            p.setProperty("k" + i, "v" + i);
+        }
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(p);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            result = (CompactProperties) in.readObject();
+        }
+
+        assertEquals(p, result);
+        assertEquals("v19", result.get("k19"));
+    }
+
+
+    @Test
+    public void testFormat() throws Exception {
+        final CompactPropertiesFormat cpf = new CompactPropertiesFormat();
+        final LinkedPropertiesFormat lpf = new LinkedPropertiesFormat();
+        final CompactProperties p = cpf.parseProperties("b=2;a=1+1==2;c=;");
+
+        assertEquals("{b=2, a=1+1=2, c=}", p.toString());
+        assertEquals("b=2;a=1+1==2;c=;", cpf.format(p));
+        assertEquals("b=2;a=1+1==2;c=;", lpf.format(p));
+        assertEquals("b=2;a=1+1==2;c=;", lpf.formatTo(new StringBuilder(), p).toString());
+    }
+
+
+    @Test
+    public void testConvertToExportPropertySetOverridden() throws Exception {
+        final CompactPropertiesFormat filtering = new CompactPropertiesFormat() {
+            @Override
+            protected Map<String, String> convertToExportPropertySet(CompactProperties source) {
+                final CompactProperties result = new CompactProperties(source);
+
+                result.remove("password");
+
+                return result;
+            }
+        };
+        final CompactProperties p = new CompactProperties();
+
+        p.setProperty("user", "joe");
+        p.setProperty("password", "secret");
+
+        assertEquals("user=joe;", filtering.format(p));
+        assertEquals("user=joe;", filtering.formatTo(new StringBuilder(), p).toString());
+    }
+
+}
@@ -3,6 +3,7 @@ package ch.syseca.sstl.util.text;
 
 import static org.junit.Assert.assertEquals;
 import java.text.ParseException;
+import java.util.Map;
 import org.junit.Test;
 
 
@@ -142,4 +143,46 @@ public class LinkedPropertiesFormatTest {
 
     }
 
+
+    /**
+     * Test f&uuml;r {@link LinkedPropertiesFormat#formatTo(Appendable, LinkedProperties)}
+     * 
+     * @throws Exception Exception.
+     */
+    @Test
+    public void testFormatTo() throws Exception {
+        final LinkedProperties p = new LinkedProperties(16, 0.75f, true);
+
+        p.setProperty("b", "2;");
+        p.setProperty("a", null);
+        p.setProperty("c", "3");
+        assertEquals("b=2;;;a=;c=3;", pf.formatTo(new StringBuilder(), p).toString());
+        assertEquals(pf.format(p), pf.formatTo(new StringBuilder(), p).toString());
+
+        // die Reihenfolge einer access-ordered Map wird nicht ver&auml;ndert
+        assertEquals("[b, a, c]", p.keySet().toString());
+    }
+
+
+    @Test
+    public void testConvertToExportPropertySetOverridden() throws Exception {
+        final LinkedPropertiesFormat renaming = new LinkedPropertiesFormat() {
+            @Override
+            protected Map<String, String> convertToExportPropertySet(LinkedProperties source) {
+                final LinkedProperties result = new LinkedProperties();
+
+                source.forEach((k, v) -> result.setProperty("x." + k, v));
+
+                return result;
+            }
+        };
+        final LinkedProperties p = new LinkedProperties();
+
+        p.setProperty("b", "2");
+        p.setProperty("a", "1");
+
+        assertEquals("x.b=2;x.a=1;", renaming.format(p));
+        assertEquals("x.b=2;x.a=1;", renaming.formatTo(new StringBuilder(), p).toString());
+        assertEquals("x.b=2;x.a=1;", renaming.formatTo(new StringBuilder(), new CompactProperties(p)).toString());
+    }
 }
@@ -2,6 +2,7 @@ package ch.syseca.sstl.util.text;
 
 
 import static org.junit.Assert.assertEquals;
+import java.io.StringWriter;
 import java.text.MessageFormat;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -217,4 +218,61 @@ public class MessageFormatNATest {
                 .addNamedArgumentSuplier("v", new IntSuplier(2));
         assertEquals("3=3", mf.format());
     }
+
+
+    @Test
+    public void testFormatTo() throws Exception {
+        final MessageFormatNA mf = new MessageFormatNA("Hej {name} {0}, you are {age} years old.")
+                .addIndexedArgument("Doe")
+                .addNamedArgument("name", "Joe")
+                .addNamedArgument("age", 99);
+        final StringBuilder sb = new StringBuilder("> ");
+        final java.io.StringWriter w = new StringWriter();
+
+        assertEquals("> Hej Joe Doe, you are 99 years old.", mf.formatTo(sb).toString());
+        mf.addNamedArgument("age", 100).formatTo((Appendable) w);
+        assertEquals("Hej Joe Doe, you are 100 years old.", w.toString());
+
+        // the reused argument array must follow changes of the number of arguments
+        mf.applyPattern("{0} {1} {name}");
+        mf.setIndexedArgument(1, "Jr.");
+        assertEquals("Doe Jr. Joe", mf.format());
+        mf.applyPattern("{0} {1} {2}");
+        assertEquals("Doe Jr. {2}", mf.format());
+    }
+
+
+    @Test
+    public void testLazySupplier() {
+        final int[] calls = { 0 };
+        final MessageFormatNA mf = new MessageFormatNA("{count,choice,0#no files|1#{first}|1<{count} files}",
+                Locale.ENGLISH)
+                .addNamedArgumentSuplier("first", () -> {
+                    calls[0]++;
+                    return "a.txt";
+                });
+
+        assertEquals("no files", mf.addNamedArgument("count", 0).format());
+        assertEquals(0, calls[0]);
+        assertEquals("1,200 files", mf.addNamedArgument("count", 1200).format());
+        assertEquals(0, calls[0]);
+        assertEquals("a.txt", mf.addNamedArgument("count", 1).format());
+        assertEquals(1, calls[0]);
+    }
+
+
+    @Test
+    public void testLazySupplierRendering() {
+        final Date now = new Date();
+        final MessageFormatNA mf = new MessageFormatNA("{n} {d} {s} {o} {x} {d,date,yyyy}", Locale.GERMAN)
+                .addNamedArgument("n", 1234.5)
+                .addNamedArgument("d", now)
+                .addNamedArgument("s", "text")
+                .addNamedArgument("o", Locale.ENGLISH)
+                .addNamedArgumentSuplier("x", () -> null);
+
+        assertEquals(new MessageFormat("{0} {1} {2} {3} {4} {1,date,yyyy}", Locale.GERMAN)
+                .format(new Object[] { 1234.5, now, "text", Locale.ENGLISH, null }),
+                mf.format());
+    }
 }
@@ -0,0 +1,116 @@
+package ch.syseca.sstl.util.text;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import java.util.Locale;
+import java.util.TimeZone;
+import org.junit.Test;
+
+
+/**
+ * JUnit-Test f&uuml;r {@link MessageTemplateCache}.
+ */
+public class MessageTemplateCacheTest {
+
+    @Test
+    public void testGet() {
+        final MessageTemplateCache cache = new MessageTemplateCache(10);
+        final MessageTemplate t = cache.get("Hej {name}", Locale.GERMAN, null);
+
+        assertSame(t, cache.get("Hej {name}", Locale.GERMAN, null));
+        assertNotSame(t, cache.get("Hej {name}", Locale.ENGLISH, null));
+        assertNotSame(t, cache.get("Hej {name}", Locale.GERMAN, TimeZone.getTimeZone("GMT")));
+        assertSame(cache.get("Hej {name}", Locale.GERMAN, TimeZone.getTimeZone("GMT")),
+                cache.get("Hej {name}", Locale.GERMAN, TimeZone.getTimeZone("GMT")));
+
+        assertEquals(3, cache.size());
+        assertEquals(3L, cache.getHitCount());
+        assertEquals(3L, cache.getMissCount());
+        assertEquals(0L, cache.getEvictionCount());
+        assertEquals("Hej Joe", t.bind().with("name", "Joe").format());
+    }
+
+
+    @Test
+    public void testEviction() {
+        final MessageTemplateCache cache = new MessageTemplateCache(2);
+        final MessageTemplate a = cache.get("a {x}", Locale.GERMAN, null);
+        final MessageTemplate b = cache.get("b {x}", Locale.GERMAN, null);
+
+        // a has been used since it was added, b not: the eviction skips a and removes b
+        assertSame(a, cache.get("a {x}", Locale.GERMAN, null));
+        cache.get("c {x}", Locale.GERMAN, null);
+
+        assertEquals(2, cache.size());
+        assertEquals(1L, cache.getEvictionCount());
+        assertSame(a, cache.get("a {x}", Locale.GERMAN, null));
+        assertNotSame(b, cache.get("b {x}", Locale.GERMAN, null));
+        assertEquals(2, cache.size());
+        assertEquals(2L, cache.getEvictionCount());
+
+        // the hand has passed a and continued with c, which has not been used
+        assertSame(a, cache.get("a {x}", Locale.GERMAN, null));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(4L, cache.getMissCount());
+    }
+
+
+    /**
+     * A working set smaller than the cache must survive a stream of patterns that are used only once.
+     */
+    @Test
+    public void testWorkingSetSurvivesOneOffPatterns() {
+        final MessageTemplateCache cache = new MessageTemplateCache(100);
+
+        for (int i = 0; i < 100; i++) {
+            cache.get("unused " + i + " {x}", Locale.GERMAN, null);
+        }
+
+        for (int round = 0; round < 500; round++) {
+            final long misses = cache.getMissCount();
+
+            for (int i = 0; i < 20; i++) {
+                cache.get("hot " + i + " {x}", Locale.GERMAN, null);
+            }
+            cache.get("once " + round + " {x}", Locale.GERMAN, null);
+
+            // after the first round only the one-off pattern is compiled
+            assertEquals(round == 0 ? 21L : 1L, cache.getMissCount() - misses);
+            assertEquals(100, cache.size());
+        }
+        assertEquals(21L + 499L, cache.getEvictionCount());
+    }
+
+
+    @Test
+    public void testMessageFormatNA() {
+        final MessageTemplate t = MessageFormatNA.cached("Hej {name}, you are {age} years old.", Locale.GERMAN, null);
+
+        assertSame(t, MessageFormatNA.cached("Hej {name}, you are {age} years old.", Locale.GERMAN, null));
+        assertEquals("Hej Joe, you are 99 years old.", t.bind().with("name", "Joe").with("age", 99).format());
+        assertEquals(1000, MessageFormatNA.getTemplateCache().getMaximumSize());
+    }
+
+
+    @Test
+    public void testException() {
+        try {
+            new MessageTemplateCache(0);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            new MessageTemplateCache(1).get(null, Locale.GERMAN, null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+}
@@ -0,0 +1,355 @@
+package ch.syseca.sstl.util.text;
+
+
+import static org.junit.Assert.assertEquals;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+import java.text.DateFormat;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+
+public class MessageTemplateTest {
+
+    @Test
+    public void testBinding() {
+        final MessageTemplate t = MessageTemplate.compile("Hej {name} {familyName}, you are {age} years old.");
+
+        assertEquals("Hej Joe Doe, you are 99 years old.",
+                t.bind().with("name", "Joe").with("familyName", "Doe").with("age", 99).format());
+        assertEquals("Hej Jane null, you are 98 years old.",
+                t.bind().with("name", "Jane").with("age", 98).with("unknown", 1).format());
+        assertEquals(3, t.getNameToIndexMap().size());
+    }
+
+
+    @Test
+    public void testFormatMap() {
+        final MessageTemplate t = MessageTemplate.compile("Hej {name}, you are {year,number,0000} years old.",
+                new Locale("de", "CH"));
+        final Map<String, Object> args = new HashMap<>();
+
+        args.put("name", "Joe");
+        args.put("year", 99);
+        assertEquals("Hej Joe, you are 0099 years old.", t.format(args));
+    }
+
+
+    @Test
+    public void testMixed() {
+        final MessageTemplate t = MessageTemplate.compile("Hej {0} {familyName}, you are {3} years and {month} "
+                + "month old.");
+
+        assertEquals("Hej Joe Doe, you are 99 years and 4 month old.",
+                t.bind().with(0, "Joe").with(3, 99).with("familyName", "Doe").with("month", 4).format());
+        assertEquals(new MessageFormatNA(t.getPattern()).addIndexedArgument("Joe").format(),
+                t.bind().with(0, "Joe").format());
+        assertEquals(new MessageFormatNA("Hej {0} {2}.").addIndexedArgument("Joe").format(),
+                MessageTemplate.compile("Hej {0} {2}.").bind().with(0, "Joe").with(7, "unused").format());
+    }
+
+
+    @Test
+    public void testSameResultAsMessageFormatNA() {
+        final Date birth = Date.from(ZonedDateTime.of(1964, 9, 27, 0, 0, 0, 0, ZoneId.of("Europe/Zurich"))
+                .toInstant());
+        final String[] patterns = {
+                "Hej ''{name}'' ''{familyName}'', you''r id is {id,number,0000}.",
+                "Hej {name}, your birthday is at {birth,date,dd''MM''yyyy}.",
+                "{birth,date,yyyy-MM-dd'T'HH:mm:ss'Z'} {id}",
+                "{id,choice,0#none|1#one|1<many} {name}"
+        };
+
+        for (String pattern : patterns) {
+            final MessageFormatNA expected = new MessageFormatNA(pattern, Locale.GERMAN)
+                    .setTimeZone(TimeZone.getTimeZone("America/New_York"))
+                    .addNamedArgument("name", "Joe")
+                    .addNamedArgument("familyName", "Doe")
+                    .addNamedArgument("id", 123)
+                    .addNamedArgument("birth", birth);
+            final MessageTemplate t = MessageTemplate.compile(pattern, Locale.GERMAN,
+                    TimeZone.getTimeZone("America/New_York"));
+
+            assertEquals(pattern, expected.format(),
+                    t.bind().with("name", "Joe").with("familyName", "Doe").with("id", 123).with("birth", birth)
+                            .format());
+        }
+    }
+
+
+    @Test
+    public void testFormatTo() throws Exception {
+        final MessageTemplate t = MessageTemplate.compile("{n} {0}: {v,number,0.00}", Locale.ENGLISH);
+        final MessageTemplate.Binding b = t.bind().with(0, "x").with("n", "a").with("v", 1);
+        final StringWriter w = new StringWriter();
+
+        assertEquals("> a x: 1.00", b.formatTo(new StringBuilder("> ")).toString());
+        b.with("v", 2).formatTo((Appendable) w);
+        assertEquals("a x: 2.00", w.toString());
+        assertEquals("a x: 2.00", b.format());
+    }
+
+
+    /**
+     * Patterns without sub-formats are rendered without MessageFormat, the result must be the same.
+     */
+    @Test
+    public void testSimplePattern() {
+        final Date now = new Date();
+        final Object[] args = { "Joe", 1234567.891, now, null, Locale.ENGLISH, 'c' };
+        final String[] patterns = {
+                "", "plain text", "{0}", "{0}{1}{2}{3}{4}{5}", "It''s {0}''s turn", "'{0}' is {0}", "'{''}' {1}",
+                "{5} {4} {3} {2} {1} {0} {0}", "{0} and {7} are missing", "'quoted ''text'' {0}", "a}b {0}"
+        };
+
+        for (String pattern : patterns) {
+            final StringBuilder sb = new StringBuilder("> ");
+            final MessageTemplate.Binding b = MessageTemplate.compile(pattern, Locale.GERMAN).bind();
+            final String expected = new MessageFormat(pattern, Locale.GERMAN).format(args);
+
+            for (int i = 0; i < args.length; i++) {
+                b.with(i, args[i]);
+            }
+            assertEquals(pattern, expected, b.format());
+            assertEquals(pattern, "> " + expected, b.formatTo(sb).toString());
+        }
+
+        assertEquals(new MessageFormatNA("{0} {name} {1} {x}").addNamedArgument("name", "Joe").format(),
+                MessageTemplate.compile("{0} {name} {1} {x}").bind().with("name", "Joe").format());
+        assertEquals("{0} {1}", MessageTemplate.compile("{0} {1}").bind().format());
+    }
+
+
+    @Test
+    public void testSupplier() {
+        final MessageTemplate t = MessageTemplate.compile("{v}={v}");
+        final MessageFormatNATest.IntSuplier supplier = new MessageFormatNATest.IntSuplier(2);
+
+        assertEquals("3=3", t.bind().withSupplier("v", supplier).format());
+        assertEquals("4=4", t.bind().withSupplier("v", supplier).format());
+    }
+
+
+    @Test
+    public void testLazySupplier() {
+        final int[] calls = { 0 };
+        final MessageTemplate t = MessageTemplate.compile("{count,choice,0#no files|1#{first}|1<{count} files} "
+                + "({count,number,0000})", Locale.ENGLISH);
+        final MessageTemplate.Binding b = t.bind().withSupplier("first", () -> {
+            calls[0]++;
+            return 4711;
+        });
+
+        assertEquals("no files (0000)", b.with("count", 0).format());
+        assertEquals("2 files (0002)", b.with("count", 2).format());
+        assertEquals(0, calls[0]);
+        assertEquals("4,711 (0001)", b.with("count", 1).format());
+        assertEquals(1, calls[0]);
+    }
+
+
+    /**
+     * One template with a date sub-format is used by many threads.
+     */
+    @Test
+    public void testThreadSafety() throws Exception {
+        final MessageTemplate t = MessageTemplate.compile("{when,date,yyyy-MM-dd HH:mm:ss.SSS} {n,number,#,##0}",
+                Locale.GERMAN, TimeZone.getTimeZone("GMT"));
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<Boolean>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 8; i++) {
+                final long offset = i * 1000000000L;
+
+                results.add(executor.submit(() -> {
+                    for (int j = 0; j < 2000; j++) {
+                        final Date when = new Date(offset + j);
+                        final String expected = new MessageFormatNA(t.getPattern(), Locale.GERMAN)
+                                .setTimeZone(TimeZone.getTimeZone("GMT"))
+                                .addNamedArgument("when", when)
+                                .addNamedArgument("n", offset + j)
+                                .format();
+
+                        if (!expected.equals(t.bind().with("when", when).with("n", offset + j).format())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertEquals(Boolean.TRUE, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+
+    @Test
+    public void testThreadSafeFormats() {
+        final String[] patterns = {
+                "{when,date,yyyy-MM-dd HH:mm:ss.SSS}", "{when,date,yyyy-MM-dd'T'HH:mm:ss'Z'}", "{when,date,dd.MM.yy}",
+                "{when,date,h:mm a}", "{when,date,d.M.y k:m:s Z}", "{when,date,yyyy-MM-dd''HH XXX}", "{when,date}",
+                "{when,date,short} {when,time,short}", "{when,date,long}", "{amount,number,#,##0.00} {n}",
+                "{n,choice,0#none|1#{n,number,integer} at {when,date,HH:mm}}", "{amount,number,percent}"
+            };
+        final Locale[] locales = { Locale.GERMAN, new Locale("de", "CH"), Locale.US, new Locale("th", "TH", "TH") };
+        final TimeZone[] timeZones = { null, TimeZone.getTimeZone("GMT"), TimeZone.getTimeZone("America/New_York") };
+        final Date[] dates = {
+                new Date(0L), new Date(1234567890123L),
+                Date.from(ZonedDateTime.of(2016, 3, 27, 2, 30, 0, 0, ZoneId.of("GMT")).toInstant())
+            };
+
+        for (String pattern : patterns) {
+            for (Locale locale : locales) {
+                for (TimeZone timeZone : timeZones) {
+                    final MessageTemplate expected = MessageTemplate.compile(pattern, locale, timeZone);
+                    final MessageTemplate t = MessageTemplate.compile(pattern, locale, timeZone, true);
+
+                    assertEquals(Boolean.TRUE, t.isThreadSafeFormats());
+                    for (Date when : dates) {
+                        assertEquals(pattern,
+                                expected.bind().with("when", when).with("amount", 1234.5).with("n", 2).format(),
+                                t.bind().with("when", when).with("amount", 1234.5).with("n", 2).format());
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Dates of the Julian calendar (before 1582) and years with more than four digits.
+     */
+    @Test
+    public void testThreadSafeFormatsCalendarEdges() {
+        final TimeZone utc = TimeZone.getTimeZone("UTC");
+        final String[] patterns = { "{when,date,yyyy-MM-dd HH:mm}", "{when,date,y/M/d}", "{when,date,dd.MM.yy}" };
+        final Date[] dates = {
+                new Date(-20000000000000L), new Date(-12219292800001L), new Date(-12219292800000L),
+                new Date(253402300800000L), new Date(253433923200000L), new Date(-62135769600000L)
+            };
+
+        for (String pattern : patterns) {
+            final MessageTemplate expected = MessageTemplate.compile(pattern, Locale.GERMAN, utc);
+            final MessageTemplate t = MessageTemplate.compile(pattern, Locale.GERMAN, utc, true);
+
+            for (Date when : dates) {
+                assertEquals(pattern + " " + when.getTime(), expected.bind().with("when", when).format(),
+                        t.bind().with("when", when).format());
+            }
+        }
+
+        assertEquals("1336-03-15 12:26",
+                MessageTemplate.compile(patterns[0], Locale.GERMAN, utc, true).bind().with("when", dates[0]).format());
+        assertEquals("10001-01-01 00:00",
+                MessageTemplate.compile(patterns[0], Locale.GERMAN, utc, true).bind().with("when", dates[4]).format());
+    }
+
+
+    @Test
+    public void testThreadSafeFormatsSerialization() throws Exception {
+        final MessageFormat format = new MessageFormat("{0,date,yyyy-MM-dd HH:mm} {1,number,#,##0.00} {0,date,long}",
+                Locale.GERMAN);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final MessageFormat copy;
+        final Object[] args = { new Date(1234567890123L), 1234.5 };
+
+        for (Format f : format.getFormats()) {
+            if (f instanceof DateFormat) {
+                ((DateFormat) f).setTimeZone(TimeZone.getTimeZone("GMT"));
+            }
+        }
+        ThreadSafeFormats.replaceFormats(format);
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(format);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (MessageFormat) in.readObject();
+        }
+
+        assertEquals(format.format(args), copy.format(args));
+        assertEquals("2009-02-13 23:31 1.234,50 13. Februar 2009", copy.format(args));
+    }
+
+
+    @Test
+    public void testThreadSafeFormatsThreadSafety() throws Exception {
+        final MessageTemplate t = MessageTemplate.compile("{when,date,yyyy-MM-dd HH:mm:ss.SSS} {n,number,#,##0}",
+                Locale.GERMAN, TimeZone.getTimeZone("GMT"), true);
+        final MessageTemplate expected = MessageTemplate.compile(t.getPattern(), Locale.GERMAN,
+                TimeZone.getTimeZone("GMT"));
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<Boolean>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 8; i++) {
+                final long offset = i * 1000000000L;
+
+                results.add(executor.submit(() -> {
+                    for (int j = 0; j < 2000; j++) {
+                        final Date when = new Date(offset + j);
+
+                        if (!expected.bind().with("when", when).with("n", offset + j).format()
+                                .equals(t.bind().with("when", when).with("n", offset + j).format())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertEquals(Boolean.TRUE, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+
+    @Test
+    public void testException() {
+        try {
+            MessageTemplate.compile(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            MessageTemplate.compile("{name").format(new HashMap<String, Object>());
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            MessageTemplate.compile("{name}").format(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package ch.syseca.sstl.util.text;
+
+
+import static org.junit.Assert.assertEquals;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import org.junit.Test;
+
+
+/**
+ * JUnit-Test f&uuml;r {@link NamedArgumentParser}.
+ */
+public class NamedArgumentParserTest {
+
+    @Test
+    public void testNamesToIndex() {
+        final Map<String, Integer> nameToIndex = new HashMap<>();
+
+        assertEquals("Hej {2} {3}, {1} {0}",
+                NamedArgumentParser.namesToIndex("Hej {name} {familyName}, {1} {0}", Locale.ENGLISH, nameToIndex));
+        assertEquals(Integer.valueOf(2), nameToIndex.get("name"));
+        assertEquals(Integer.valueOf(3), nameToIndex.get("familyName"));
+    }
+
+
+    @Test
+    public void testNamesInChoiceBranches() {
+        final Map<String, Integer> nameToIndex = new HashMap<>();
+
+        assertEquals("{0,choice,0#none|1#{1}|1<{0} of {1}}",
+                NamedArgumentParser.namesToIndex("{count,choice,0#none|1#{first}|1<{count} of {first}}",
+                        Locale.ENGLISH, nameToIndex));
+        assertEquals(2, nameToIndex.size());
+    }
+
+
+    @Test
+    public void testQuotedBracesInSubFormatStyle() {
+        final Map<String, Integer> nameToIndex = new HashMap<>();
+        final String pattern = "{when,date,'{'dd'}'} {name}";
+        final MessageFormatNA mf = new MessageFormatNA(pattern, Locale.ENGLISH);
+
+        assertEquals("{0,date,'{'dd'}'} {1}", NamedArgumentParser.namesToIndex(pattern, Locale.ENGLISH, nameToIndex));
+        assertEquals(2, nameToIndex.size());
+
+        mf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        assertEquals("{01} x", mf.addNamedArgument("when", new Date(0)).addNamedArgument("name", "x").format());
+    }
+
+
+    @Test
+    public void testQuotedBracesInText() {
+        final Map<String, Integer> nameToIndex = new HashMap<>();
+
+        assertEquals("'{'name'}' {0}",
+                NamedArgumentParser.namesToIndex("'{'name'}' {name}", Locale.ENGLISH, nameToIndex));
+        assertEquals(-1, NamedArgumentParser.evaluateMaxArgIndex("'{'1'}' it''s {x,date,'{'2'}'}", Locale.ENGLISH));
+    }
+
+}
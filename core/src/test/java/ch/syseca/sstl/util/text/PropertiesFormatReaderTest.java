@@ -0,0 +1,153 @@
+package ch.syseca.sstl.util.text;
+
+
+import static org.junit.Assert.assertEquals;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.text.ParseException;
+import org.junit.Test;
+
+
+/**
+ * JUnit Test f&uuml;r {@link PropertiesFormatReader}
+ */
+public class PropertiesFormatReaderTest {
+
+    private final LinkedPropertiesFormat lpf = new LinkedPropertiesFormat();
+
+
+    @Test
+    public void testNext() throws Exception {
+        final PropertiesFormatReader r = new PropertiesFormatReader(new StringReader("a=2+2==4;b=56;;;c=9"));
+
+        assertEquals(Boolean.TRUE, r.next());
+        assertEquals("a", r.getKey());
+        assertEquals("2+2=4", r.getValue());
+        assertEquals(Boolean.TRUE, r.next());
+        assertEquals("b", r.getKey());
+        assertEquals("56;", r.getValue());
+        assertEquals(Boolean.TRUE, r.next());
+        assertEquals("c", r.getKey());
+        assertEquals("9", r.getValue());
+        assertEquals(Boolean.FALSE, r.next());
+        assertEquals(null, r.getKey());
+        assertEquals(19L, r.getPosition());
+    }
+
+
+    @Test
+    public void testReadInto() throws Exception {
+        final LinkedProperties p = new PropertiesFormatReader(CharBuffer.wrap("a= 1  ;   b= 2 ;  "))
+                .readInto(new LinkedProperties());
+
+        assertEquals(2, p.size());
+        assertEquals("1", p.get("a"));
+        assertEquals("2", p.get("b"));
+
+        assertEquals(0, lpf.readProperties(new StringReader("     ")).size());
+        assertEquals(lpf.parseProperties("x=1;y"), lpf.readProperties(new StringReader("x=1;y")));
+    }
+
+
+    @Test
+    public void testError() throws Exception {
+        try {
+            lpf.readProperties(new StringReader("= ; a = 1;     "));
+            throw new AssertionError();
+        } catch (ParseException e) {
+            assertEquals(1, e.getErrorOffset());
+        }
+
+        try {
+            lpf.readProperties(new StringReader("a=1;b=2=3"));
+            throw new AssertionError();
+        } catch (ParseException e) {
+            assertEquals(7, e.getErrorOffset());
+        }
+    }
+
+
+    /**
+     * Verdoppelte Trennzeichen ({@code ==} und {@code ;;}) werden auch erkannt, wenn sie &uuml;ber die Grenze des
+     * minimalen Puffers gehen.
+     *
+     * @throws  Exception  Exception.
+     */
+    @Test
+    public void testEscapesWithSmallBuffer() throws Exception {
+        final LinkedProperties p = read("a==b=c==d;;e;ab=1;;;;2;key=value==");
+
+        assertEquals("[a=b, ab, key]", p.keySet().toString());
+        assertEquals("c=d;e", p.get("a=b"));
+        assertEquals("1;;2", p.get("ab"));
+        assertEquals("value=", p.get("key"));
+        assertEquals(lpf.parseProperties("a==b=c==d;;e;ab=1;;;;2;key=value=="), p);
+    }
+
+
+    /**
+     * Fehlende Werte (auch ohne {@code =} beim letzten Namen) und Leerzeichen um Namen und Werte.
+     *
+     * @throws  Exception  Exception.
+     */
+    @Test
+    public void testEmptyValues() throws Exception {
+        final LinkedProperties p = read("  a  =  1  ;c=;d=  ;  b  ");
+
+        assertEquals("[a, c, d, b]", p.keySet().toString());
+        assertEquals("1", p.get("a"));
+        assertEquals("", p.get("b"));
+        assertEquals("", p.get("c"));
+        assertEquals("", p.get("d"));
+        assertEquals(lpf.parseProperties("  a  =  1  ;c=;d=  ;  b  "), p);
+    }
+
+
+    /**
+     * Die Position eines Fehlers ist unabh&auml;ngig von der Gr&ouml;sse des Puffers.
+     *
+     * @throws  Exception  Exception.
+     */
+    @Test
+    public void testErrorWithSmallBuffer() throws Exception {
+        final String[] texts = { "=1", "a=1;b=2=3", "a=1; =2", "a=1;;b=2" };
+        final int[] offsets = { 1, 7, 6, 6 };
+
+        for (int i = 0; i < texts.length; i++) {
+            try {
+                read(texts[i]);
+                throw new AssertionError(texts[i]);
+            } catch (ParseException e) {
+                assertEquals(texts[i], offsets[i], e.getErrorOffset());
+            }
+        }
+    }
+
+
+    @Test
+    public void testException() {
+        try {
+            new PropertiesFormatReader(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            new PropertiesFormatReader(new StringReader(""), 1);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+
+    /**
+     * Liest den Text mit dem kleinsten m&ouml;glichen Puffer.
+     */
+    private static LinkedProperties read(String text) throws IOException, ParseException {
+        return new PropertiesFormatReader(new StringReader(text), 2).readInto(new LinkedProperties());
+    }
+
+}
@@ -2,7 +2,9 @@ package ch.syseca.sstl.util.text;
 
 
 import static org.junit.Assert.assertEquals;
+import java.io.StringWriter;
 import java.text.ParseException;
+import java.util.Map;
 import java.util.Properties;
 import org.junit.Test;
 
@@ -118,6 +120,30 @@ public class PropertiesFormatTest {
     }
 
 
+    /**
+     * Test f&uuml;r {@link PropertiesFormat#parseProperties(String)} mit verdoppelten Zeichen und Leerzeichen.
+     * 
+     * @throws Exception Exception.
+     */
+    @Test
+    public void testParsePropertiesEscapes() throws Exception {
+        Properties p;
+
+        p = pf.parseProperties(" a==b = ;;x;; ; c = ==; \u0000d\u0000=\t");
+        assertEquals(3, p.size());
+        assertEquals(";x;", p.get("a=b"));
+        assertEquals("=", p.get("c"));
+        assertEquals("", p.get("d"));
+
+        try {
+            pf.parseProperties("a=1;\u2003=2");
+            throw new AssertionError();
+        } catch (ParseException e) {
+            assertEquals(6, e.getErrorOffset());
+        }
+    }
+
+
     @Test
     public void testOrder() throws Exception {
         Properties p = new Properties();
@@ -128,4 +154,60 @@ public class PropertiesFormatTest {
         assertEquals("a=1;b=2;", pf.format(p));
     }
 
+
+    /**
+     * Test f&uuml;r {@link PropertiesFormat#formatTo(Appendable, Properties)}
+     * 
+     * @throws Exception Exception.
+     */
+    @Test
+    public void testFormatTo() throws Exception {
+        final Properties p = new Properties();
+        final StringWriter out = new StringWriter();
+
+        assertEquals("", pf.formatTo(new StringBuilder(), p).toString());
+
+        p.setProperty("c", "");
+        p.setProperty("b=", "1+2=3;");
+        p.setProperty("a", "4");
+        assertEquals(pf.format(p), pf.formatTo(new StringBuilder(), p).toString());
+        assertEquals("x:a=4;b===1+2==3;;;c=;", pf.formatTo(new StringBuilder("x:"), p).toString());
+
+        pf.formatTo(out, p);
+        assertEquals(pf.format(p), out.toString());
+
+        try {
+            pf.formatTo(new StringBuilder(), null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+
+    @Test
+    public void testConvertToExportPropertySetOverridden() throws Exception {
+        final PropertiesFormat filtering = new PropertiesFormat() {
+            @Override
+            protected Map<String, String> convertToExportPropertySet(Properties source) {
+                final Map<String, String> result = super.convertToExportPropertySet(source);
+
+                result.remove("password");
+
+                return result;
+            }
+        };
+        final Properties p = new Properties();
+        final LinkedProperties lp = new LinkedProperties();
+
+        p.setProperty("user", "joe");
+        p.setProperty("password", "secret");
+        lp.setProperty("user", "joe");
+        lp.setProperty("password", "secret");
+
+        assertEquals("user=joe;", filtering.format(p));
+        assertEquals("user=joe;", filtering.formatTo(new StringBuilder(), p).toString());
+        assertEquals("user=joe;", filtering.formatTo(new StringBuilder(), lp).toString());
+        assertEquals("password=secret;user=joe;", pf.format(p));
+    }
 }
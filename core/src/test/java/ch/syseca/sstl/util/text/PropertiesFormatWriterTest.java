@@ -0,0 +1,60 @@
+package ch.syseca.sstl.util.text;
+
+
+import static org.junit.Assert.assertEquals;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Properties;
+import org.junit.Test;
+
+
+/**
+ * JUnit Test f&uuml;r {@link PropertiesFormatWriter}
+ */
+public class PropertiesFormatWriterTest {
+
+    @Test
+    public void testWrite() throws Exception {
+        final StringBuilder out = new StringBuilder();
+
+        new PropertiesFormatWriter(out).write("a", "4").write("b", null).write("c=d", "1+2=3;");
+        assertEquals("a=4;b=;c==d=1+2==3;;;", out.toString());
+    }
+
+
+    @Test
+    public void testSameResultAsFormat() throws Exception {
+        final PropertiesFormat pf = new PropertiesFormat();
+        final Properties p = new Properties();
+        final StringWriter out = new StringWriter();
+
+        p.setProperty("b", "x;;y");
+        p.setProperty("a", "1==2");
+        p.setProperty("c", "");
+
+        try (PropertiesFormatWriter w = new PropertiesFormatWriter(out)) {
+            w.writeAll(pf.convertToExportPropertySet(p));
+        }
+        assertEquals(pf.format(p), out.toString());
+        assertEquals(p, pf.readProperties(new StringReader(out.toString())));
+    }
+
+
+    @Test
+    public void testException() throws Exception {
+        try {
+            new PropertiesFormatWriter(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            new PropertiesFormatWriter(new StringBuilder()).write(null, "1");
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+}
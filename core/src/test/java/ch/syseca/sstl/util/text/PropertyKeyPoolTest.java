@@ -0,0 +1,56 @@
+package ch.syseca.sstl.util.text;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+
+/**
+ * JUnit Test f&uuml;r {@link PropertyKeyPool}
+ */
+public class PropertyKeyPoolTest {
+
+    @Test
+    public void testIntern() {
+        final PropertyKeyPool pool = new PropertyKeyPool(4);
+        final String key = new String("name");
+
+        assertSame(key, pool.intern(key));
+        assertSame(key, pool.intern(new String("name")));
+        assertSame(key, pool.intern(key));
+        assertEquals(null, pool.intern(null));
+
+        assertEquals(1, pool.size());
+        assertEquals(1L, pool.getHitCount());
+        assertEquals(1L, pool.getMissCount());
+        assertEquals(48L, pool.getSavedBytes());
+        assertEquals(48L, pool.getRetainedBytes());
+        assertEquals("PropertyKeyPool[keys=1, retainedBytes=48, hits=1, misses=1, savedBytes=48]", pool.getReport());
+    }
+
+
+    @Test
+    public void testSharedKeys() throws Exception {
+        final LinkedPropertiesFormat pf = new LinkedPropertiesFormat();
+        final LinkedProperties p1 = pf.parseProperties("sharedKeyTest=1;");
+        final LinkedProperties p2 = pf.parseProperties("sharedKeyTest=2;");
+        final LinkedProperties p3 = new LinkedProperties();
+
+        p3.setProperty(new String("sharedKeyTest"), "3");
+        assertSame(p1.keySet().iterator().next(), p2.keySet().iterator().next());
+        assertSame(p1.keySet().iterator().next(), p3.keySet().iterator().next());
+    }
+
+
+    @Test
+    public void testException() {
+        try {
+            new PropertyKeyPool(0);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+}
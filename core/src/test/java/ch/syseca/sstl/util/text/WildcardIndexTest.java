@@ -0,0 +1,128 @@
+package ch.syseca.sstl.util.text;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+
+/**
+ * JUnit-Test f&uuml;r {@link WildcardIndex}.
+ */
+public class WildcardIndexTest {
+
+    @Test
+    public void testFind() {
+        final WildcardIndex index = new WildcardIndex(WildcardSearch.getInstance());
+
+        index.addAll(Arrays.asList("AB120", "ab121", "AB13", "AC120", "B120", "AB"));
+        assertEquals(6, index.size());
+
+        assertEquals(Arrays.asList("AB120", "ab121"), index.find("ab12*"));
+        assertEquals(Arrays.asList("AB120", "ab121", "AC120"), index.find("A_12*"));
+        assertEquals(Arrays.asList("AB120", "AC120", "B120"), index.find("*120"));
+        assertEquals(Arrays.asList("AB13"), index.find("ab13"));
+        assertEquals(Collections.emptyList(), index.find("X*"));
+        assertEquals(6, index.find("*").size());
+    }
+
+
+    @Test
+    public void testAddRemove() {
+        final WildcardIndex index = new WildcardIndex(WildcardSearch.getInstance());
+
+        assertTrue(index.add("Test"));
+        assertTrue(index.add("TEST"));
+        assertFalse(index.add("Test"));
+        assertEquals(2, index.size());
+        assertTrue(index.contains("TEST"));
+        assertFalse(index.contains("test"));
+        assertEquals(Arrays.asList("TEST", "Test"), index.find("te*"));
+
+        assertTrue(index.remove("TEST"));
+        assertFalse(index.remove("TEST"));
+        assertFalse(index.remove("test"));
+        assertEquals(1, index.size());
+        assertEquals(Arrays.asList("Test"), index.find("te*"));
+
+        assertTrue(index.remove("Test"));
+        assertEquals(0, index.size());
+        assertEquals(Collections.emptyList(), index.find("*"));
+    }
+
+
+    @Test
+    public void testCaseSensitive() {
+        final WildcardIndex index = new WildcardIndex(WildcardSearch.getInstance(true));
+
+        index.addAll(Arrays.asList("Test", "TEST", "test"));
+        assertEquals(Arrays.asList("TEST"), index.find("TE*"));
+        assertEquals(Arrays.asList("Test", "test"), index.find("*est"));
+    }
+
+
+    /**
+     * Only the keys starting with the literal prefix of the pattern are tested; the boundaries of this range.
+     */
+    @Test
+    public void testPrefixRange() {
+        final WildcardIndex index = new WildcardIndex(WildcardSearch.getInstance());
+
+        index.addAll(Arrays.asList("", "AB", "ABC", "abc1", "ABD", "ABBZ", "B"));
+
+        assertEquals(Arrays.asList("ABC", "abc1"), index.find("abc*"));
+        assertEquals(Arrays.asList("AB", "ABBZ", "ABC", "abc1", "ABD"), index.find("ab*"));
+        assertEquals(Arrays.asList("ABC"), index.find("abc"));
+        assertEquals(Arrays.asList("AB", "ABC", "ABD"), index.find("ab_"));
+        assertEquals(Collections.emptyList(), index.find("abcd*"));
+        assertEquals(Arrays.asList("abc1"), index.find("*1"));
+        assertEquals(Arrays.asList(""), index.find(""));
+        assertEquals(7, index.find("*").size());
+    }
+
+
+    /**
+     * An escaped wildcard is part of the literal prefix.
+     */
+    @Test
+    public void testEscapedWildcard() {
+        final WildcardIndex index = new WildcardIndex(WildcardSearch.getInstance());
+
+        index.addAll(Arrays.asList("A*1", "A*2", "AB1", "A_1"));
+
+        assertEquals(Arrays.asList("A*1", "A*2"), index.find("A\\**"));
+        assertEquals(Arrays.asList("A_1"), index.find("A\\_1"));
+        assertEquals(Arrays.asList("A*1", "A_1", "AB1"), index.find("A_1"));
+    }
+
+
+    @Test
+    public void testException() {
+        final WildcardIndex index = new WildcardIndex(WildcardSearch.getInstance());
+
+        try {
+            new WildcardIndex(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            index.add(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            index.find(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+package ch.syseca.sstl.util.text;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+
+/**
+ * JUnit-Test f&uuml;r {@link WildcardPatternSet}.
+ */
+public class WildcardPatternSetTest {
+
+    @Test
+    public void testMatches() {
+        final WildcardPatternSet set = WildcardSearch.getInstance()
+                .compileAll(Arrays.asList("ABC*", "*_XYZ", "AB_", "abc", "*", "A\\*C"));
+
+        assertEquals(6, set.size());
+        assertEquals("AB_", set.get(2).getPattern());
+
+        assertEquals("[0, 1, 4]", Arrays.toString(set.matches("abcXYZ")));
+        assertEquals("[0, 2, 3, 4]", Arrays.toString(set.matches("abc")));
+        assertEquals("[4, 5]", Arrays.toString(set.matches("A*C")));
+        assertEquals("[2, 4]", Arrays.toString(set.matches("AB")));
+        assertEquals("[4]", Arrays.toString(set.matches("")));
+
+        assertTrue(set.matchesAny("xyz"));
+        assertFalse(WildcardSearch.getInstance().compileAll(Arrays.asList("ABC*", "*_XYZ")).matchesAny("xyz"));
+        assertFalse(WildcardSearch.getInstance().compileAll(Collections.<String>emptyList()).matchesAny("xyz"));
+    }
+
+
+    @Test
+    public void testCaseSensitive() {
+        final WildcardPatternSet set = WildcardSearch.getInstance(true).compileAll(Arrays.asList("ABC*", "abc*"));
+
+        assertEquals("[0]", Arrays.toString(set.matches("ABCD")));
+        assertEquals("[1]", Arrays.toString(set.matches("abcd")));
+        assertEquals("[]", Arrays.toString(set.matches("aBcd")));
+    }
+
+
+    @Test
+    public void testForEachMatch() {
+        final WildcardPatternSet set = WildcardSearch.getInstance().compileAll(Arrays.asList("*b", "a*", "x*"));
+        final List<Integer> ids = new ArrayList<>();
+
+        set.forEachMatch("ab", ids::add);
+        Collections.sort(ids);
+        assertEquals(Arrays.asList(0, 1), ids);
+    }
+
+
+    /**
+     * Patterns along the same path of the prefix trie: every pattern whose literal prefix is a prefix of the text is
+     * tested.
+     */
+    @Test
+    public void testSharedPrefixes() {
+        final WildcardPatternSet set = WildcardSearch.getInstance()
+                .compileAll(Arrays.asList("A*", "AB*", "ABC*", "ABCD", "ABX*", "_BC*"));
+
+        assertEquals("[0, 1, 2, 3, 5]", Arrays.toString(set.matches("abcd")));
+        assertEquals("[0, 1, 2, 5]", Arrays.toString(set.matches("ABC")));
+        assertEquals("[0, 1, 4]", Arrays.toString(set.matches("abx")));
+        assertEquals("[0]", Arrays.toString(set.matches("a")));
+        assertEquals("[]", Arrays.toString(set.matches("")));
+        assertEquals("[5]", Arrays.toString(set.matches("xbcd")));
+    }
+
+
+    /**
+     * The same pattern may be given several times, each occurrence has its own id.
+     */
+    @Test
+    public void testDuplicatePatterns() {
+        final WildcardPatternSet set = WildcardSearch.getInstance().compileAll(Arrays.asList("ab*", "*", "AB*", "ab*"));
+
+        assertEquals("[0, 1, 2, 3]", Arrays.toString(set.matches("abc")));
+        assertEquals("[1]", Arrays.toString(set.matches("a")));
+    }
+
+
+    /**
+     * An escaped wildcard is part of the literal prefix, the trie stores the wildcard character itself.
+     */
+    @Test
+    public void testEscapedWildcardInPrefix() {
+        final WildcardPatternSet set = WildcardSearch.getInstance().compileAll(Arrays.asList("a\\*b*", "a\\_", "a*"));
+
+        assertEquals("[0, 2]", Arrays.toString(set.matches("a*bc")));
+        assertEquals("[1, 2]", Arrays.toString(set.matches("a_")));
+        assertEquals("[2]", Arrays.toString(set.matches("axbc")));
+    }
+
+
+    /**
+     * Patterns starting with a multi char wildcard are selected by their first literal. The literals overlap, so the
+     * automaton must report the literals ending at the same position ({@code she} and {@code he}).
+     */
+    @Test
+    public void testLeadingMultiCharWildcard() {
+        final List<String> patterns = Arrays.asList("*he*", "*she", "*hers*", "*his_", "*e_s*x", "*_x", "ushe*");
+        final WildcardPatternSet set = WildcardSearch.getInstance().compileAll(patterns);
+
+        assertEquals("[0, 2, 6]", Arrays.toString(set.matches("ushers")));
+        assertEquals("[0, 1, 6]", Arrays.toString(set.matches("USHE")));
+        assertEquals("[0, 1]", Arrays.toString(set.matches("she")));
+        assertEquals("[0, 2]", Arrays.toString(set.matches("shers")));
+        assertEquals("[0, 5]", Arrays.toString(set.matches("this hex")));
+        assertEquals("[3]", Arrays.toString(set.matches("ehis")));
+        assertEquals("[4, 5]", Arrays.toString(set.matches("eXsex")));
+        assertEquals("[]", Arrays.toString(set.matches("")));
+
+        // the leftmost 'e' is not the start of the leftmost "e_s"
+        assertEquals("[4, 5]", Arrays.toString(set.matches("ezzeasx")));
+
+        assertTrue(set.matchesAny("she"));
+        assertFalse(set.matchesAny("sh"));
+
+        for (String text : Arrays.asList("ushers", "USHE", "she", "shers", "this hex", "ehis", "eXsex", "ezzeasx", "",
+                "x", "hhis", "sheshe", "hishis!")) {
+            final List<Integer> expected = new ArrayList<>();
+            final List<Integer> ids = new ArrayList<>();
+
+            for (int id = 0; id < patterns.size(); id++) {
+                if (set.get(id).matches(text)) {
+                    expected.add(id);
+                }
+            }
+            set.forEachMatch(text, ids::add);
+            Collections.sort(ids);
+            assertEquals(text, expected, ids);
+            assertEquals(text, !expected.isEmpty(), set.matchesAny(text));
+        }
+    }
+
+
+    /**
+     * A text that starts with the literal prefix is tested from the end of the prefix on.
+     */
+    @Test
+    public void testRemainderAfterPrefix() {
+        final WildcardPatternSet set = WildcardSearch.getInstance()
+                .compileAll(Arrays.asList("abc", "abc_", "ab_d*", "abc*d", "a*b*c"));
+
+        assertEquals("[0, 1, 4]", Arrays.toString(set.matches("abc")));
+        assertEquals("[1, 2, 3]", Arrays.toString(set.matches("abcd")));
+        assertEquals("[3]", Arrays.toString(set.matches("abcxd")));
+        assertEquals("[2, 4]", Arrays.toString(set.matches("abxdbc")));
+        assertEquals("[]", Arrays.toString(set.matches("ab")));
+    }
+
+
+    @Test
+    public void testException() {
+        try {
+            WildcardSearch.getInstance().compileAll(Arrays.asList("a*")).matches(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            WildcardSearch.getInstance().compileAll(Arrays.asList("a*", null));
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+}
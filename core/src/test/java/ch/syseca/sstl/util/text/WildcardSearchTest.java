@@ -1,6 +1,10 @@
 package ch.syseca.sstl.util.text;
 
 import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.Test;
 
 
@@ -59,4 +63,197 @@ public class WildcardSearchTest {
         assertFalse(WildcardSearch.getInstance().matches("Test", "T\\_st"));
     }
 
+
+    /**
+     * Test f&uuml;r {@link WildcardSearch#compile(String)}.
+     */
+    @Test
+    public void testCompile() {
+        final CompiledWildcard p = WildcardSearch.getInstance().compile("t_s*");
+
+        assertEquals("t_s*", p.getPattern());
+        assertTrue(p.matches("Test"));
+        assertTrue(p.matches("tast"));
+        assertTrue(p.matches(new StringBuilder("TASTE")));
+        assertFalse(p.matches("tst"));
+        assertFalse(p.matches("Toast"));
+
+        assertTrue(WildcardSearch.getInstance().compile("*").matches(""));
+        assertTrue(WildcardSearch.getInstance().compile("").matches(""));
+        assertFalse(WildcardSearch.getInstance().compile("").matches("Test"));
+        assertTrue(WildcardSearch.getInstance().compile("*e*t").matches("Test"));
+        assertFalse(WildcardSearch.getInstance().compile("*e*t").matches("Tests"));
+        assertTrue(WildcardSearch.getInstance().compile("T\\*st").matches("T*st"));
+        assertFalse(WildcardSearch.getInstance().compile("T\\*st").matches("Test"));
+        assertFalse(WildcardSearch.getInstance(true).compile("t*").matches("Test"));
+        assertTrue(WildcardSearch.getInstance('%', '?', false).compile("t?s%").matches("Test"));
+
+        // trailing single char wildcards also match the end of the text
+        assertTrue(WildcardSearch.getInstance().compile("Tes_").matches("Tes"));
+        assertTrue(WildcardSearch.getInstance().matches("Tes", "Tes_"));
+
+        try {
+            p.matches(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+
+        try {
+            WildcardSearch.getInstance().compile(null);
+            throw new AssertionError("Must throw an IllegalArgumentException exception.");
+        } catch (IllegalArgumentException e) {
+            e.getClass(); // ok
+        }
+    }
+
+
+    /**
+     * Test f&uuml;r {@link CompiledWildcard#getShape()}.
+     */
+    @Test
+    public void testShape() {
+        final WildcardSearch search = WildcardSearch.getInstance();
+
+        assertEquals(CompiledWildcard.Shape.EXACT, search.compile("abc").getShape());
+        assertEquals(CompiledWildcard.Shape.EXACT, search.compile("").getShape());
+        assertEquals(CompiledWildcard.Shape.EXACT, search.compile("a\\*c").getShape());
+        assertEquals(CompiledWildcard.Shape.PREFIX, search.compile("ABC*").getShape());
+        assertEquals(CompiledWildcard.Shape.PREFIX, search.compile("ABC**").getShape());
+        assertEquals(CompiledWildcard.Shape.SUFFIX, search.compile("*XYZ").getShape());
+        assertEquals(CompiledWildcard.Shape.CONTAINS, search.compile("*foo*").getShape());
+        assertEquals(CompiledWildcard.Shape.CONTAINS, search.compile("*").getShape());
+        assertEquals(CompiledWildcard.Shape.GENERIC, search.compile("*_XYZ").getShape());
+        assertEquals(CompiledWildcard.Shape.GENERIC, search.compile("abc_").getShape());
+        assertEquals(CompiledWildcard.Shape.GENERIC, search.compile("a*c").getShape());
+
+        assertTrue(search.compile("abc").matches("ABC"));
+        assertFalse(search.compile("abc").matches("ABCD"));
+        assertTrue(search.compile("ABC*").matches("abcdef"));
+        assertFalse(search.compile("ABC*").matches("ab"));
+        assertTrue(search.compile("*XYZ").matches(new StringBuilder("abxyz")));
+        assertFalse(search.compile("*XYZ").matches("xyzab"));
+        assertTrue(search.compile("*foo*").matches("a FOO b"));
+        assertFalse(search.compile("*foo*").matches("a FO b"));
+        assertTrue(WildcardSearch.getInstance(true).compile("*foo*").matches("afoob"));
+        assertFalse(WildcardSearch.getInstance(true).compile("*foo*").matches("aFOOb"));
+        assertFalse(WildcardSearch.getInstance(true).compile("*_XYZ").matches("XYZ"));
+    }
+
+
+    /**
+     * Test f&uuml;r {@link WildcardSearch#filter(java.util.Collection, String)} and
+     * {@link WildcardSearch#asPredicate(String)}.
+     */
+    @Test
+    public void testFilter() {
+        final List<String> values = Arrays.asList("Test", "taste", "tst", "Toast");
+
+        assertEquals(Arrays.asList("Test", "taste"), WildcardSearch.getInstance().filter(values, "t_st*"));
+        assertEquals(Arrays.asList("Test", "taste"), WildcardSearch.getInstance().filterParallel(values, "t_st*"));
+        assertEquals(Arrays.asList("tst"),
+                values.stream().filter(WildcardSearch.getInstance().asPredicate("*ST")).filter(v -> v.length() == 3)
+                        .collect(Collectors.toList()));
+        assertEquals(Arrays.asList("taste"),
+                WildcardSearch.getInstance(true).filter(values.spliterator(), "t_st*", false)
+                        .collect(Collectors.toList()));
+    }
+
+
+    /**
+     * Test f&uuml;r {@link WildcardSearch#filterParallel(java.util.Collection, String)} with a large collection.
+     */
+    @Test
+    public void testFilterParallel() {
+        final List<StringBuilder> values = new ArrayList<>();
+        final List<StringBuilder> result;
+
+        for (int i = 0; i < 100000; i++) {
+            values.add(new StringBuilder("key").append(i));
+        }
+
+        result = WildcardSearch.getInstance().filterParallel(values, "KEY*7");
+        assertEquals(10000, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals("key" + (i * 10 + 7), result.get(i).toString());
+        }
+        assertEquals(10000L, WildcardSearch.getInstance().filter(values.spliterator(), "KEY*7", true).count());
+    }
+
+
+    /**
+     * Patterns where a <code>*</code> must give back characters it has already consumed.
+     */
+    @Test
+    public void testBacktracking() {
+        final WildcardSearch search = WildcardSearch.getInstance();
+
+        assertTrue(search.matches("aab", "*ab"));
+        assertTrue(search.matches("abcabd", "a*b_"));
+        assertTrue(search.matches("mississippi", "m*iss*ppi"));
+        assertFalse(search.matches("mississippi", "m*iss*ppx"));
+        assertTrue(search.matches("abab", "*ab*ab"));
+        assertFalse(search.matches("aba", "*ab*ab"));
+        assertTrue(search.matches("aaaa", "a*a*a*a"));
+        assertFalse(search.matches("aaa", "a*a*a*a"));
+        assertTrue(search.matches("Test", "**T**"));
+        assertTrue(search.matches("ab", "*_*_*"));
+        assertTrue(search.matches("Test", "*t"));
+    }
+
+
+    /**
+     * Escaped wildcards and escape characters.
+     */
+    @Test
+    public void testEscape() {
+        final WildcardSearch search = WildcardSearch.getInstance();
+
+        assertTrue(search.matches("a*", "a\\*"));
+        assertFalse(search.matches("ab", "a\\*"));
+        assertTrue(search.matches("x_y", "x\\_y"));
+        assertFalse(search.matches("xzy", "x\\_y"));
+        assertTrue(search.matches("a\\b", "a\\\\b"));
+        assertFalse(search.matches("ab", "a\\\\b"));
+
+        // an escape character at the end of the pattern matches itself
+        assertTrue(search.matches("T\\", "T\\"));
+        assertFalse(search.matches("T", "T\\"));
+    }
+
+
+    /**
+     * Single char wildcards at the end of the pattern also match the end of the text.
+     */
+    @Test
+    public void testTrailingSingleCharWildcards() {
+        final WildcardSearch search = WildcardSearch.getInstance();
+
+        assertTrue(search.matches("", ""));
+        assertTrue(search.matches("", "_"));
+        assertTrue(search.matches("", "__"));
+        assertFalse(search.matches("", "_a"));
+        assertTrue(search.matches("a", "_*_"));
+        assertTrue(search.matches("abc", "_*_"));
+        assertTrue(search.matches("T*st", "T*s_"));
+    }
+
+
+    /**
+     * Patterns that forced the former recursive matcher into exponential backtracking.
+     */
+    @Test(timeout = 5000)
+    public void testNoExponentialBacktracking() {
+        final StringBuilder text = new StringBuilder();
+
+        while (text.length() < 100000) {
+            text.append('a');
+        }
+
+        assertFalse(WildcardSearch.getInstance().matches(text.toString(), "*a*a*a*a*a*a*a*a*a*a*b"));
+        assertTrue(WildcardSearch.getInstance().matches(text.toString(), "*a*a*a*a*a*a*a*a*a*a*"));
+        assertFalse(WildcardSearch.getInstance().matches(text.toString(), "a*a*a*a*a*a*a*a*a*a_b"));
+        assertTrue(WildcardSearch.getInstance().matches(text.toString(), "a*a*a*a*a*a*a*a*a*a___"));
+    }
+
 }